@@ -0,0 +1,28 @@
+package org.spring.azure.hub.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.spring.azure.hub.model.context.ServiceBusSharedResources;
+import org.spring.azure.hub.model.properties.ServiceBusProperties;
+import org.spring.azure.hub.provider.ServiceBusObjectMapperConfig;
+import org.spring.azure.hub.settings.processor.MessageProcessor;
+import org.spring.azure.hub.settings.processor.serialization.codec.PayloadCodec;
+import org.spring.azure.hub.settings.processor.serialization.codec.PayloadCodecRegistry;
+import org.spring.azure.hub.settings.processor.timeout.ListenerWatchdog;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+/**
+ * The processing components wired by hand, as the auto-configuration would, without starting a context or processors.
+ */
+final class Components {
+
+    final ServiceBusSharedResources sharedResources = new ServiceBusSharedResources();
+    final ObjectMapper objectMapper;
+    final PayloadCodecRegistry codecRegistry;
+    final MessageProcessor messageProcessor;
+
+    Components(String objectMapperProfile) {
+        objectMapper = new ServiceBusObjectMapperConfig().serviceBusClientObjectMapper(objectMapperProfile);
+        codecRegistry = new PayloadCodecRegistry(objectMapper, new StaticListableBeanFactory().getBeanProvider(PayloadCodec.class), "");
+        messageProcessor = new MessageProcessor(sharedResources, objectMapper, codecRegistry, new ListenerWatchdog(new ServiceBusProperties()));
+    }
+}
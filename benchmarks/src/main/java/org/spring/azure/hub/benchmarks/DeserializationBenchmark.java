@@ -0,0 +1,58 @@
+package org.spring.azure.hub.benchmarks;
+
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import org.openjdk.jmh.annotations.*;
+import org.spring.azure.hub.settings.processor.serialization.PayloadReader;
+import org.spring.azure.hub.settings.processor.serialization.Serializer;
+import org.spring.azure.hub.settings.processor.serialization.ServiceBusSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payload deserialization through the {@link PayloadReader} that {@link Serializer#reader} binds once per listener,
+ * with Jackson and with a registered custom {@link ServiceBusSerializer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2) @Measurement(iterations = 5, time = 2) @Fork(1)
+public class DeserializationBenchmark {
+
+    @Param({"128", "4096", "65536"})
+    public int payloadSize;
+
+    @Param({"jackson", "custom"})
+    public String serializer;
+
+    private Components components;
+    private PayloadReader reader;
+    private ServiceBusReceivedMessageContext message;
+
+    @Setup
+    public void setup() {
+        components = new Components("default");
+        if ("custom".equals(serializer))
+            components.sharedResources.getSerializerMap().put(Fakes.Order.class, new NoteSerializer());
+        reader = Serializer.reader(Fakes.Order.class, Fakes.Order.class, components.objectMapper,
+                components.codecRegistry, components.sharedResources);
+        message = Fakes.context(Fakes.orderJson(payloadSize));
+    }
+
+    @Benchmark
+    public Object read() {
+        return reader.read(message);
+    }
+
+    /**
+     * Stands in for a hand-written serializer: no reflection, one String copy of the body.
+     */
+    public static class NoteSerializer implements ServiceBusSerializer<Fakes.Order> {
+
+        @Override
+        public Fakes.Order serialize(ServiceBusReceivedMessageContext message) {
+            Fakes.Order order = new Fakes.Order();
+            order.note = new String(message.getMessage().getBody().toBytes(), StandardCharsets.UTF_8);
+            return order;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.spring.azure.hub.benchmarks;
+
+import com.azure.core.util.BinaryData;
+import com.azure.messaging.servicebus.ServiceBusReceivedMessage;
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import com.azure.messaging.servicebus.ServiceBusReceiverAsyncClient;
+import org.springframework.objenesis.ObjenesisStd;
+
+import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Messages and contexts without a broker. The SDK types are final with package-private constructors and the SDK jar
+ * is signed, so they are created reflectively. The receiver behind the contexts is never initialized: benchmarks must
+ * not settle messages.
+ */
+public final class Fakes {
+
+    private static final Constructor<ServiceBusReceivedMessage> MESSAGE;
+    private static final Constructor<?> MESSAGE_CONTEXT;
+    private static final Constructor<ServiceBusReceivedMessageContext> RECEIVED_CONTEXT;
+    private static final ServiceBusReceiverAsyncClient RECEIVER;
+
+    static {
+        try {
+            MESSAGE = ServiceBusReceivedMessage.class.getDeclaredConstructor(BinaryData.class);
+            MESSAGE.setAccessible(true);
+            Class<?> messageContextType = Class.forName("com.azure.messaging.servicebus.ServiceBusMessageContext");
+            MESSAGE_CONTEXT = messageContextType.getDeclaredConstructor(ServiceBusReceivedMessage.class);
+            MESSAGE_CONTEXT.setAccessible(true);
+            RECEIVED_CONTEXT = ServiceBusReceivedMessageContext.class
+                    .getDeclaredConstructor(ServiceBusReceiverAsyncClient.class, messageContextType);
+            RECEIVED_CONTEXT.setAccessible(true);
+            RECEIVER = new ObjenesisStd().newInstance(ServiceBusReceiverAsyncClient.class);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unsupported azure-messaging-servicebus version", e);
+        }
+    }
+
+    private Fakes() {
+    }
+
+    public static ServiceBusReceivedMessage message(byte[] body) {
+        try {
+            return MESSAGE.newInstance(BinaryData.fromBytes(body));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static ServiceBusReceivedMessageContext context(ServiceBusReceivedMessage message) {
+        try {
+            return RECEIVED_CONTEXT.newInstance(RECEIVER, MESSAGE_CONTEXT.newInstance(message));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static ServiceBusReceivedMessageContext context(byte[] body) {
+        return context(message(body));
+    }
+
+    /**
+     * A JSON {@link Order} whose serialized form is roughly {@code size} bytes.
+     */
+    public static byte[] orderJson(int size) {
+        StringBuilder note = new StringBuilder();
+        while (note.length() < Math.max(size - 60, 0))
+            note.append('x');
+        return String.format("{\"id\":\"42\",\"quantity\":3,\"price\":19.99,\"note\":\"%s\"}", note)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static class Order {
+        public String id;
+        public int quantity;
+        public double price;
+        public String note;
+    }
+}
@@ -0,0 +1,91 @@
+package org.spring.azure.hub.benchmarks;
+
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.spring.azure.hub.model.dto.ListenerBinding;
+import org.spring.azure.hub.model.properties.BatchFailurePolicy;
+import org.spring.azure.hub.settings.processor.MessageProcessor;
+import org.spring.azure.hub.settings.processor.invoker.ListenerInvoker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MessageProcessor#processMessage} for each listener shape and payload size. Listeners settle nothing, as in
+ * CONDITIONAL mode with a context parameter, so only dispatch, deserialization and invocation are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2) @Measurement(iterations = 5, time = 2) @Fork(1)
+public class ListenerDispatchBenchmark {
+
+    public enum Shape { PAYLOAD, PAYLOAD_CONTEXT, CONTEXT }
+
+    @Param({"PAYLOAD", "PAYLOAD_CONTEXT", "CONTEXT"})
+    public Shape shape;
+
+    @Param({"128", "4096", "65536"})
+    public int payloadSize;
+
+    @Param({"default", "high-performance"})
+    public String objectMapperProfile;
+
+    private MessageProcessor messageProcessor;
+    private ListenerBinding binding;
+    private ServiceBusReceivedMessageContext message;
+
+    @Setup
+    public void setup(Blackhole blackhole) throws Exception {
+        Components components = new Components(objectMapperProfile);
+        messageProcessor = components.messageProcessor;
+        Listeners listeners = new Listeners(blackhole);
+        ListenerInvoker invoker;
+        switch (shape) {
+            case PAYLOAD:
+                invoker = ListenerInvoker.compile(listeners, Listeners.class.getMethod("payload", Fakes.Order.class));
+                break;
+            case PAYLOAD_CONTEXT:
+                invoker = ListenerInvoker.compile(listeners, Listeners.class.getMethod("payloadContext", Fakes.Order.class, ServiceBusReceivedMessageContext.class));
+                break;
+            default:
+                invoker = ListenerInvoker.compile(listeners, Listeners.class.getMethod("context", ServiceBusReceivedMessageContext.class));
+        }
+        binding = ListenerBinding.builder()
+                .name("orders")
+                .invoker(invoker)
+                .payloadReader(messageProcessor.createPayloadReader(invoker))
+                .conditional(true)
+                .autoAck(false)
+                .abandonOnSerializationError(false)
+                .batchFailurePolicy(BatchFailurePolicy.ABANDON_ALL)
+                .build();
+        message = Fakes.context(Fakes.orderJson(payloadSize));
+    }
+
+    @Benchmark
+    public void processMessage() {
+        messageProcessor.processMessage(binding, message);
+    }
+
+    public static class Listeners {
+
+        private final Blackhole blackhole;
+
+        Listeners(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        public void payload(Fakes.Order order) {
+            blackhole.consume(order);
+        }
+
+        public void payloadContext(Fakes.Order order, ServiceBusReceivedMessageContext context) {
+            blackhole.consume(order);
+            blackhole.consume(context);
+        }
+
+        public void context(ServiceBusReceivedMessageContext context) {
+            blackhole.consume(context);
+        }
+    }
+}
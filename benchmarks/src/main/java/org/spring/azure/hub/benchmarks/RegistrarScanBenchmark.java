@@ -0,0 +1,128 @@
+package org.spring.azure.hub.benchmarks;
+
+import com.azure.messaging.servicebus.ServiceBusErrorContext;
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import org.openjdk.jmh.annotations.*;
+import org.spring.azure.hub.annotation.ErrorHandler;
+import org.spring.azure.hub.annotation.QueueListener;
+import org.spring.azure.hub.annotation.TopicListener;
+import org.spring.azure.hub.model.context.ServiceBusSharedResources;
+import org.spring.azure.hub.registrar.AnnotatedMethodScanner;
+import org.spring.azure.hub.registrar.AnnotationRegistrar;
+import org.spring.azure.hub.registrar.ErrorHandlerRegistrar;
+import org.spring.azure.hub.registrar.GlobalDeadLetterHandlerRegistrar;
+import org.spring.azure.hub.registrar.ListenerRegistrar;
+import org.spring.azure.hub.registrar.SerializerRegistrar;
+import org.spring.azure.hub.registrar.validator.MethodValidator;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.ClassMetadata;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.objenesis.ObjenesisStd;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The registrar post-processors handling a bean graph of {@code beanCount} beans, as at context startup. Bean types are
+ * concrete Spring Framework classes, so the graph has hundreds of distinct classes with many methods; a single bean
+ * declares listeners. With {@code coldCache}, Spring's declared-methods cache is cleared before every scan, as on a
+ * fresh start.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2) @Measurement(iterations = 5, time = 2) @Fork(1)
+public class RegistrarScanBenchmark {
+
+    private static final String[] BEAN_TYPES = {
+            "classpath*:org/springframework/util/**/*.class",
+            "classpath*:org/springframework/core/**/*.class",
+            "classpath*:org/springframework/beans/**/*.class",
+            "classpath*:org/springframework/context/**/*.class"
+    };
+
+    @Param({"500", "5000"})
+    public int beanCount;
+
+    @Param({"false", "true"})
+    public boolean coldCache;
+
+    private List<Object> beans;
+
+    @Setup
+    public void setup() throws Exception {
+        List<Object> prototypes = prototypes();
+        beans = new ArrayList<>(beanCount);
+        for (int i = 0; i < beanCount; i++)
+            beans.add(i == beanCount / 2 ? new Listeners() : prototypes.get(i % prototypes.size()));
+    }
+
+    @Benchmark
+    public ServiceBusSharedResources scan() {
+        if (coldCache)
+            ReflectionUtils.clearCache();
+        ServiceBusSharedResources sharedResources = new ServiceBusSharedResources();
+        MethodValidator methodValidator = new MethodValidator();
+        BeanPostProcessor[] registrars = {
+                new SerializerRegistrar(sharedResources),
+                new AnnotationRegistrar(new AnnotatedMethodScanner(),
+                        new ErrorHandlerRegistrar(sharedResources, methodValidator),
+                        new GlobalDeadLetterHandlerRegistrar(sharedResources, methodValidator),
+                        new ListenerRegistrar(sharedResources, methodValidator))
+        };
+        for (int i = 0; i < beans.size(); i++) {
+            Object bean = beans.get(i);
+            String beanName = "bean" + i;
+            for (BeanPostProcessor registrar : registrars)
+                registrar.postProcessAfterInitialization(bean, beanName);
+        }
+        return sharedResources;
+    }
+
+    /**
+     * One instance of each usable bean type, created without running constructors.
+     */
+    protected List<Object> prototypes() throws Exception {
+        MetadataReaderFactory readerFactory = new CachingMetadataReaderFactory();
+        ObjenesisStd objenesis = new ObjenesisStd(true);
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        List<Object> prototypes = new ArrayList<>();
+        List<Resource> resources = new ArrayList<>();
+        for (String pattern : BEAN_TYPES)
+            resources.addAll(Arrays.asList(resolver.getResources(pattern)));
+        for (Resource resource : resources) {
+            ClassMetadata metadata = readerFactory.getMetadataReader(resource).getClassMetadata();
+            if (!metadata.isConcrete() || !metadata.isIndependent() || metadata.getClassName().contains("$"))
+                continue;
+            try {
+                Class<?> type = Class.forName(metadata.getClassName(), false, getClass().getClassLoader());
+                ReflectionUtils.getAllDeclaredMethods(type);
+                prototypes.add(objenesis.newInstance(type));
+            } catch (Throwable ignored) {
+                // types depending on optional libraries that are not on the classpath
+            }
+        }
+        ReflectionUtils.clearCache();
+        return prototypes;
+    }
+
+    public static class Listeners {
+
+        @QueueListener("orders")
+        public void orders(Fakes.Order order, ServiceBusReceivedMessageContext context) {
+        }
+
+        @TopicListener(topic = "events", subscription = "audit")
+        public void events(Fakes.Order order) {
+        }
+
+        @ErrorHandler(queue = "orders")
+        public void ordersError(ServiceBusErrorContext context) {
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package org.spring.azure.hub.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Writes {@value #INDEX_LOCATION}, listing every method carrying a Service Bus Hub annotation with its declaring
+ * class, parameter types and entity key. At runtime, classes loaded from the same jar or directory as the index are
+ * registered from it instead of being scanned reflectively.
+ * <p>
+ * Listener and error handler signatures are checked like {@code MethodValidator} does at startup, and two listeners
+ * or two error handlers for the same entity are reported as compile errors.
+ */
+@SupportedAnnotationTypes({
+        ListenerIndexProcessor.QUEUE_LISTENER,
+        ListenerIndexProcessor.TOPIC_LISTENER,
+        ListenerIndexProcessor.ERROR_HANDLER,
+        ListenerIndexProcessor.GLOBAL_ERROR_HANDLER,
+        ListenerIndexProcessor.GLOBAL_DEAD_LETTER_HANDLER
+})
+public class ListenerIndexProcessor extends AbstractProcessor {
+
+    public static final String INDEX_LOCATION = "META-INF/servicebus-hub/listeners.index";
+    static final String QUEUE_LISTENER = "org.spring.azure.hub.annotation.QueueListener";
+    static final String TOPIC_LISTENER = "org.spring.azure.hub.annotation.TopicListener";
+    static final String ERROR_HANDLER = "org.spring.azure.hub.annotation.ErrorHandler";
+    static final String GLOBAL_ERROR_HANDLER = "org.spring.azure.hub.annotation.GlobalErrorHandler";
+    static final String GLOBAL_DEAD_LETTER_HANDLER = "org.spring.azure.hub.annotation.GlobalDeadLetterHandler";
+    private static final String MESSAGE_CONTEXT = "com.azure.messaging.servicebus.ServiceBusReceivedMessageContext";
+    private static final String ERROR_CONTEXT = "com.azure.messaging.servicebus.ServiceBusErrorContext";
+    private static final String DEAD_LETTER = "/$DeadLetterQueue";
+
+    private final List<String> entries = new ArrayList<>();
+    private final Map<String, ExecutableElement> listeners = new HashMap<>();
+    private final Map<String, ExecutableElement> errorHandlers = new HashMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations)
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation))
+                if (element.getKind() == ElementKind.METHOD)
+                    index((ExecutableElement) element, annotation.getQualifiedName().toString());
+        if (roundEnv.processingOver())
+            writeIndex();
+        return false;
+    }
+
+    protected void index(ExecutableElement method, String annotationType) {
+        String key;
+        switch (annotationType) {
+            case QUEUE_LISTENER:
+                key = listenerKey(method, "queue:" + value(method, annotationType, "value"), annotationType);
+                validateListener(method, annotationType);
+                checkDuplicate(listeners, key, method, "@QueueListener");
+                break;
+            case TOPIC_LISTENER:
+                key = listenerKey(method, "topic:" + value(method, annotationType, "topic") + "/" + value(method, annotationType, "subscription"), annotationType);
+                validateListener(method, annotationType);
+                if (annotation(method, QUEUE_LISTENER) == null)
+                    checkDuplicate(listeners, key, method, "@TopicListener");
+                break;
+            case ERROR_HANDLER:
+                key = errorHandlerKey(method);
+                validateErrorHandler(method);
+                if (key != null && annotation(method, GLOBAL_ERROR_HANDLER) == null)
+                    checkDuplicate(errorHandlers, key, method, "@ErrorHandler");
+                break;
+            case GLOBAL_ERROR_HANDLER:
+                key = "";
+                validateErrorHandler(method);
+                break;
+            default:
+                key = "";
+                validateListener(method, annotationType);
+        }
+        entries.add(String.join("\t", simpleName(annotationType), binaryName((TypeElement) method.getEnclosingElement()),
+                method.getSimpleName(), parameterTypes(method), key != null ? key : ""));
+    }
+
+    protected String listenerKey(ExecutableElement method, String entity, String annotationType) {
+        return Boolean.TRUE.equals(value(method, annotationType, "isDeadLetterQueue")) ? entity + DEAD_LETTER : entity;
+    }
+
+    protected String errorHandlerKey(ExecutableElement method) {
+        String queue = (String) value(method, ERROR_HANDLER, "queue");
+        String topic = (String) value(method, ERROR_HANDLER, "topic");
+        String subscription = (String) value(method, ERROR_HANDLER, "subscription");
+        if (!queue.isEmpty())
+            return "queue:" + queue;
+        if (!topic.isEmpty() && !subscription.isEmpty())
+            return "topic:" + topic + "/" + subscription;
+        error(method, "ErrorHandler annotation must specify either a queueName or both topic and subscription.");
+        return null;
+    }
+
+    protected void validateListener(ExecutableElement method, String annotationType) {
+        List<? extends VariableElement> parameters = method.getParameters();
+        if (Boolean.TRUE.equals(value(method, annotationType, "batch"))) {
+            TypeMirror list = erasure("java.util.List");
+            TypeMirror parameter = parameters.size() == 1 ? parameters.get(0).asType() : null;
+            if (parameter == null || list == null || !processingEnv.getTypeUtils().isAssignable(list, processingEnv.getTypeUtils().erasure(parameter)))
+                error(method, String.format("Batch listener method '%s' in class '%s' must have exactly one parameter of type List<T> or List<ServiceBusReceivedMessageContext>.",
+                        method.getSimpleName(), method.getEnclosingElement().getSimpleName()));
+            else if (parameter.getKind() == TypeKind.DECLARED && ((DeclaredType) parameter).getTypeArguments().isEmpty())
+                error(method, String.format("Batch listener method '%s' in class '%s' must declare the element type of its List parameter.",
+                        method.getSimpleName(), method.getEnclosingElement().getSimpleName()));
+            return;
+        }
+        if (parameters.size() < 1 || parameters.size() > 2) {
+            error(method, String.format("Listener method '%s' must have 1 or 2 parameters.", method.getSimpleName()));
+            return;
+        }
+        TypeMirror context = erasure(MESSAGE_CONTEXT);
+        if (parameters.size() == 2 && context != null && parameters.stream()
+                .noneMatch(parameter -> processingEnv.getTypeUtils().isAssignable(context, parameter.asType())))
+            error(method, String.format("Listener method '%s' in class '%s' has an invalid signature. If two parameters are specified, one of them must be of type ServiceBusReceivedMessageContext.",
+                    method.getSimpleName(), method.getEnclosingElement().getSimpleName()));
+    }
+
+    protected void validateErrorHandler(ExecutableElement method) {
+        TypeMirror context = erasure(ERROR_CONTEXT);
+        List<? extends VariableElement> parameters = method.getParameters();
+        if (parameters.size() != 1 || context != null && !processingEnv.getTypeUtils().isAssignable(parameters.get(0).asType(), context))
+            error(method, String.format("Error handler method '%s' must have exactly one parameter of type ServiceBusErrorContext.", method.getSimpleName()));
+    }
+
+    protected void checkDuplicate(Map<String, ExecutableElement> registered, String key, ExecutableElement method, String annotation) {
+        ExecutableElement existing = registered.putIfAbsent(key, method);
+        if (existing != null && !existing.equals(method))
+            error(method, String.format("Multiple %s methods found. Duplicate detected for '%s': %s#%s and %s#%s", annotation,
+                    key.substring(key.indexOf(':') + 1), existing.getEnclosingElement(), existing.getSimpleName(),
+                    method.getEnclosingElement(), method.getSimpleName()));
+    }
+
+    protected void writeIndex() {
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+            try (Writer writer = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write("# annotation\tdeclaring class\tmethod\tparameter types\tentity\n");
+                for (String entry : entries)
+                    writer.write(entry + "\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write " + INDEX_LOCATION + ": " + e.getMessage());
+        }
+    }
+
+    private String parameterTypes(ExecutableElement method) {
+        return method.getParameters().stream()
+                .map(parameter -> typeName(processingEnv.getTypeUtils().erasure(parameter.asType())))
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * Names as accepted by {@code ClassUtils.forName}: binary names for nested classes, {@code []} for arrays.
+     */
+    private String typeName(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY)
+            return typeName(((ArrayType) type).getComponentType()) + "[]";
+        if (type.getKind() == TypeKind.DECLARED)
+            return binaryName((TypeElement) ((DeclaredType) type).asElement());
+        return type.toString();
+    }
+
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private TypeMirror erasure(String typeName) {
+        TypeElement type = processingEnv.getElementUtils().getTypeElement(typeName);
+        return type != null ? processingEnv.getTypeUtils().erasure(type.asType()) : null;
+    }
+
+    private AnnotationMirror annotation(ExecutableElement method, String annotationType) {
+        for (AnnotationMirror annotation : method.getAnnotationMirrors())
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationType))
+                return annotation;
+        return null;
+    }
+
+    private Object value(ExecutableElement method, String annotationType, String attribute) {
+        AnnotationMirror annotation = annotation(method, annotationType);
+        Elements elements = processingEnv.getElementUtils();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : elements.getElementValuesWithDefaults(annotation).entrySet())
+            if (value.getKey().getSimpleName().contentEquals(attribute))
+                return value.getValue().getValue();
+        return null;
+    }
+
+    private static String simpleName(String annotationType) {
+        return annotationType.substring(annotationType.lastIndexOf('.') + 1);
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -4,10 +4,16 @@ import org.spring.azure.hub.initializer.ServiceBusClientInitializer;
 import org.spring.azure.hub.initializer.configurer.QueueConfigurer;
 import org.spring.azure.hub.initializer.configurer.TopicConfigurer;
 import org.spring.azure.hub.initializer.validator.ListenerValidator;
+import org.spring.azure.hub.metrics.LagTracker;
 import org.spring.azure.hub.model.context.ServiceBusSharedResources;
 import org.spring.azure.hub.model.properties.ServiceBusProperties;
+import org.spring.azure.hub.provider.ServiceBusCodecConfig;
 import org.spring.azure.hub.provider.ServiceBusConnectionProvider;
+import org.spring.azure.hub.provider.ServiceBusEmulatorConfig;
+import org.spring.azure.hub.provider.ServiceBusMetricsConfig;
 import org.spring.azure.hub.provider.ServiceBusObjectMapperConfig;
+import org.spring.azure.hub.registrar.AnnotatedMethodScanner;
+import org.spring.azure.hub.registrar.AnnotationRegistrar;
 import org.spring.azure.hub.registrar.ErrorHandlerRegistrar;
 import org.spring.azure.hub.registrar.GlobalDeadLetterHandlerRegistrar;
 import org.spring.azure.hub.registrar.ListenerRegistrar;
@@ -15,14 +21,30 @@ import org.spring.azure.hub.registrar.SerializerRegistrar;
 import org.spring.azure.hub.registrar.validator.MethodValidator;
 import org.spring.azure.hub.settings.QueueSettings;
 import org.spring.azure.hub.settings.TopicSettings;
+import org.spring.azure.hub.settings.client.ConfigReloader;
 import org.spring.azure.hub.settings.client.MessageBusClient;
+import org.spring.azure.hub.settings.client.ProcessorRegistry;
+import org.spring.azure.hub.settings.processor.InFlightTracker;
 import org.spring.azure.hub.settings.processor.MessageProcessor;
+import org.spring.azure.hub.settings.processor.breaker.CircuitBreakerController;
+import org.spring.azure.hub.settings.processor.dispatch.AdaptiveConcurrencyController;
+import org.spring.azure.hub.settings.processor.dispatch.DispatchExecutors;
+import org.spring.azure.hub.settings.processor.dispatch.MessageDispatcher;
+import org.spring.azure.hub.settings.processor.serialization.codec.PayloadCodecRegistry;
+import org.spring.azure.hub.settings.processor.dedup.DeduplicationStores;
+import org.spring.azure.hub.settings.processor.forward.Forwarders;
+import org.spring.azure.hub.settings.processor.retry.RetryScheduler;
+import org.spring.azure.hub.settings.processor.timeout.ListenerWatchdog;
+import org.spring.azure.hub.settings.processor.session.SessionStateCache;
+import org.spring.azure.hub.settings.sender.MessageBusTemplate;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
 @Configuration
 @Import({
         MethodValidator.class,
+        AnnotatedMethodScanner.class,
+        AnnotationRegistrar.class,
         ErrorHandlerRegistrar.class,
         GlobalDeadLetterHandlerRegistrar.class,
         ListenerRegistrar.class,
@@ -36,11 +58,29 @@ import org.springframework.context.annotation.Import;
         QueueSettings.class,
         TopicSettings.class,
         MessageProcessor.class,
+        InFlightTracker.class,
+        SessionStateCache.class,
+        DeduplicationStores.class,
+        RetryScheduler.class,
+        ListenerWatchdog.class,
+        Forwarders.class,
+        DispatchExecutors.class,
+        MessageDispatcher.class,
+        AdaptiveConcurrencyController.class,
+        CircuitBreakerController.class,
         ServiceBusConnectionProvider.class,
+        ProcessorRegistry.class,
+        ConfigReloader.class,
         MessageBusClient.class,
         QueueSettings.class,
         ServiceBusObjectMapperConfig.class,
-        TopicSettings.class
+        TopicSettings.class,
+        ServiceBusCodecConfig.class,
+        ServiceBusMetricsConfig.class,
+        LagTracker.class,
+        ServiceBusEmulatorConfig.class,
+        PayloadCodecRegistry.class,
+        MessageBusTemplate.class
 })
 public class ServiceBusHubAutoConfiguration {
 }
\ No newline at end of file
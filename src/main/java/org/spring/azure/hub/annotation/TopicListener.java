@@ -13,4 +13,27 @@ public @interface TopicListener {
     String subscription();
     boolean isDeadLetterQueue() default false;
 
+    /**
+     * Deliver messages in batches to a single {@code List<T>} or {@code List<ServiceBusReceivedMessageContext>}
+     * parameter. Batch size and wait time come from {@code maxBatchSize} and {@code maxBatchWaitTime}.
+     */
+    boolean batch() default false;
+
+    /**
+     * Listener timeout in milliseconds, overriding {@code listenerTimeout} for this listener; {@code 0} disables it,
+     * a negative value keeps the configured one.
+     */
+    long timeout() default -1;
+
+    /**
+     * Queue the listener's return value is sent to, one message per element when it returns a collection; the input
+     * message is completed with the send, in one transaction when {@code enableCrossEntityTransactions} is set.
+     */
+    String outputQueue() default "";
+
+    /**
+     * Topic the listener's return value is sent to, as with {@link #outputQueue()}.
+     */
+    String outputTopic() default "";
+
 }
\ No newline at end of file
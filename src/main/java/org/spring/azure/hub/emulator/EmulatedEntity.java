@@ -0,0 +1,259 @@
+package org.spring.azure.hub.emulator;
+
+import lombok.Getter;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A queue, a subscription or the dead-letter sub-queue of either, with peek-lock semantics. Messages are kept per
+ * session (the empty key holds messages without a session id) so session receivers get them in order. A message
+ * whose lock expires or that is abandoned becomes available again, unless its delivery count reached
+ * {@code maxDeliveryCount}, in which case it moves to the dead-letter queue.
+ */
+public class EmulatedEntity {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    @Getter private final String path;
+    @Getter private final EmulatedEntity deadLetterQueue;
+    private final ServiceBusEmulator emulator;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Map<String, Deque<EmulatedMessage>> messages = new LinkedHashMap<>();
+    private final Map<UUID, EmulatedMessage> locked = new HashMap<>();
+    private final PriorityQueue<EmulatedMessage> lockExpiries =
+            new PriorityQueue<>((left, right) -> Long.compare(left.getLockExpiresNanos(), right.getLockExpiresNanos()));
+    private final Set<String> lockedSessions = new HashSet<>();
+    private final AtomicInteger scheduled = new AtomicInteger();
+
+    EmulatedEntity(String path, ServiceBusEmulator emulator, boolean withDeadLetterQueue) {
+        this.path = path;
+        this.emulator = emulator;
+        this.deadLetterQueue = withDeadLetterQueue ? new EmulatedEntity(path + ServiceBusEmulator.DEAD_LETTER, emulator, false) : null;
+    }
+
+    void enqueue(EmulatedMessage message) {
+        message.setSequenceNumber(SEQUENCE.incrementAndGet());
+        message.setEnqueuedTime(OffsetDateTime.now());
+        message.setEnqueuedNanos(System.nanoTime());
+        lock.lock();
+        try {
+            messages.computeIfAbsent(message.sessionKey(), key -> new ArrayDeque<>()).addLast(message);
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Locks and returns the next message of the session, or of the messages without a session when {@code sessionId}
+     * is {@code null}, waiting up to {@code timeoutNanos}.
+     */
+    EmulatedMessage receive(String sessionId, long timeoutNanos, long lockHeldNanos) throws InterruptedException {
+        String key = sessionId != null ? sessionId : "";
+        long deadline = System.nanoTime() + timeoutNanos;
+        lock.lock();
+        try {
+            while (true) {
+                expireLocks();
+                Deque<EmulatedMessage> queue = messages.get(key);
+                EmulatedMessage message = queue != null ? queue.pollFirst() : null;
+                if (message != null) {
+                    lock(message, lockHeldNanos);
+                    return message;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                    return null;
+                available.awaitNanos(Math.min(remaining, nextExpiry(remaining)));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Locks the first session that has available messages and is not locked by another receiver.
+     */
+    String acceptSession(long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        lock.lock();
+        try {
+            while (true) {
+                expireLocks();
+                for (Map.Entry<String, Deque<EmulatedMessage>> session : messages.entrySet()) {
+                    if (!session.getKey().isEmpty() && !session.getValue().isEmpty() && lockedSessions.add(session.getKey()))
+                        return session.getKey();
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                    return null;
+                available.awaitNanos(Math.min(remaining, nextExpiry(remaining)));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void releaseSession(String sessionId) {
+        lock.lock();
+        try {
+            lockedSessions.remove(sessionId);
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean complete(UUID lockToken) {
+        EmulatedMessage message = unlock(lockToken);
+        if (message == null)
+            return false;
+        emulator.getStatistics().completed(message);
+        return true;
+    }
+
+    boolean abandon(UUID lockToken) {
+        lock.lock();
+        try {
+            EmulatedMessage message = unlock(lockToken);
+            if (message == null)
+                return false;
+            emulator.getStatistics().abandoned();
+            redeliver(message);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean deadLetter(UUID lockToken, String reason, String description) {
+        EmulatedMessage message = unlock(lockToken);
+        if (message == null)
+            return false;
+        moveToDeadLetterQueue(message, reason, description);
+        return true;
+    }
+
+    public int getActiveMessageCount() {
+        lock.lock();
+        try {
+            return messages.values().stream().mapToInt(Deque::size).sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLockedMessageCount() {
+        lock.lock();
+        try {
+            return locked.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Messages scheduled for a later enqueue.
+     */
+    public int getScheduledMessageCount() {
+        return scheduled.get();
+    }
+
+    void scheduled(int delta) {
+        scheduled.addAndGet(delta);
+    }
+
+    void expireLocks() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            while (!lockExpiries.isEmpty() && lockExpiries.peek().getLockExpiresNanos() - now <= 0) {
+                EmulatedMessage message = lockExpiries.poll();
+                if (locked.remove(message.getLockToken()) == null)
+                    continue;
+                message.setLockToken(null);
+                emulator.getStatistics().expired();
+                redeliver(message);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void lock(EmulatedMessage message, long lockHeldNanos) {
+        message.setDeliveryCount(message.getDeliveryCount() + 1);
+        message.setLockToken(UUID.randomUUID());
+        message.setLockedUntil(OffsetDateTime.now().plusNanos(emulator.getLockDurationNanos()));
+        message.setLockExpiresNanos(System.nanoTime() + lockHeldNanos);
+        locked.put(message.getLockToken(), message);
+        lockExpiries.add(message);
+        emulator.getStatistics().delivered();
+    }
+
+    private EmulatedMessage unlock(UUID lockToken) {
+        lock.lock();
+        try {
+            EmulatedMessage message = lockToken != null ? locked.remove(lockToken) : null;
+            if (message != null) {
+                lockExpiries.remove(message);
+                message.setLockToken(null);
+            }
+            return message;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void redeliver(EmulatedMessage message) {
+        if (deadLetterQueue != null && message.getDeliveryCount() >= emulator.getMaxDeliveryCount()) {
+            moveToDeadLetterQueue(message, "MaxDeliveryCountExceeded",
+                    String.format("Message could not be consumed after %d delivery attempts.", message.getDeliveryCount()));
+            return;
+        }
+        messages.computeIfAbsent(message.sessionKey(), key -> new ArrayDeque<>()).addFirst(message);
+        available.signalAll();
+    }
+
+    private void moveToDeadLetterQueue(EmulatedMessage message, String reason, String description) {
+        emulator.getStatistics().deadLettered();
+        if (deadLetterQueue == null)
+            return;
+        EmulatedMessage deadLetter = message.copy();
+        deadLetter.setDeadLetterReason(reason);
+        deadLetter.setDeadLetterErrorDescription(description);
+        deadLetter.setDeliveryCount(0);
+        deadLetterQueue.enqueue(deadLetter);
+    }
+
+    private long nextExpiry(long fallback) {
+        EmulatedMessage next = lockExpiries.peek();
+        return next != null ? Math.max(next.getLockExpiresNanos() - System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(1)) : fallback;
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            messages.clear();
+            locked.clear();
+            lockExpiries.clear();
+            lockedSessions.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.spring.azure.hub.emulator;
+
+import com.azure.messaging.servicebus.ServiceBusMessage;
+import com.azure.messaging.servicebus.ServiceBusReceivedMessage;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A message held by the {@link ServiceBusEmulator}. Senders set the body and headers; the broker owns the sequence
+ * number, enqueue time, delivery count and lock.
+ */
+public @Data @Builder(toBuilder = true) class EmulatedMessage {
+
+    private final byte[] body;
+    private final String messageId;
+    private final String contentType;
+    private final String sessionId;
+    @Builder.Default private final Map<String, Object> applicationProperties = new HashMap<>();
+
+    private long sequenceNumber;
+    private OffsetDateTime enqueuedTime;
+    private long enqueuedNanos;
+    private int deliveryCount;
+    private UUID lockToken;
+    private OffsetDateTime lockedUntil;
+    private long lockExpiresNanos;
+    private String deadLetterReason;
+    private String deadLetterErrorDescription;
+
+    /**
+     * A fresh copy of the sent fields, used when a topic fans a message out to its subscriptions.
+     */
+    public EmulatedMessage copy() {
+        return EmulatedMessage.builder()
+                .body(body)
+                .messageId(messageId)
+                .contentType(contentType)
+                .sessionId(sessionId)
+                .applicationProperties(new HashMap<>(applicationProperties))
+                .build();
+    }
+
+    /**
+     * The sent fields of an SDK message, as {@code MessageBusTemplate} hands them to the emulator.
+     */
+    public static EmulatedMessage of(ServiceBusMessage message) {
+        return EmulatedMessage.builder()
+                .body(message.getBody().toBytes())
+                .messageId(message.getMessageId() != null ? message.getMessageId() : UUID.randomUUID().toString())
+                .contentType(message.getContentType())
+                .sessionId(message.getSessionId())
+                .applicationProperties(new HashMap<>(message.getApplicationProperties()))
+                .build();
+    }
+
+    /**
+     * The sent fields of a received message, for a copy sent back to the broker.
+     */
+    public static EmulatedMessage of(ServiceBusReceivedMessage message) {
+        return EmulatedMessage.builder()
+                .body(message.getBody().toBytes())
+                .messageId(message.getMessageId())
+                .contentType(message.getContentType())
+                .sessionId(message.getSessionId())
+                .applicationProperties(new HashMap<>(message.getApplicationProperties()))
+                .build();
+    }
+
+    String sessionKey() {
+        return sessionId != null ? sessionId : "";
+    }
+}
@@ -0,0 +1,212 @@
+package org.spring.azure.hub.emulator;
+
+import com.azure.messaging.servicebus.ServiceBusErrorContext;
+import com.azure.messaging.servicebus.ServiceBusErrorSource;
+import com.azure.messaging.servicebus.ServiceBusException;
+import com.azure.messaging.servicebus.ServiceBusReceivedMessage;
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import com.azure.messaging.servicebus.ServiceBusReceiverAsyncClient;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.settings.client.ProcessorClient;
+import org.spring.azure.hub.utilities.ServiceBusObjectUtil;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Processor over an {@link EmulatedEntity}: {@code maxConcurrentCalls} threads receive messages and hand them to the
+ * same callbacks the SDK processor would call. Like the SDK, it completes messages after the callback returns and
+ * abandons them when it throws, unless auto-complete is disabled; in receive-and-delete mode messages are settled
+ * on receipt. Session processors lock one session per thread until it has no more messages.
+ */
+@Slf4j
+public class EmulatedProcessorClient implements ProcessorClient {
+
+    private static final long RECEIVE_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final ServiceBusEmulator emulator;
+    private final EmulatedEntity entity;
+    private final boolean sessionEnabled;
+    private final int maxConcurrentCalls;
+    private final long lockHeldNanos;
+    private final long sessionIdleTimeoutNanos;
+    private final boolean autoComplete;
+    private final boolean receiveAndDelete;
+    private final Consumer<ServiceBusReceivedMessageContext> processMessage;
+    private final Consumer<ServiceBusErrorContext> processError;
+    private final ServiceBusReceiverAsyncClient receiver;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+    /** Moves on with every start, so that workers of an earlier start exit even when the processor was restarted. */
+    private volatile int generation;
+
+    /**
+     * @param maxConcurrentCalls       receiving threads; for session processors, the number of concurrent sessions
+     * @param lockRenewalNanos         how long past the lock duration the lock is held while the callback runs, standing
+     *                                 in for {@code maxAutoLockRenewDuration}
+     * @param sessionIdleTimeoutNanos  how long a session is kept without receiving a message, 100 ms when not positive
+     */
+    @Builder
+    public EmulatedProcessorClient(ServiceBusEmulator emulator,
+                                   EmulatedEntity entity,
+                                   boolean sessionEnabled,
+                                   int maxConcurrentCalls,
+                                   long lockRenewalNanos,
+                                   long sessionIdleTimeoutNanos,
+                                   boolean autoComplete,
+                                   boolean receiveAndDelete,
+                                   Consumer<ServiceBusReceivedMessageContext> processMessage,
+                                   Consumer<ServiceBusErrorContext> processError) {
+        this.emulator = emulator;
+        this.entity = entity;
+        this.sessionEnabled = sessionEnabled;
+        this.maxConcurrentCalls = Math.max(maxConcurrentCalls, 1);
+        this.lockHeldNanos = emulator.getLockDurationNanos() + Math.max(lockRenewalNanos, 0);
+        this.sessionIdleTimeoutNanos = sessionIdleTimeoutNanos > 0 ? sessionIdleTimeoutNanos : RECEIVE_TIMEOUT_NANOS;
+        this.autoComplete = autoComplete;
+        this.receiveAndDelete = receiveAndDelete;
+        this.processMessage = processMessage;
+        this.processError = processError;
+        this.receiver = ServiceBusObjectUtil.detachedReceiver(ServiceBusEmulator.NAMESPACE, entity.getPath());
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running)
+            return;
+        running = true;
+        int current = ++generation;
+        workers.clear();
+        for (int i = 0; i < maxConcurrentCalls; i++) {
+            Thread worker = new Thread(sessionEnabled ? () -> receiveSessions(current) : () -> receiveMessages(null, current),
+                    String.format("servicebus-emulator-%s-%d", entity.getPath(), i));
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Stops receiving; callbacks already running finish on their threads.
+     */
+    @Override
+    public synchronized void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public synchronized void close() {
+        stop();
+        for (Thread worker : workers) {
+            try {
+                worker.join(TimeUnit.NANOSECONDS.toMillis(RECEIVE_TIMEOUT_NANOS) * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    protected void receiveSessions(int current) {
+        while (isActive(current)) {
+            String sessionId;
+            try {
+                sessionId = entity.acceptSession(RECEIVE_TIMEOUT_NANOS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (sessionId == null)
+                continue;
+            try {
+                receiveMessages(sessionId, current);
+            } finally {
+                entity.releaseSession(sessionId);
+            }
+        }
+    }
+
+    /**
+     * Receives until stopped, or for a session until it has no message within the session idle timeout.
+     */
+    protected void receiveMessages(String sessionId, int current) {
+        while (isActive(current)) {
+            EmulatedMessage message;
+            try {
+                message = entity.receive(sessionId, sessionId != null ? sessionIdleTimeoutNanos : RECEIVE_TIMEOUT_NANOS, lockHeldNanos);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (message == null) {
+                if (sessionId != null)
+                    return;
+                continue;
+            }
+            deliver(message);
+        }
+    }
+
+    protected void deliver(EmulatedMessage message) {
+        UUID lockToken = message.getLockToken();
+        ServiceBusReceivedMessageContext context = ServiceBusObjectUtil.receivedMessageContext(receiver, toReceivedMessage(message));
+        if (receiveAndDelete)
+            entity.complete(lockToken);
+        try {
+            processMessage.accept(context);
+        } catch (Throwable e) {
+            reportError(new ServiceBusException(e, ServiceBusErrorSource.USER_CALLBACK));
+            if (autoComplete && !receiveAndDelete)
+                entity.abandon(lockToken);
+            return;
+        }
+        if (autoComplete && !receiveAndDelete)
+            entity.complete(lockToken);
+    }
+
+    protected ServiceBusReceivedMessage toReceivedMessage(EmulatedMessage source) {
+        ServiceBusReceivedMessage message = ServiceBusObjectUtil.receivedMessage(source.getBody());
+        set(message, "setMessageId", String.class, source.getMessageId());
+        set(message, "setContentType", String.class, source.getContentType());
+        set(message, "setSessionId", String.class, source.getSessionId());
+        set(message, "setSequenceNumber", long.class, source.getSequenceNumber());
+        set(message, "setEnqueuedTime", OffsetDateTime.class, source.getEnqueuedTime());
+        set(message, "setDeliveryCount", long.class, (long) source.getDeliveryCount());
+        set(message, "setLockToken", UUID.class, source.getLockToken());
+        set(message, "setLockedUntil", OffsetDateTime.class, source.getLockedUntil());
+        set(message, "setDeadLetterReason", String.class, source.getDeadLetterReason());
+        set(message, "setDeadLetterErrorDescription", String.class, source.getDeadLetterErrorDescription());
+        message.getApplicationProperties().putAll(source.getApplicationProperties());
+        return message;
+    }
+
+    private boolean isActive(int current) {
+        return running && generation == current;
+    }
+
+    protected void reportError(Throwable error) {
+        try {
+            processError.accept(ServiceBusObjectUtil.errorContext(error, ServiceBusEmulator.NAMESPACE, entity.getPath()));
+        } catch (Throwable e) {
+            log.error("Error handler for emulated entity '{}' failed", entity.getPath(), e);
+        }
+    }
+
+    private static void set(ServiceBusReceivedMessage message, String setter, Class<?> type, Object value) {
+        if (value != null)
+            ServiceBusObjectUtil.setMessageProperty(message, setter, type, value);
+    }
+
+    @Override
+    public String toString() {
+        return "emulator:" + entity.getPath();
+    }
+}
@@ -0,0 +1,36 @@
+package org.spring.azure.hub.emulator;
+
+import com.azure.messaging.servicebus.ServiceBusMessage;
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import lombok.RequiredArgsConstructor;
+import org.spring.azure.hub.model.dto.ListenerBinding;
+import org.spring.azure.hub.model.dto.OutputEntity;
+import org.spring.azure.hub.settings.processor.forward.Forwarder;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Completes the emulated input message and only then enqueues the results, so that a lost lock sends nothing, as a
+ * rolled back transaction would.
+ */
+@RequiredArgsConstructor
+public class EmulatorForwarder implements Forwarder {
+
+    private final ServiceBusEmulator emulator;
+    private final OutputEntity output;
+    private final Function<Object, ServiceBusMessage> serializer;
+
+    @Override
+    public int forward(ListenerBinding binding, ServiceBusReceivedMessageContext message, Object result) {
+        List<ServiceBusMessage> outputs = Forwarder.toMessages(result, serializer);
+        binding.getSettler().complete(message);
+        for (ServiceBusMessage forwarded : outputs) {
+            if (output.isTopic())
+                emulator.sendToTopic(output.getName(), EmulatedMessage.of(forwarded));
+            else
+                emulator.sendToQueue(output.getName(), EmulatedMessage.of(forwarded));
+        }
+        return outputs.size();
+    }
+}
@@ -0,0 +1,29 @@
+package org.spring.azure.hub.emulator;
+
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import lombok.RequiredArgsConstructor;
+import org.spring.azure.hub.model.dto.ListenerBinding;
+import org.spring.azure.hub.settings.processor.retry.Redeliverer;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redelivers emulated messages by scheduling a copy directly on their entity, subscriptions included, and completing
+ * the original.
+ */
+@RequiredArgsConstructor
+public class EmulatorRedeliverer implements Redeliverer {
+
+    private final ServiceBusEmulator emulator;
+
+    @Override
+    public void redeliver(ListenerBinding binding, ServiceBusReceivedMessageContext message, int retry, long delayMillis) {
+        EmulatedMessage copy = EmulatedMessage.of(message.getMessage()).toBuilder()
+                .messageId(UUID.randomUUID().toString())
+                .build();
+        Redeliverer.markCopy(copy.getApplicationProperties(), message.getMessage(), retry);
+        emulator.schedule(message.getEntityPath(), copy, delayMillis, TimeUnit.MILLISECONDS);
+        binding.getSettler().complete(message);
+    }
+}
@@ -0,0 +1,46 @@
+package org.spring.azure.hub.emulator;
+
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import com.azure.messaging.servicebus.models.DeadLetterOptions;
+import lombok.RequiredArgsConstructor;
+import org.spring.azure.hub.settings.processor.MessageSettler;
+
+import java.util.UUID;
+
+/**
+ * Settles messages received from an {@link EmulatedProcessorClient} against the emulated entity. Fails like the SDK
+ * does when the lock was lost.
+ */
+@RequiredArgsConstructor
+public class EmulatorSettler implements MessageSettler {
+
+    private final ServiceBusEmulator emulator;
+
+    @Override
+    public void complete(ServiceBusReceivedMessageContext message) {
+        check(emulator.complete(message.getEntityPath(), lockToken(message)), message, "complete");
+    }
+
+    @Override
+    public void abandon(ServiceBusReceivedMessageContext message) {
+        check(emulator.abandon(message.getEntityPath(), lockToken(message)), message, "abandon");
+    }
+
+    @Override
+    public void deadLetter(ServiceBusReceivedMessageContext message, DeadLetterOptions options) {
+        check(emulator.deadLetter(message.getEntityPath(), lockToken(message),
+                options != null ? options.getDeadLetterReason() : null,
+                options != null ? options.getDeadLetterErrorDescription() : null), message, "dead-letter");
+    }
+
+    private static UUID lockToken(ServiceBusReceivedMessageContext message) {
+        String lockToken = message.getMessage().getLockToken();
+        return lockToken != null ? UUID.fromString(lockToken) : null;
+    }
+
+    private static void check(boolean settled, ServiceBusReceivedMessageContext message, String operation) {
+        if (!settled)
+            throw new IllegalStateException(String.format("Unable to %s message '%s' on '%s': the lock was lost or the message was already settled",
+                    operation, message.getMessage().getMessageId(), message.getEntityPath()));
+    }
+}
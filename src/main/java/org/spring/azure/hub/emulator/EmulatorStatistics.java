@@ -0,0 +1,82 @@
+package org.spring.azure.hub.emulator;
+
+import lombok.Getter;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters across all emulated entities, and the enqueue-to-completion latency of completed messages in microseconds.
+ */
+public class EmulatorStatistics {
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    @Getter private final Histogram latencyMicros = new ConcurrentHistogram(TimeUnit.HOURS.toMicros(1), 3);
+
+    void sent() {
+        sent.increment();
+    }
+
+    void delivered() {
+        delivered.increment();
+    }
+
+    void completed(EmulatedMessage message) {
+        completed.increment();
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - message.getEnqueuedNanos());
+        latencyMicros.recordValue(Math.min(Math.max(micros, 0), latencyMicros.getHighestTrackableValue()));
+    }
+
+    void abandoned() {
+        abandoned.increment();
+    }
+
+    void expired() {
+        expired.increment();
+    }
+
+    void deadLettered() {
+        deadLettered.increment();
+    }
+
+    public long getSent() {
+        return sent.sum();
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public long getAbandoned() {
+        return abandoned.sum();
+    }
+
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    public long getDeadLettered() {
+        return deadLettered.sum();
+    }
+
+    public void reset() {
+        sent.reset();
+        delivered.reset();
+        completed.reset();
+        abandoned.reset();
+        expired.reset();
+        deadLettered.reset();
+        latencyMicros.reset();
+    }
+}
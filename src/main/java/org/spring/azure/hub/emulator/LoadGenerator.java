@@ -0,0 +1,114 @@
+package org.spring.azure.hub.emulator;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends a {@link LoadProfile} through the {@link ServiceBusEmulator} at a fixed rate, waits for the registered
+ * listeners to drain it and reports throughput and latency. Statistics are reset at the start of each run, so runs
+ * should not overlap.
+ */
+@Slf4j @RequiredArgsConstructor
+public class LoadGenerator {
+
+    private static final long POLL_MILLIS = 50;
+
+    private final ServiceBusEmulator emulator;
+
+    public LoadReport run(LoadProfile profile) throws InterruptedException {
+        if (profile.getMessagesPerSecond() <= 0 || profile.getPayloads().isEmpty())
+            throw new IllegalArgumentException(String.format(
+                    "Load profile for '%s' needs a positive rate and at least one payload", profile.getEntityName()));
+        EmulatorStatistics statistics = emulator.getStatistics();
+        statistics.reset();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / profile.getMessagesPerSecond();
+        long start = System.nanoTime();
+        long end = start + profile.getDuration().toNanos();
+        long next = start;
+        log.info("Load run on '{}': {} msg/s for {} ms", profile.getEntityName(), profile.getMessagesPerSecond(), profile.getDuration().toMillis());
+        while (next - end < 0) {
+            long wait = next - System.nanoTime();
+            if (wait > 0)
+                LockSupport.parkNanos(wait);
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            send(profile, pick(profile.getPayloads()));
+            next += intervalNanos;
+        }
+        awaitDrain(profile);
+        return report(profile, statistics, System.nanoTime() - start);
+    }
+
+    protected void send(LoadProfile profile, LoadProfile.Payload payload) {
+        EmulatedMessage message = EmulatedMessage.builder()
+                .body(payload.getBody().get())
+                .contentType(payload.getContentType())
+                .messageId(UUID.randomUUID().toString())
+                .build();
+        if (profile.isTopic())
+            emulator.sendToTopic(profile.getEntityName(), message);
+        else
+            emulator.sendToQueue(profile.getEntityName(), message);
+    }
+
+    /**
+     * Waits until the entity, or every subscription of the topic, has no available, locked or scheduled message left.
+     */
+    protected void awaitDrain(LoadProfile profile) throws InterruptedException {
+        long deadline = System.nanoTime() + profile.getDrainTimeout().toNanos();
+        while (System.nanoTime() - deadline < 0 && pending(profile) > 0)
+            Thread.sleep(POLL_MILLIS);
+    }
+
+    protected long pending(LoadProfile profile) {
+        String name = profile.getEntityName();
+        return emulator.getEntities().values().stream()
+                .filter(entity -> profile.isTopic() ? entity.getPath().startsWith(name + "/") : entity.getPath().equals(name))
+                .mapToLong(entity -> entity.getActiveMessageCount() + entity.getLockedMessageCount() + entity.getScheduledMessageCount())
+                .sum();
+    }
+
+    protected LoadReport report(LoadProfile profile, EmulatorStatistics statistics, long elapsedNanos) {
+        Histogram latency = statistics.getLatencyMicros().copy();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        LoadReport report = LoadReport.builder()
+                .entityName(profile.getEntityName())
+                .sent(statistics.getSent())
+                .completed(statistics.getCompleted())
+                .abandoned(statistics.getAbandoned())
+                .deadLettered(statistics.getDeadLettered())
+                .expired(statistics.getExpired())
+                .remaining(pending(profile))
+                .elapsedMillis(elapsedMillis)
+                .throughputPerSecond(elapsedMillis > 0 ? statistics.getCompleted() * 1000.0 / elapsedMillis : 0)
+                .p50Micros(latency.getValueAtPercentile(50))
+                .p90Micros(latency.getValueAtPercentile(90))
+                .p99Micros(latency.getValueAtPercentile(99))
+                .maxMicros(latency.getMaxValue())
+                .build();
+        log.info("Load run finished: {}", report);
+        return report;
+    }
+
+    private static LoadProfile.Payload pick(List<LoadProfile.Payload> payloads) {
+        if (payloads.size() == 1)
+            return payloads.get(0);
+        int total = 0;
+        for (LoadProfile.Payload payload : payloads)
+            total += Math.max(payload.getWeight(), 0);
+        int value = ThreadLocalRandom.current().nextInt(Math.max(total, 1));
+        for (LoadProfile.Payload payload : payloads) {
+            value -= Math.max(payload.getWeight(), 0);
+            if (value < 0)
+                return payload;
+        }
+        return payloads.get(payloads.size() - 1);
+    }
+}
@@ -0,0 +1,30 @@
+package org.spring.azure.hub.emulator;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.Singular;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * What {@link LoadGenerator} sends: a constant rate of messages to one queue or topic for a duration, with payloads
+ * picked from a weighted mix.
+ */
+public @Data @Builder class LoadProfile {
+
+    private final String entityName;
+    private final boolean topic;
+    @Builder.Default private final int messagesPerSecond = 100;
+    @Builder.Default private final Duration duration = Duration.ofSeconds(10);
+    /** How long to wait after the last send for the entity to be drained before reporting. */
+    @Builder.Default private final Duration drainTimeout = Duration.ofSeconds(30);
+    @Singular private final List<Payload> payloads;
+
+    public static @Data @Builder class Payload {
+        @Builder.Default private final int weight = 1;
+        private final String contentType;
+        private final Supplier<byte[]> body;
+    }
+}
@@ -0,0 +1,32 @@
+package org.spring.azure.hub.emulator;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Outcome of a {@link LoadGenerator} run. Latencies are enqueue-to-completion in microseconds.
+ */
+public @Data @Builder class LoadReport {
+
+    private final String entityName;
+    private final long sent;
+    private final long completed;
+    private final long abandoned;
+    private final long deadLettered;
+    private final long expired;
+    private final long remaining;
+    private final long elapsedMillis;
+    private final double throughputPerSecond;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+
+    @Override
+    public String toString() {
+        return String.format("'%s': sent %d, completed %d, abandoned %d, dead-lettered %d, expired %d, remaining %d in %d ms "
+                        + "(%.1f msg/s); latency p50 %d us, p90 %d us, p99 %d us, max %d us",
+                entityName, sent, completed, abandoned, deadLettered, expired, remaining, elapsedMillis,
+                throughputPerSecond, p50Micros, p90Micros, p99Micros, maxMicros);
+    }
+}
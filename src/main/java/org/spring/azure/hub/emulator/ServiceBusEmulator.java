@@ -0,0 +1,147 @@
+package org.spring.azure.hub.emulator;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.model.Constants;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process stand-in for a Service Bus namespace. Queues and topic subscriptions are created when a processor
+ * attaches or a message is sent to them; topics fan messages out to the subscriptions that exist when the message
+ * is sent. Entity paths follow the processor names: {@code queue}, {@code topic/subscription}, with
+ * {@code /$DeadLetterQueue} appended for dead-letter queues.
+ */
+@Slf4j
+public class ServiceBusEmulator implements AutoCloseable {
+
+    public static final String NAMESPACE = "emulator.servicebus.local";
+    static final String DEAD_LETTER = Constants.DEAD_LETTER;
+
+    @Getter private final long lockDurationNanos;
+    @Getter private final int maxDeliveryCount;
+    @Getter private final EmulatorStatistics statistics = new EmulatorStatistics();
+    private final Map<String, EmulatedEntity> entities = new ConcurrentHashMap<>();
+    private final Map<String, Set<EmulatedEntity>> subscriptions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    public ServiceBusEmulator(long lockDuration, TimeUnit unit, int maxDeliveryCount) {
+        if (lockDuration <= 0 || maxDeliveryCount < 1)
+            throw new IllegalArgumentException(String.format(
+                    "Emulator lock duration and max delivery count must be positive, were %d %s and %d", lockDuration, unit, maxDeliveryCount));
+        this.lockDurationNanos = unit.toNanos(lockDuration);
+        this.maxDeliveryCount = maxDeliveryCount;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "servicebus-emulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::expireLocks, 100, 100, TimeUnit.MILLISECONDS);
+        log.info("Service Bus emulator started: lock duration {} ms, max delivery count {}",
+                TimeUnit.NANOSECONDS.toMillis(lockDurationNanos), maxDeliveryCount);
+    }
+
+    public EmulatedEntity queue(String name) {
+        return entities.computeIfAbsent(name, path -> new EmulatedEntity(path, this, true));
+    }
+
+    public EmulatedEntity subscription(String topic, String subscription) {
+        return entities.computeIfAbsent(topic + "/" + subscription, path -> {
+            EmulatedEntity entity = new EmulatedEntity(path, this, true);
+            subscriptions.computeIfAbsent(topic, key -> new CopyOnWriteArraySet<>()).add(entity);
+            return entity;
+        });
+    }
+
+    /**
+     * Resolves a processor entity path, including dead-letter queues, creating the entity if needed.
+     */
+    public EmulatedEntity entity(String topic, String queueOrSubscription, boolean deadLetter) {
+        EmulatedEntity entity = topic != null ? subscription(topic, queueOrSubscription) : queue(queueOrSubscription);
+        return deadLetter ? entity.getDeadLetterQueue() : entity;
+    }
+
+    public void sendToQueue(String queue, EmulatedMessage message) {
+        statistics.sent();
+        queue(queue).enqueue(message);
+    }
+
+    /**
+     * Delivers a copy to each subscription of the topic. Like Service Bus, a topic without subscriptions drops the message.
+     */
+    public void sendToTopic(String topic, EmulatedMessage message) {
+        statistics.sent();
+        Set<EmulatedEntity> targets = subscriptions.get(topic);
+        if (targets == null || targets.isEmpty()) {
+            log.debug("Dropping message sent to topic '{}' without subscriptions", topic);
+            return;
+        }
+        for (EmulatedEntity subscription : targets)
+            subscription.enqueue(message.copy());
+    }
+
+    /**
+     * Enqueues the message on the entity, including subscriptions and dead-letter queues, once the delay has passed.
+     */
+    public void schedule(String entityPath, EmulatedMessage message, long delay, TimeUnit unit) {
+        EmulatedEntity entity = find(entityPath);
+        entity.scheduled(1);
+        scheduler.schedule(() -> {
+            entity.scheduled(-1);
+            entity.enqueue(message);
+        }, delay, unit);
+    }
+
+    public boolean complete(String entityPath, UUID lockToken) {
+        return find(entityPath).complete(lockToken);
+    }
+
+    public boolean abandon(String entityPath, UUID lockToken) {
+        return find(entityPath).abandon(lockToken);
+    }
+
+    public boolean deadLetter(String entityPath, UUID lockToken, String reason, String description) {
+        return find(entityPath).deadLetter(lockToken, reason, description);
+    }
+
+    public Map<String, EmulatedEntity> getEntities() {
+        return entities;
+    }
+
+    /**
+     * Drops every message and lock, keeping the entities and statistics.
+     */
+    public void purge() {
+        entities.values().forEach(entity -> {
+            entity.clear();
+            entity.getDeadLetterQueue().clear();
+        });
+    }
+
+    protected EmulatedEntity find(String entityPath) {
+        boolean deadLetter = entityPath.endsWith(DEAD_LETTER);
+        EmulatedEntity entity = entities.get(deadLetter ? entityPath.substring(0, entityPath.length() - DEAD_LETTER.length()) : entityPath);
+        if (entity == null)
+            throw new IllegalArgumentException(String.format("Unknown emulated entity '%s'", entityPath));
+        return deadLetter ? entity.getDeadLetterQueue() : entity;
+    }
+
+    protected void expireLocks() {
+        for (EmulatedEntity entity : entities.values()) {
+            entity.expireLocks();
+            entity.getDeadLetterQueue().expireLocks();
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
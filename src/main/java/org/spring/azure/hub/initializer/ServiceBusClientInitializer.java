@@ -1,6 +1,5 @@
 package org.spring.azure.hub.initializer;
 
-import com.azure.messaging.servicebus.ServiceBusProcessorClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -8,11 +7,36 @@ import org.spring.azure.hub.initializer.configurer.QueueConfigurer;
 import org.spring.azure.hub.initializer.configurer.TopicConfigurer;
 import org.spring.azure.hub.initializer.validator.ListenerValidator;
 import org.spring.azure.hub.model.context.ServiceBusSharedResources;
+import org.spring.azure.hub.model.dto.EntityStartup;
+import org.spring.azure.hub.model.properties.ServiceBusProperties;
+import org.spring.azure.hub.registrar.AnnotatedMethodScanner;
+import org.spring.azure.hub.settings.client.ProcessorClient;
+import org.spring.azure.hub.settings.processor.InFlightTracker;
+import org.spring.azure.hub.settings.processor.breaker.CircuitBreakerController;
+import org.spring.azure.hub.settings.processor.forward.Forwarders;
+import org.spring.azure.hub.settings.processor.retry.RetryScheduler;
+import org.spring.azure.hub.settings.processor.session.SessionStateCache;
+import org.spring.azure.hub.settings.processor.timeout.ListenerWatchdog;
 import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Component @Slf4j @RequiredArgsConstructor
 public class ServiceBusClientInitializer implements SmartLifecycle {
@@ -21,17 +45,32 @@ public class ServiceBusClientInitializer implements SmartLifecycle {
     private final QueueConfigurer queueConfigurer;
     private final TopicConfigurer topicConfigurer;
     private final ServiceBusSharedResources sharedResources;
+    private final ServiceBusProperties serviceBusProperties;
+    private final InFlightTracker inFlightTracker;
+    private final AnnotatedMethodScanner annotatedMethodScanner;
+    private final SessionStateCache sessionStateCache;
+    private final RetryScheduler retryScheduler;
+    private final CircuitBreakerController circuitBreakerController;
+    private final ListenerWatchdog listenerWatchdog;
+    private final Forwarders forwarders;
+    private final Map<String, Long> startupTimes = new ConcurrentHashMap<>();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
     private boolean running = false;
 
     @Override
     public void start() {
         log.info("Starting Service Bus client initializer.");
+        closed.set(false);
+        log.info("Scanned {} bean classes for Service Bus annotations in {} ms, {} from the listener index, {} cached lookups.",
+                annotatedMethodScanner.getScannedClasses(), TimeUnit.NANOSECONDS.toMillis(annotatedMethodScanner.getScanNanos()),
+                annotatedMethodScanner.getIndexedClasses(), annotatedMethodScanner.getCacheHits());
         listenerValidator.validate();
+        List<EntityStartup> startups = new ArrayList<>();
         log.info("Configuring Service Bus clients for queues.");
-        queueConfigurer.configureQueues();
+        startups.addAll(queueConfigurer.prepareQueues());
         log.info("Configuring Service Bus clients for topics and subscriptions.");
-        topicConfigurer.configureTopics();
-        startProcessors();
+        startups.addAll(topicConfigurer.prepareTopics());
+        startEntities(startups);
         log.info("Service Bus client creation and initialization completed successfully.");
         running = true;
     }
@@ -53,22 +92,126 @@ public class ServiceBusClientInitializer implements SmartLifecycle {
         return Integer.MAX_VALUE - 1;
     }
 
-    protected void startProcessors() {
-        Map<String, ServiceBusProcessorClient> processorClients = sharedResources.getProcessorClients();
-        int processorCount = processorClients.size();
-        log.info("Starting '{}' Service Bus processors.", processorCount);
-        processorClients.forEach((entityName, processorClient) -> {
+    /**
+     * Entity startup time in milliseconds, from processor construction until {@code start()} returned.
+     */
+    public Map<String, Long> getStartupTimes() {
+        return startupTimes;
+    }
+
+    /**
+     * Builds and starts the processors of every entity on a pool of {@code startupParallelism} threads. Startup waits
+     * for critical entities only and fails with one report listing every critical entity that could not start;
+     * non-critical entities keep attaching in the background and only log their failures.
+     */
+    protected void startEntities(List<EntityStartup> startups) {
+        int parallelism = Math.max(1, Math.min(serviceBusProperties.getStartupParallelism(), Math.max(startups.size(), 1)));
+        log.info("Starting '{}' Service Bus entities with parallelism {}.", startups.size(), parallelism);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, threadFactory("servicebus-startup-"));
+        long start = System.nanoTime();
+        Map<EntityStartup, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        for (EntityStartup startup : startups)
+            futures.put(startup, CompletableFuture.runAsync(() -> startEntity(startup), executor));
+        executor.shutdown();
+
+        Map<String, Throwable> failures = new LinkedHashMap<>();
+        futures.forEach((startup, future) -> {
+            if (!startup.isCritical()) {
+                future.whenComplete((ignored, e) -> {
+                    if (e != null) log.error("Failed to start non-critical Service Bus entity '{}'", startup.getName(), unwrap(e));
+                });
+                return;
+            }
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                failures.put(startup.getName(), unwrap(e));
+            }
+        });
+        log.info("Critical Service Bus entities started in {} ms.", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (!failures.isEmpty()) throw startupFailure(failures);
+    }
+
+    protected IllegalStateException startupFailure(Map<String, Throwable> failures) {
+        StringBuilder report = new StringBuilder(String.format("Failed to start %d Service Bus entities:", failures.size()));
+        failures.forEach((name, e) -> report.append(System.lineSeparator()).append(String.format(" - '%s': %s", name, e)));
+        IllegalStateException exception = new IllegalStateException(report.toString());
+        failures.values().forEach(exception::addSuppressed);
+        return exception;
+    }
+
+    protected void startEntity(EntityStartup startup) {
+        long start = System.nanoTime();
+        startup.getConfigure().run();
+        startProcessors(startup.getProcessorNames());
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        startupTimes.put(startup.getName(), elapsed);
+        log.info("Started Service Bus entity '{}' in {} ms", startup.getName(), elapsed);
+    }
+
+    protected void startProcessors(List<String> processorNames) {
+        Map<String, ProcessorClient> processorClients = sharedResources.getProcessorClients();
+        for (String entityName : processorNames) {
+            ProcessorClient processorClient = processorClients.get(entityName);
+            if (processorClient == null) continue;
             processorClient.start();
             log.info("Started Service Bus processor for entity: '{}'", entityName);
-        });
+        }
     }
 
+    protected Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    protected ThreadFactory threadFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Two-phase shutdown: every processor stops receiving at once, in-flight messages get up to {@code shutdownTimeout}
+     * seconds to be processed and settled, then all clients are closed in parallel, releasing prefetched messages.
+     */
     @PreDestroy
     public void shutdown() {
-        log.info("Application shutdown process initiated. Closing Service Bus processor clients.");
-        sharedResources.getProcessorClients().values().forEach(client -> {
-            log.debug("Closing Service Bus processor client: {}", client);
-            client.close();
-        });
+        if (!closed.compareAndSet(false, true))
+            return;
+        Collection<ProcessorClient> clients = sharedResources.getProcessorClients().values();
+        log.info("Application shutdown process initiated. Stopping '{}' Service Bus processor clients.", clients.size());
+        circuitBreakerController.shutdown();
+        runOnAll(clients, ProcessorClient::stop, "stop");
+        log.info("Waiting up to {} seconds for '{}' in-flight messages.", serviceBusProperties.getShutdownTimeout(), inFlightTracker.getInFlight());
+        InFlightTracker.DrainResult result = inFlightTracker.drain(Duration.ofSeconds(serviceBusProperties.getShutdownTimeout()));
+        sessionStateCache.flush();
+        retryScheduler.shutdown();
+        listenerWatchdog.shutdown();
+        forwarders.shutdown();
+        runOnAll(clients, ProcessorClient::close, "close");
+        log.info("Service Bus shutdown completed: {} in-flight messages drained, {} abandoned, drain took {} ms.",
+                result.getDrained(), result.getAbandoned(), result.getElapsedMillis());
+    }
+
+    protected void runOnAll(Collection<ProcessorClient> clients, Consumer<ProcessorClient> action, String actionName) {
+        if (clients.isEmpty())
+            return;
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(clients.size(), serviceBusProperties.getStartupParallelism())), threadFactory("servicebus-shutdown-"));
+        try {
+            CompletableFuture.allOf(clients.stream()
+                    .map(client -> CompletableFuture.runAsync(() -> {
+                        log.debug("Running {} on Service Bus processor client: {}", actionName, client);
+                        action.accept(client);
+                    }, executor).exceptionally(e -> {
+                        log.warn("Failed to {} Service Bus processor client", actionName, unwrap(e));
+                        return null;
+                    }))
+                    .toArray(CompletableFuture[]::new)).join();
+        } finally {
+            executor.shutdown();
+        }
     }
-}
\ No newline at end of file
+}
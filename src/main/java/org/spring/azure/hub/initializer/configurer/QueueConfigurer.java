@@ -3,11 +3,13 @@ package org.spring.azure.hub.initializer.configurer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.spring.azure.hub.model.Constants;
+import org.spring.azure.hub.model.dto.EntityStartup;
 import org.spring.azure.hub.model.properties.ServiceBusProperties;
 import org.spring.azure.hub.settings.QueueSettings;
 import org.spring.azure.hub.model.context.ServiceBusSharedResources;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -18,9 +20,14 @@ public class QueueConfigurer {
     private final ServiceBusSharedResources sharedResources;
     private final QueueSettings queueSettings;
 
-    public void configureQueues() {
+    public List<EntityStartup> prepareQueues() {
         addMissingQueues();
-        configureQueueSettings();
+        return serviceBusProperties.getQueues().stream()
+                .map(queueConfig -> EntityStartup.of(queueConfig.getName(), queueConfig, () -> {
+                    log.debug("Configuring Service Bus client for queue: {}", queueConfig.getName());
+                    queueSettings.configure(queueConfig);
+                }))
+                .collect(Collectors.toList());
     }
 
     protected void addMissingQueues() {
@@ -38,11 +45,4 @@ public class QueueConfigurer {
                     log.debug("Added missing queue configuration for '{}'", queueName);
                 });
     }
-
-    protected void configureQueueSettings() {
-        for (ServiceBusProperties.QueueConfig queueConfig : serviceBusProperties.getQueues()) {
-            log.debug("Configuring Service Bus client for queue: {}", queueConfig.getName());
-            queueSettings.configure(queueConfig);
-        }
-    }
 }
@@ -3,12 +3,14 @@ package org.spring.azure.hub.initializer.configurer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.spring.azure.hub.model.Constants;
+import org.spring.azure.hub.model.dto.EntityStartup;
 import org.spring.azure.hub.settings.TopicSettings;
 import org.spring.azure.hub.model.context.ServiceBusSharedResources;
 import org.spring.azure.hub.model.properties.ServiceBusProperties;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -19,9 +21,18 @@ public class TopicConfigurer {
     private final ServiceBusSharedResources sharedResources;
     private final TopicSettings topicSettings;
 
-    public void configureTopics() {
+    public List<EntityStartup> prepareTopics() {
         addMissingTopicsAndSubscriptions();
-        configureTopicSettings();
+        List<EntityStartup> startups = new ArrayList<>();
+        for (ServiceBusProperties.TopicConfig topicConfig : serviceBusProperties.getTopics())
+            for (ServiceBusProperties.TopicConfig.SubscriptionConfig subscription : topicConfig.getSubscriptions()) {
+                String name = topicConfig.getName() + "/" + subscription.getName();
+                startups.add(EntityStartup.of(name, subscription, () -> {
+                    log.debug("Configuring Service Bus client for subscription: {}", name);
+                    topicSettings.configureSubscription(subscription, topicConfig);
+                }));
+            }
+        return startups;
     }
 
     protected void addMissingTopicsAndSubscriptions() {
@@ -55,11 +66,4 @@ public class TopicConfigurer {
             }
         });
     }
-
-    protected void configureTopicSettings() {
-        for (ServiceBusProperties.TopicConfig topicConfig : serviceBusProperties.getTopics()) {
-            log.debug("Configuring Service Bus client for topic: {}", topicConfig.getName());
-            topicSettings.configure(topicConfig);
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package org.spring.azure.hub.metrics;
+
+import com.azure.messaging.servicebus.ServiceBusReceivedMessage;
+import lombok.Getter;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lag and lock budget distributions of one processor. The lock budget is the time left on the lock when the listener
+ * is dispatched; a listener that uses more than {@code nearMissPercent} of it is counted as a near miss, a sign that
+ * {@code maxAutoLockRenewDuration} or the concurrency are too tight. Values are also forwarded to {@link EntityMetrics}.
+ */
+public class EntityHistograms {
+
+    private static final long HIGHEST_TRACKABLE_MILLIS = TimeUnit.DAYS.toMillis(14);
+
+    @Getter private final String name;
+    private final int nearMissPercent;
+    private final EntityMetrics metrics;
+    private final Histogram lag = new ConcurrentHistogram(HIGHEST_TRACKABLE_MILLIS, 2);
+    private final Histogram deliveryCount = new ConcurrentHistogram(2);
+    private final Histogram lockRemaining = new ConcurrentHistogram(HIGHEST_TRACKABLE_MILLIS, 2);
+    private final LongAdder nearMisses = new LongAdder();
+
+    public EntityHistograms(String name, int nearMissPercent, EntityMetrics metrics) {
+        if (nearMissPercent < 1 || nearMissPercent > 100)
+            throw new IllegalArgumentException(String.format("nearMissPercent for '%s' must be between 1 and 100, was %d", name, nearMissPercent));
+        this.name = name;
+        this.nearMissPercent = nearMissPercent;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Records enqueue-to-dispatch lag and delivery count, and returns the lock budget in milliseconds, or {@code -1}
+     * when the message has no lock.
+     */
+    public long dispatched(ServiceBusReceivedMessage message, long nowMillis) {
+        OffsetDateTime enqueuedTime = message.getEnqueuedTime();
+        if (enqueuedTime != null) {
+            long millis = clamp(nowMillis - enqueuedTime.toInstant().toEpochMilli());
+            lag.recordValue(millis);
+            metrics.lag(millis);
+        }
+        deliveryCount.recordValue(Math.max(message.getDeliveryCount(), 0));
+        metrics.deliveryCount(message.getDeliveryCount());
+        OffsetDateTime lockedUntil = message.getLockedUntil();
+        return lockedUntil != null ? Math.max(lockedUntil.toInstant().toEpochMilli() - nowMillis, 0) : -1;
+    }
+
+    public void finished(ServiceBusReceivedMessage message, long lockBudgetMillis, long elapsedMillis) {
+        if (lockBudgetMillis < 0)
+            return;
+        OffsetDateTime lockedUntil = message.getLockedUntil();
+        long remaining = lockedUntil != null
+                ? clamp(lockedUntil.toInstant().toEpochMilli() - System.currentTimeMillis())
+                : clamp(lockBudgetMillis - elapsedMillis);
+        lockRemaining.recordValue(remaining);
+        metrics.lockRemaining(remaining);
+        if (elapsedMillis * 100 > lockBudgetMillis * nearMissPercent) {
+            nearMisses.increment();
+            metrics.nearMiss();
+        }
+    }
+
+    public Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("lagMillis", summarize(lag));
+        summary.put("deliveryCount", summarize(deliveryCount));
+        summary.put("lockRemainingMillis", summarize(lockRemaining));
+        summary.put("nearMisses", nearMisses.sum());
+        return summary;
+    }
+
+    public void reset() {
+        lag.reset();
+        deliveryCount.reset();
+        lockRemaining.reset();
+        nearMisses.reset();
+    }
+
+    protected Map<String, Object> summarize(Histogram histogram) {
+        Histogram copy = histogram.copy();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", copy.getTotalCount());
+        summary.put("min", copy.getMinValue());
+        summary.put("p50", copy.getValueAtPercentile(50));
+        summary.put("p90", copy.getValueAtPercentile(90));
+        summary.put("p99", copy.getValueAtPercentile(99));
+        summary.put("p999", copy.getValueAtPercentile(99.9));
+        summary.put("max", copy.getMaxValue());
+        return summary;
+    }
+
+    private static long clamp(long millis) {
+        return Math.min(Math.max(millis, 0), HIGHEST_TRACKABLE_MILLIS);
+    }
+}
@@ -0,0 +1,84 @@
+package org.spring.azure.hub.metrics;
+
+import com.azure.messaging.servicebus.ServiceBusErrorSource;
+import org.spring.azure.hub.settings.processor.breaker.CircuitBreaker;
+import org.spring.azure.hub.settings.processor.dedup.Deduplicator;
+
+/**
+ * Pipeline instrumentation of one processor, resolved once when the processor is built. Timings are passed as the
+ * value returned by {@link #start()}, which is {@code 0} for {@link #NOOP} so disabled metrics skip the clock reads.
+ */
+public interface EntityMetrics {
+
+    EntityMetrics NOOP = new EntityMetrics() { };
+
+    default long start() {
+        return 0L;
+    }
+
+    default void received() {
+    }
+
+    default void finished() {
+    }
+
+    default void deserialized(long start) {
+    }
+
+    default void invoked(long start) {
+    }
+
+    default void settled(long start) {
+    }
+
+    default void completed() {
+    }
+
+    default void abandoned() {
+    }
+
+    default void deadLettered() {
+    }
+
+    default void retried() {
+    }
+
+    default void failed() {
+    }
+
+    default void timedOut() {
+    }
+
+    /**
+     * Messages sent to the listener's output entity for one input message.
+     */
+    default void forwarded(int count) {
+    }
+
+    default void processError(ServiceBusErrorSource source) {
+    }
+
+    default void lag(long millis) {
+    }
+
+    default void deliveryCount(long deliveryCount) {
+    }
+
+    default void lockRemaining(long millis) {
+    }
+
+    default void nearMiss() {
+    }
+
+    /**
+     * Publishes the hit and miss counts and the store size of the processor's deduplicator.
+     */
+    default void bindDeduplicator(Deduplicator deduplicator) {
+    }
+
+    /**
+     * Publishes the state of the processor's circuit breaker and how often it opened and rejected messages.
+     */
+    default void bindCircuitBreaker(CircuitBreaker circuitBreaker) {
+    }
+}
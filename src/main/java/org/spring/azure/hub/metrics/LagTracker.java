@@ -0,0 +1,23 @@
+package org.spring.azure.hub.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Histograms of every processor with {@code lagTracking} enabled, keyed by processor name.
+ */
+@Component
+public class LagTracker {
+
+    private final Map<String, EntityHistograms> histograms = new ConcurrentHashMap<>();
+
+    public EntityHistograms register(String name, int nearMissPercent, EntityMetrics metrics) {
+        return histograms.computeIfAbsent(name, key -> new EntityHistograms(key, nearMissPercent, metrics));
+    }
+
+    public Map<String, EntityHistograms> getHistograms() {
+        return histograms;
+    }
+}
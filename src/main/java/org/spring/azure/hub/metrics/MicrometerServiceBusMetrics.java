@@ -0,0 +1,219 @@
+package org.spring.azure.hub.metrics;
+
+import com.azure.messaging.servicebus.ServiceBusErrorSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.spring.azure.hub.model.Constants;
+import org.spring.azure.hub.provider.PooledConnection;
+import org.spring.azure.hub.registrar.AnnotatedMethodScanner;
+import org.spring.azure.hub.settings.processor.breaker.CircuitBreaker;
+import org.spring.azure.hub.settings.processor.dedup.Deduplicator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer meters tagged with {@code entity} (queue name or {@code topic/subscription}) and {@code subqueue}
+ * ({@code main} or {@code dlq}).
+ */
+@RequiredArgsConstructor
+public class MicrometerServiceBusMetrics implements ServiceBusMetrics {
+
+    public static final String PREFIX = "servicebus.";
+
+    private final MeterRegistry registry;
+    /** One instance per processor, so that a rebuilt processor keeps publishing to the meters it registered. */
+    private final Map<String, EntityMetrics> entities = new ConcurrentHashMap<>();
+
+    /**
+     * Publishes the time spent scanning bean classes for Service Bus annotations at startup.
+     */
+    public void bindAnnotationScanner(AnnotatedMethodScanner scanner) {
+        TimeGauge.builder(PREFIX + "startup.annotation.scan", scanner, TimeUnit.NANOSECONDS, AnnotatedMethodScanner::getScanNanos)
+                .register(registry);
+        Gauge.builder(PREFIX + "startup.annotation.scan.classes", scanner, AnnotatedMethodScanner::getScannedClasses)
+                .register(registry);
+    }
+
+    @Override
+    public void bindConnection(PooledConnection connection) {
+        Gauge.builder(PREFIX + "connection.links", connection, PooledConnection::getLinkCount)
+                .tags("namespace", connection.getEndpoint(), "connection", String.valueOf(connection.getIndex()))
+                .register(registry);
+    }
+
+    @Override
+    public EntityMetrics entity(String name, boolean deadLetter) {
+        return entities.computeIfAbsent(deadLetter ? name + Constants.DEAD_LETTER : name,
+                key -> new MicrometerEntityMetrics(registry, Tags.of("entity", name, "subqueue", deadLetter ? "dlq" : "main")));
+    }
+
+    static class MicrometerEntityMetrics implements EntityMetrics {
+
+        private final MeterRegistry registry;
+        private final Tags tags;
+        private final Counter received;
+        private final Counter completed;
+        private final Counter abandoned;
+        private final Counter deadLettered;
+        private final Counter retried;
+        private final Counter failed;
+        private final Counter timedOut;
+        private final Counter forwarded;
+        private final Timer deserialization;
+        private final Timer listener;
+        private final Timer settlement;
+        private final DistributionSummary lag;
+        private final DistributionSummary deliveryCount;
+        private final DistributionSummary lockRemaining;
+        private final Counter nearMisses;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Map<String, Counter> errors = new ConcurrentHashMap<>();
+
+        MicrometerEntityMetrics(MeterRegistry registry, Tags tags) {
+            this.registry = registry;
+            this.tags = tags;
+            this.received = registry.counter(PREFIX + "messages.received", tags);
+            this.completed = registry.counter(PREFIX + "messages.completed", tags);
+            this.abandoned = registry.counter(PREFIX + "messages.abandoned", tags);
+            this.deadLettered = registry.counter(PREFIX + "messages.dead.lettered", tags);
+            this.failed = registry.counter(PREFIX + "messages.failed", tags);
+            this.retried = registry.counter(PREFIX + "messages.retried", tags);
+            this.timedOut = registry.counter(PREFIX + "messages.timed.out", tags);
+            this.forwarded = registry.counter(PREFIX + "messages.forwarded", tags);
+            this.deserialization = registry.timer(PREFIX + "deserialization", tags);
+            this.listener = registry.timer(PREFIX + "listener", tags);
+            this.settlement = registry.timer(PREFIX + "settlement", tags);
+            registry.gauge(PREFIX + "messages.in.flight", tags, inFlight);
+            this.lag = summary(PREFIX + "lag", "milliseconds");
+            this.deliveryCount = summary(PREFIX + "delivery.count", null);
+            this.lockRemaining = summary(PREFIX + "lock.remaining", "milliseconds");
+            this.nearMisses = registry.counter(PREFIX + "lock.near.misses", tags);
+        }
+
+        private DistributionSummary summary(String name, String baseUnit) {
+            return DistributionSummary.builder(name).tags(tags).baseUnit(baseUnit)
+                    .publishPercentiles(0.5, 0.9, 0.99)
+                    .register(registry);
+        }
+
+        @Override
+        public long start() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void received() {
+            received.increment();
+            inFlight.incrementAndGet();
+        }
+
+        @Override
+        public void finished() {
+            inFlight.decrementAndGet();
+        }
+
+        @Override
+        public void deserialized(long start) {
+            deserialization.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void invoked(long start) {
+            listener.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void settled(long start) {
+            settlement.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void completed() {
+            completed.increment();
+        }
+
+        @Override
+        public void abandoned() {
+            abandoned.increment();
+        }
+
+        @Override
+        public void deadLettered() {
+            deadLettered.increment();
+        }
+
+        @Override
+        public void retried() {
+            retried.increment();
+        }
+
+        @Override
+        public void failed() {
+            failed.increment();
+        }
+
+        @Override
+        public void timedOut() {
+            timedOut.increment();
+        }
+
+        @Override
+        public void forwarded(int count) {
+            forwarded.increment(count);
+        }
+
+        @Override
+        public void processError(ServiceBusErrorSource source) {
+            String sourceName = source != null ? source.toString() : "UNKNOWN";
+            errors.computeIfAbsent(sourceName, key -> registry.counter(PREFIX + "processor.errors", tags.and("source", key))).increment();
+        }
+
+        @Override
+        public void lag(long millis) {
+            lag.record(millis);
+        }
+
+        @Override
+        public void deliveryCount(long deliveryCount) {
+            this.deliveryCount.record(deliveryCount);
+        }
+
+        @Override
+        public void lockRemaining(long millis) {
+            lockRemaining.record(millis);
+        }
+
+        @Override
+        public void nearMiss() {
+            nearMisses.increment();
+        }
+
+        @Override
+        public void bindDeduplicator(Deduplicator deduplicator) {
+            FunctionCounter.builder(PREFIX + "dedup.hits", deduplicator, Deduplicator::getHits).tags(tags).register(registry);
+            FunctionCounter.builder(PREFIX + "dedup.misses", deduplicator, Deduplicator::getMisses).tags(tags).register(registry);
+            Gauge.builder(PREFIX + "dedup.memory", deduplicator, value -> value.getStore().getMemoryBytes())
+                    .tags(tags).baseUnit("bytes").register(registry);
+            Gauge.builder(PREFIX + "dedup.capacity", deduplicator, value -> value.getStore().getCapacity())
+                    .tags(tags).register(registry);
+        }
+
+        @Override
+        public void bindCircuitBreaker(CircuitBreaker circuitBreaker) {
+            Gauge.builder(PREFIX + "circuit.state", circuitBreaker, value -> value.getState().ordinal())
+                    .tags(tags).description("0 closed, 1 half-open, 2 open").register(registry);
+            FunctionCounter.builder(PREFIX + "circuit.opened", circuitBreaker, CircuitBreaker::getOpened).tags(tags).register(registry);
+            FunctionCounter.builder(PREFIX + "circuit.rejected", circuitBreaker, CircuitBreaker::getRejected).tags(tags).register(registry);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.spring.azure.hub.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@code /actuator/servicebuslag}: lag, delivery count and lock budget percentiles per processor since startup or the last reset.
+ */
+@RequiredArgsConstructor @Endpoint(id = "servicebuslag")
+public class ServiceBusLagEndpoint {
+
+    private final LagTracker lagTracker;
+
+    @ReadOperation
+    public Map<String, Object> histograms() {
+        Map<String, Object> result = new TreeMap<>();
+        lagTracker.getHistograms().forEach((name, histograms) -> result.put(name, histograms.summary()));
+        return result;
+    }
+
+    @ReadOperation
+    public Map<String, Object> histograms(@Selector(match = Selector.Match.ALL_REMAINING) String... name) {
+        EntityHistograms histograms = lagTracker.getHistograms().get(String.join("/", name));
+        return histograms != null ? histograms.summary() : null;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        lagTracker.getHistograms().values().forEach(EntityHistograms::reset);
+    }
+}
@@ -0,0 +1,19 @@
+package org.spring.azure.hub.metrics;
+
+import org.spring.azure.hub.provider.PooledConnection;
+
+/**
+ * Creates the {@link EntityMetrics} of each processor. {@link #NOOP} is used when no metrics backend is configured.
+ */
+public interface ServiceBusMetrics {
+
+    ServiceBusMetrics NOOP = (name, deadLetter) -> EntityMetrics.NOOP;
+
+    EntityMetrics entity(String name, boolean deadLetter);
+
+    /**
+     * Publishes the link count of a pooled connection, called when the connection is added to its namespace pool.
+     */
+    default void bindConnection(PooledConnection connection) {
+    }
+}
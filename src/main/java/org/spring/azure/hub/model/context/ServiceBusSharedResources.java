@@ -1,9 +1,10 @@
 package org.spring.azure.hub.model.context;
 
-import com.azure.messaging.servicebus.ServiceBusProcessorClient;
 import org.spring.azure.hub.model.dto.TopicKey;
 import org.spring.azure.hub.model.dto.ErrorHandlerMethod;
 import org.spring.azure.hub.model.dto.ListenerMethod;
+import org.spring.azure.hub.settings.client.ProcessorClient;
+import org.spring.azure.hub.settings.processor.invoker.ListenerInvoker;
 import org.spring.azure.hub.settings.processor.serialization.ServiceBusSerializer;
 import lombok.Getter;
 import lombok.Setter;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Component;
 
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Getter @Setter @Component
 public class ServiceBusSharedResources {
@@ -20,18 +22,18 @@ public class ServiceBusSharedResources {
     private Map<String, ErrorHandlerMethod> queueErrorHandlers = new HashMap<>();
     private Map<TopicKey, ErrorHandlerMethod> topicErrorHandlers = new HashMap<>();
     private Map<Class<?>, ServiceBusSerializer<?>> serializerMap = new HashMap<>();
-    private Map<String, ServiceBusProcessorClient> processorClients = new HashMap<>();
+    private Map<String, ProcessorClient> processorClients = new ConcurrentHashMap<>();
     private List<ErrorHandlerMethod> globalErrorHandlers = new ArrayList<>();
     private List<ListenerMethod> globalDLQListeners = new ArrayList<>();
     private ErrorHandlerMethod globalErrorHandler;
     private ListenerMethod globalDLQListener;
 
     public void registerListenerMethod(String queueName, Object bean, Method method) {
-        queueListeners.computeIfAbsent(queueName, k -> new ListenerMethod(bean, method, 1));
+        queueListeners.computeIfAbsent(queueName, k -> compile(new ListenerMethod(bean, method, 1)));
     }
 
     public void registerListenerMethod(TopicKey key, Object bean, Method method) {
-        topicListeners.computeIfAbsent(key, k -> new ListenerMethod(bean, method, 1));
+        topicListeners.computeIfAbsent(key, k -> compile(new ListenerMethod(bean, method, 1)));
     }
 
     public void registerErrorHandlerMethod(String queueName, Object bean, Method method) {
@@ -49,8 +51,14 @@ public class ServiceBusSharedResources {
     }
 
     public void addGlobalDeadListener(ListenerMethod listenerMethod) {
-        globalDLQListeners.add(listenerMethod);
+        globalDLQListeners.add(compile(listenerMethod));
         globalDLQListeners.sort(Comparator.comparingInt(ListenerMethod::getOrder));
         globalDLQListener = globalDLQListeners.get(0);
     }
+
+    protected ListenerMethod compile(ListenerMethod listenerMethod) {
+        if (listenerMethod.getInvoker() == null)
+            listenerMethod.setInvoker(ListenerInvoker.compile(listenerMethod.getBean(), listenerMethod.getMethod()));
+        return listenerMethod;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package org.spring.azure.hub.model.dto;
+
+import lombok.Data;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Methods of a bean class carrying Service Bus annotations, as found by {@code AnnotatedMethodScanner}. A global error
+ * handler is not also registered as an entity error handler, nor a queue listener as a topic listener.
+ */
+public @Data class AnnotatedMethods {
+
+    public static final AnnotatedMethods EMPTY = new AnnotatedMethods();
+
+    private final List<Method> globalErrorHandlers = new ArrayList<>();
+    private final List<Method> errorHandlers = new ArrayList<>();
+    private final List<Method> globalDeadLetterHandlers = new ArrayList<>();
+    private final List<Method> queueListeners = new ArrayList<>();
+    private final List<Method> topicListeners = new ArrayList<>();
+
+    public boolean isEmpty() {
+        return globalErrorHandlers.isEmpty() && errorHandlers.isEmpty() && globalDeadLetterHandlers.isEmpty()
+                && queueListeners.isEmpty() && topicListeners.isEmpty();
+    }
+}
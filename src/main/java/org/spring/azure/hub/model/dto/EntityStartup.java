@@ -0,0 +1,28 @@
+package org.spring.azure.hub.model.dto;
+
+import lombok.Data;
+import org.spring.azure.hub.model.Constants;
+import org.spring.azure.hub.model.properties.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the processors of one queue or subscription, named by {@code processorNames}, during parallel startup.
+ */
+public @Data class EntityStartup {
+
+    private final String name;
+    private final boolean critical;
+    private final List<String> processorNames;
+    private final Runnable configure;
+
+
+    public static EntityStartup of(String name, Config config, Runnable configure) {
+        List<String> processorNames = new ArrayList<>(2);
+        processorNames.add(name);
+        if (!Boolean.FALSE.equals(config.getEnableDeadLettering()))
+            processorNames.add(name + Constants.DEAD_LETTER);
+        return new EntityStartup(name, !Boolean.FALSE.equals(config.getCritical()), processorNames, configure);
+    }
+}
\ No newline at end of file
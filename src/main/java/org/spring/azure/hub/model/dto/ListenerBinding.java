@@ -0,0 +1,63 @@
+package org.spring.azure.hub.model.dto;
+
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import lombok.Builder;
+import lombok.Data;
+import org.spring.azure.hub.metrics.EntityHistograms;
+import org.spring.azure.hub.metrics.EntityMetrics;
+import org.spring.azure.hub.model.properties.BatchFailurePolicy;
+import org.spring.azure.hub.model.properties.TimeoutPolicy;
+import org.spring.azure.hub.settings.processor.MessageSettler;
+import org.spring.azure.hub.settings.processor.ProcessorActivity;
+import org.spring.azure.hub.settings.processor.batch.BatchAccumulator;
+import org.spring.azure.hub.settings.processor.breaker.CircuitBreaker;
+import org.spring.azure.hub.settings.processor.dedup.Deduplicator;
+import org.spring.azure.hub.settings.processor.dispatch.Bulkhead;
+import org.spring.azure.hub.settings.processor.dispatch.KeyedSerialExecutor;
+import org.spring.azure.hub.settings.processor.forward.Forwarder;
+import org.spring.azure.hub.settings.processor.invoker.ListenerInvoker;
+import org.spring.azure.hub.settings.processor.retry.Redeliverer;
+import org.spring.azure.hub.settings.processor.retry.RetryPolicy;
+import org.spring.azure.hub.settings.processor.serialization.PayloadReader;
+
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Everything a processor callback needs to dispatch a message, resolved once when the processor is built.
+ */
+public @Data @Builder class ListenerBinding {
+
+    private final String name;
+    private final ListenerInvoker invoker;
+    private final PayloadReader payloadReader;
+    private final boolean conditional;
+    private final boolean autoAck;
+    private final boolean abandonOnSerializationError;
+    private final BatchAccumulator batchAccumulator;
+    private final BatchFailurePolicy batchFailurePolicy;
+    /** {@code null} when the listener runs on the processor callback thread. */
+    private final Executor executor;
+    private final Bulkhead bulkhead;
+    /** Serializes hand-off dispatch per {@link #orderingKey}; {@code null} when messages are not ordered. */
+    private final KeyedSerialExecutor orderedExecutor;
+    private final Function<ServiceBusReceivedMessageContext, String> orderingKey;
+    /** {@code null} unless {@code deduplication} is enabled. */
+    private final Deduplicator deduplicator;
+    /** Both {@code null} unless {@code maxRetries} is set; failed messages are then abandoned. */
+    private final RetryPolicy retryPolicy;
+    private final Redeliverer redeliverer;
+    /** {@code null} unless {@code circuitBreaker} is enabled. */
+    private final CircuitBreaker circuitBreaker;
+    /** Listener timeout in milliseconds, {@code 0} when listeners run without one. */
+    private final long timeout;
+    private final TimeoutPolicy timeoutPolicy;
+    /** {@code null} unless the listener has an {@code outputQueue} or {@code outputTopic}; set only with {@link #autoAck}. */
+    private final Forwarder forwarder;
+    @Builder.Default private final EntityMetrics metrics = EntityMetrics.NOOP;
+    @Builder.Default private final MessageSettler settler = MessageSettler.SDK;
+    @Builder.Default private final ProcessorActivity activity = new ProcessorActivity();
+    /** {@code null} unless {@code lagTracking} is enabled. */
+    private final EntityHistograms histograms;
+
+}
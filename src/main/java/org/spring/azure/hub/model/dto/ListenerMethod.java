@@ -1,6 +1,9 @@
 package org.spring.azure.hub.model.dto;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.spring.azure.hub.settings.processor.invoker.ListenerInvoker;
 
 import java.lang.reflect.Method;
 
@@ -9,5 +12,7 @@ public @Data class ListenerMethod {
     private final Object bean;
     private final Method method;
     private final int order;
+    @EqualsAndHashCode.Exclude @ToString.Exclude
+    private ListenerInvoker invoker;
 
-}
\ No newline at end of file
+}
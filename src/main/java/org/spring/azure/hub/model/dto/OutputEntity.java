@@ -0,0 +1,14 @@
+package org.spring.azure.hub.model.dto;
+
+import lombok.Data;
+
+public @Data class OutputEntity {
+
+    private final String name;
+    private final boolean topic;
+
+    @Override
+    public String toString() {
+        return (topic ? "topic" : "queue") + " '" + name + '\'';
+    }
+}
\ No newline at end of file
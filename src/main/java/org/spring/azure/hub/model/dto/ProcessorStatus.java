@@ -0,0 +1,22 @@
+package org.spring.azure.hub.model.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Live state of one processor, as reported by {@code ProcessorRegistry}.
+ */
+public @Data @Builder class ProcessorStatus {
+
+    private final String name;
+    private final boolean running;
+    private final boolean paused;
+    /** {@code null} unless {@code circuitBreaker} is enabled. */
+    private final String circuitBreaker;
+    private final int inFlight;
+    private final long processed;
+    /** Messages per second over the last ten seconds. */
+    private final double throughput;
+    private final int maxConcurrentCalls;
+    private final int prefetchCount;
+}
@@ -0,0 +1,10 @@
+package org.spring.azure.hub.model.properties;
+
+/**
+ * How a failed batch is settled when the framework owns settlement (CONDITIONAL mode with {@code List<T>} listeners).
+ * SPLIT re-invokes the listener once per message so only the failing messages are abandoned.
+ */
+public enum BatchFailurePolicy {
+
+    ABANDON_ALL, DEAD_LETTER_ALL, SPLIT
+}
@@ -3,10 +3,17 @@ package org.spring.azure.hub.model.properties;
 import lombok.Data;
 
 import static com.azure.messaging.servicebus.models.ServiceBusReceiveMode.PEEK_LOCK;
+import static org.spring.azure.hub.model.properties.BatchFailurePolicy.ABANDON_ALL;
 import static org.spring.azure.hub.model.properties.CompletionMode.CONDITIONAL;
+import static org.spring.azure.hub.model.properties.DeduplicationStoreType.MEMORY;
+import static org.spring.azure.hub.model.properties.DispatchMode.CALLER;
+import static org.spring.azure.hub.model.properties.OrderingKey.NONE;
+import static org.spring.azure.hub.model.properties.TimeoutPolicy.ABANDON;
 
 /**
- * maxAutoLockRenewDuration in seconds
+ * maxAutoLockRenewDuration, sessionIdleTimeout, deduplicationWindow and openDuration in seconds; maxBatchWaitTime,
+ * targetLatency, retryBackoff, retryMaxBackoff, slowCallThreshold and listenerTimeout in milliseconds; failureRateThreshold and
+ * slowCallRateThreshold in percent
  */
 public @Data class Config {
 
@@ -14,11 +21,45 @@ public @Data class Config {
     private String autoComplete;
     private Boolean enableCrossEntityTransactions;
     private Boolean enableSession;
+    private Integer maxConcurrentSessions;
+    private Integer sessionIdleTimeout;
     private Integer maxAutoLockRenewDuration;
     private Integer maxConcurrentCalls;
+    private Integer maxRetries;
+    private Integer retryBackoff;
+    private Integer retryMaxBackoff;
     private Integer prefetchCount;
     private Boolean enableDeadLettering;
     private Boolean abandonOnSerializationError;
+    private Integer maxBatchSize;
+    private Integer maxBatchWaitTime;
+    private String batchFailurePolicy;
+    private Boolean critical;
+    private String dispatchMode;
+    private Integer maxInFlight;
+    private String orderingKey;
+    private String orderingProperty;
+    private Integer maxKeysInFlight;
+    private Boolean adaptiveConcurrency;
+    private Integer minConcurrency;
+    private Integer targetLatency;
+    private Boolean lagTracking;
+    private Integer nearMissPercent;
+    private Boolean deduplication;
+    private String deduplicationKey;
+    private Integer deduplicationWindow;
+    private Integer deduplicationCapacity;
+    private String deduplicationStore;
+    private Boolean circuitBreaker;
+    private Integer failureRateThreshold;
+    private Integer slowCallThreshold;
+    private Integer slowCallRateThreshold;
+    private Integer minimumCalls;
+    private Integer openDuration;
+    private Integer probeConcurrency;
+    private Integer probeCalls;
+    private Integer listenerTimeout;
+    private String timeoutPolicy;
 
     public void inheritPropertiesFrom(Config parent) {
         this.receiveMode = this.receiveMode != null ? this.receiveMode
@@ -33,12 +74,27 @@ public @Data class Config {
         this.enableSession = this.enableSession != null ? this.enableSession
                 : parent != null && parent.enableSession != null ? parent.enableSession : false;
 
+        this.maxConcurrentSessions = this.maxConcurrentSessions != null ? this.maxConcurrentSessions
+                : parent != null && parent.getMaxConcurrentSessions() != null ? parent.getMaxConcurrentSessions() : 1;
+
+        this.sessionIdleTimeout = this.sessionIdleTimeout != null ? this.sessionIdleTimeout
+                : parent != null && parent.getSessionIdleTimeout() != null ? parent.getSessionIdleTimeout() : 0;
+
         this.maxAutoLockRenewDuration = this.maxAutoLockRenewDuration != null ? this.maxAutoLockRenewDuration
                 : parent != null && parent.getMaxAutoLockRenewDuration() != null ? parent.getMaxAutoLockRenewDuration() : 300;
 
         this.maxConcurrentCalls = this.maxConcurrentCalls != null ? this.maxConcurrentCalls
                 : parent != null && parent.getMaxConcurrentCalls() != null ? parent.getMaxConcurrentCalls() : 1;
 
+        this.maxRetries = this.maxRetries != null ? this.maxRetries
+                : parent != null && parent.getMaxRetries() != null ? parent.getMaxRetries() : 0;
+
+        this.retryBackoff = this.retryBackoff != null ? this.retryBackoff
+                : parent != null && parent.getRetryBackoff() != null ? parent.getRetryBackoff() : 1000;
+
+        this.retryMaxBackoff = this.retryMaxBackoff != null ? this.retryMaxBackoff
+                : parent != null && parent.getRetryMaxBackoff() != null ? parent.getRetryMaxBackoff() : 60000;
+
         this.prefetchCount = this.prefetchCount != null ? this.prefetchCount
                 : parent != null && parent.getPrefetchCount() != null ? parent.getPrefetchCount() : 0;
 
@@ -47,5 +103,92 @@ public @Data class Config {
 
         this.abandonOnSerializationError = this.abandonOnSerializationError != null ? this.abandonOnSerializationError
                 : parent != null && parent.abandonOnSerializationError != null ? parent.getAbandonOnSerializationError() : true;
+
+        this.maxBatchSize = this.maxBatchSize != null ? this.maxBatchSize
+                : parent != null && parent.getMaxBatchSize() != null ? parent.getMaxBatchSize() : 10;
+
+        this.maxBatchWaitTime = this.maxBatchWaitTime != null ? this.maxBatchWaitTime
+                : parent != null && parent.getMaxBatchWaitTime() != null ? parent.getMaxBatchWaitTime() : 1000;
+
+        this.batchFailurePolicy = this.batchFailurePolicy != null ? this.batchFailurePolicy
+                : parent != null && parent.getBatchFailurePolicy() != null ? parent.getBatchFailurePolicy() : ABANDON_ALL.toString();
+
+        this.critical = this.critical != null ? this.critical
+                : parent != null && parent.critical != null ? parent.getCritical() : true;
+
+        this.dispatchMode = this.dispatchMode != null ? this.dispatchMode
+                : parent != null && parent.getDispatchMode() != null ? parent.getDispatchMode() : CALLER.toString();
+
+        this.maxInFlight = this.maxInFlight != null ? this.maxInFlight
+                : parent != null && parent.getMaxInFlight() != null ? parent.getMaxInFlight() : 16;
+
+        this.orderingKey = this.orderingKey != null ? this.orderingKey
+                : parent != null && parent.getOrderingKey() != null ? parent.getOrderingKey() : NONE.toString();
+
+        this.orderingProperty = this.orderingProperty != null ? this.orderingProperty
+                : parent != null ? parent.getOrderingProperty() : null;
+
+        this.maxKeysInFlight = this.maxKeysInFlight != null ? this.maxKeysInFlight
+                : parent != null && parent.getMaxKeysInFlight() != null ? parent.getMaxKeysInFlight() : 0;
+
+        this.adaptiveConcurrency = this.adaptiveConcurrency != null ? this.adaptiveConcurrency
+                : parent != null && parent.adaptiveConcurrency != null ? parent.getAdaptiveConcurrency() : false;
+
+        this.minConcurrency = this.minConcurrency != null ? this.minConcurrency
+                : parent != null && parent.getMinConcurrency() != null ? parent.getMinConcurrency() : 1;
+
+        this.targetLatency = this.targetLatency != null ? this.targetLatency
+                : parent != null && parent.getTargetLatency() != null ? parent.getTargetLatency() : 1000;
+
+        this.lagTracking = this.lagTracking != null ? this.lagTracking
+                : parent != null && parent.lagTracking != null ? parent.getLagTracking() : false;
+
+        this.nearMissPercent = this.nearMissPercent != null ? this.nearMissPercent
+                : parent != null && parent.getNearMissPercent() != null ? parent.getNearMissPercent() : 80;
+
+        this.deduplication = this.deduplication != null ? this.deduplication
+                : parent != null && parent.deduplication != null ? parent.getDeduplication() : false;
+
+        this.deduplicationKey = this.deduplicationKey != null ? this.deduplicationKey
+                : parent != null ? parent.getDeduplicationKey() : null;
+
+        this.deduplicationWindow = this.deduplicationWindow != null ? this.deduplicationWindow
+                : parent != null && parent.getDeduplicationWindow() != null ? parent.getDeduplicationWindow() : 600;
+
+        this.deduplicationCapacity = this.deduplicationCapacity != null ? this.deduplicationCapacity
+                : parent != null && parent.getDeduplicationCapacity() != null ? parent.getDeduplicationCapacity() : 100000;
+
+        this.deduplicationStore = this.deduplicationStore != null ? this.deduplicationStore
+                : parent != null && parent.getDeduplicationStore() != null ? parent.getDeduplicationStore() : MEMORY.toString();
+
+        this.circuitBreaker = this.circuitBreaker != null ? this.circuitBreaker
+                : parent != null && parent.circuitBreaker != null ? parent.getCircuitBreaker() : false;
+
+        this.failureRateThreshold = this.failureRateThreshold != null ? this.failureRateThreshold
+                : parent != null && parent.getFailureRateThreshold() != null ? parent.getFailureRateThreshold() : 50;
+
+        this.slowCallThreshold = this.slowCallThreshold != null ? this.slowCallThreshold
+                : parent != null && parent.getSlowCallThreshold() != null ? parent.getSlowCallThreshold() : 0;
+
+        this.slowCallRateThreshold = this.slowCallRateThreshold != null ? this.slowCallRateThreshold
+                : parent != null && parent.getSlowCallRateThreshold() != null ? parent.getSlowCallRateThreshold() : 100;
+
+        this.minimumCalls = this.minimumCalls != null ? this.minimumCalls
+                : parent != null && parent.getMinimumCalls() != null ? parent.getMinimumCalls() : 20;
+
+        this.openDuration = this.openDuration != null ? this.openDuration
+                : parent != null && parent.getOpenDuration() != null ? parent.getOpenDuration() : 30;
+
+        this.probeConcurrency = this.probeConcurrency != null ? this.probeConcurrency
+                : parent != null && parent.getProbeConcurrency() != null ? parent.getProbeConcurrency() : 1;
+
+        this.probeCalls = this.probeCalls != null ? this.probeCalls
+                : parent != null && parent.getProbeCalls() != null ? parent.getProbeCalls() : 3;
+
+        this.listenerTimeout = this.listenerTimeout != null ? this.listenerTimeout
+                : parent != null && parent.getListenerTimeout() != null ? parent.getListenerTimeout() : 0;
+
+        this.timeoutPolicy = this.timeoutPolicy != null ? this.timeoutPolicy
+                : parent != null && parent.getTimeoutPolicy() != null ? parent.getTimeoutPolicy() : ABANDON.toString();
     }
 }
\ No newline at end of file
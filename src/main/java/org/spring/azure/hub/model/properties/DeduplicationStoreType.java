@@ -0,0 +1,10 @@
+package org.spring.azure.hub.model.properties;
+
+/**
+ * Where {@code deduplication} remembers processed message ids. MEMORY keeps them on the heap; MAPPED keeps them in a
+ * memory-mapped file under {@code deduplicationDirectory}, so they survive a restart of the application.
+ */
+public enum DeduplicationStoreType {
+
+    MEMORY, MAPPED
+}
@@ -0,0 +1,10 @@
+package org.spring.azure.hub.model.properties;
+
+/**
+ * Where listener code runs. CALLER runs it on the processor's receive thread; POOL and VIRTUAL hand the message off to
+ * a shared bounded pool or to virtual threads (Java 21+), limited per entity by {@code maxInFlight}.
+ */
+public enum DispatchMode {
+
+    CALLER, POOL, VIRTUAL
+}
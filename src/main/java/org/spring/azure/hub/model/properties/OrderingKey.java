@@ -0,0 +1,11 @@
+package org.spring.azure.hub.model.properties;
+
+/**
+ * What messages are ordered by with POOL or VIRTUAL dispatch: messages with the same key run one at a time, in the
+ * order they were received. PROPERTY reads the application property named by {@code orderingProperty}. Messages
+ * without a key are not ordered. NONE orders session entities by session id and nothing else.
+ */
+public enum OrderingKey {
+
+    NONE, SESSION_ID, PARTITION_KEY, PROPERTY
+}
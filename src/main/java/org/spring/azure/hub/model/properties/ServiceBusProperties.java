@@ -12,11 +12,25 @@ import java.util.List;
 @Data @EqualsAndHashCode(callSuper = true) @AllArgsConstructor @NoArgsConstructor
 public class ServiceBusProperties extends Config {
     private String connectionString;
+    private Integer connectionsPerNamespace = 1;
+    private Integer startupParallelism = 8;
+    private Integer shutdownTimeout = 30;
+    private Integer dispatchPoolSize = 64;
+    private Integer adaptiveInterval = 5;
+    private Integer circuitWindow = 10;
+    private Integer watchdogInterval = 30;
+    private Integer maxStuckListeners = 32;
+    private String deduplicationDirectory;
     private List<QueueConfig> queues = new ArrayList<>();
     private List<TopicConfig> topics = new ArrayList<>();
+    private SenderConfig sender = new SenderConfig();
+    private EmulatorConfig emulator = new EmulatorConfig();
+    private SessionStateConfig sessionState = new SessionStateConfig();
 
     @PostConstruct
     public void init() {
+        if (emulator.getEnabled() && (connectionString == null || connectionString.isEmpty()))
+            connectionString = EmulatorConfig.CONNECTION_STRING;
         this.inheritPropertiesFrom(null);
         for (QueueConfig queue : queues)
             queue.inheritPropertiesFrom(this);
@@ -44,4 +58,39 @@ public class ServiceBusProperties extends Config {
             private String name;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Outbound batching used by MessageBusTemplate. lingerTime in milliseconds; maxBatchSizeInBytes defaults to the entity limit.
+     */
+    @Data
+    public static class SenderConfig {
+        private Integer lingerTime = 5;
+        private Integer maxBatchSizeInBytes;
+        private Integer maxInFlight = 1000;
+        private Integer flushThreads = 2;
+    }
+
+    /**
+     * Write-behind cache used by SessionStateCache. flushInterval in milliseconds, expireAfter in seconds.
+     */
+    @Data
+    public static class SessionStateConfig {
+        private Boolean cacheEnabled = false;
+        private Integer maxSessions = 10000;
+        private Integer flushInterval = 1000;
+        private Integer expireAfter = 60;
+    }
+
+    /**
+     * In-memory broker replacing Service Bus for local runs and load tests. lockDuration in seconds.
+     */
+    @Data
+    public static class EmulatorConfig {
+        /** Stands in for a missing connection string; the emulator never connects. */
+        public static final String CONNECTION_STRING = "Endpoint=sb://emulator.servicebus.local/;SharedAccessKeyName=emulator;SharedAccessKey=emulator";
+
+        private Boolean enabled = false;
+        private Integer lockDuration = 30;
+        private Integer maxDeliveryCount = 10;
+    }
+}
@@ -0,0 +1,10 @@
+package org.spring.azure.hub.model.properties;
+
+/**
+ * How a message whose listener exceeded {@code listenerTimeout} is settled when the framework owns settlement. ABANDON
+ * treats it as a failure, retried with backoff when {@code maxRetries} is set.
+ */
+public enum TimeoutPolicy {
+
+    ABANDON, DEAD_LETTER
+}
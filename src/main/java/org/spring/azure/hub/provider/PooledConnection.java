@@ -0,0 +1,48 @@
+package org.spring.azure.hub.provider;
+
+import com.azure.messaging.servicebus.ServiceBusClientBuilder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One AMQP connection of a namespace pool. Every client built from {@link #getBuilder()} shares the same connection,
+ * and each of them holds one link on it until it is closed.
+ */
+@Getter @RequiredArgsConstructor
+public class PooledConnection {
+
+    private final String endpoint;
+    private final int index;
+    private final ServiceBusClientBuilder builder;
+    private final AtomicInteger links = new AtomicInteger();
+    private final List<String> entities = new CopyOnWriteArrayList<>();
+
+    public int getLinkCount() {
+        return links.get();
+    }
+
+    ServiceBusClientBuilder assign(String entityName) {
+        links.incrementAndGet();
+        entities.add(entityName);
+        return builder;
+    }
+
+    /**
+     * Gives back the link of a client of the entity that was closed.
+     */
+    boolean release(String entityName) {
+        if (!entities.remove(entityName))
+            return false;
+        links.decrementAndGet();
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s#%d (%d links)", endpoint, index, getLinkCount());
+    }
+}
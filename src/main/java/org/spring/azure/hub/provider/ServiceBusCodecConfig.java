@@ -0,0 +1,63 @@
+package org.spring.azure.hub.provider;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.spring.azure.hub.settings.processor.serialization.codec.AvroPayloadCodec;
+import org.spring.azure.hub.settings.processor.serialization.codec.JacksonPayloadCodec;
+import org.spring.azure.hub.settings.processor.serialization.codec.PayloadCodec;
+import org.spring.azure.hub.settings.processor.serialization.codec.ProtobufPayloadCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+
+/**
+ * Built-in binary codecs. Smile, CBOR and Avro are registered when their Jackson dataformat module is on the classpath.
+ */
+public @Configuration class ServiceBusCodecConfig {
+
+    @Bean @ConditionalOnMissingBean(name = "serviceBusProtobufCodec")
+    public PayloadCodec serviceBusProtobufCodec() {
+        return new ProtobufPayloadCodec(Arrays.asList("application/x-protobuf", "application/protobuf", "application/vnd.google.protobuf"));
+    }
+
+    @Configuration @ConditionalOnClass(name = "com.fasterxml.jackson.dataformat.smile.SmileFactory")
+    static class SmileCodecConfig {
+
+        @Bean @ConditionalOnMissingBean(name = "serviceBusSmileCodec")
+        public PayloadCodec serviceBusSmileCodec() {
+            return new JacksonPayloadCodec(configure(new ObjectMapper(new SmileFactory())),
+                    Arrays.asList("application/x-jackson-smile", "application/smile"));
+        }
+    }
+
+    @Configuration @ConditionalOnClass(name = "com.fasterxml.jackson.dataformat.cbor.CBORFactory")
+    static class CborCodecConfig {
+
+        @Bean @ConditionalOnMissingBean(name = "serviceBusCborCodec")
+        public PayloadCodec serviceBusCborCodec() {
+            return new JacksonPayloadCodec(configure(new ObjectMapper(new CBORFactory())), Arrays.asList("application/cbor"));
+        }
+    }
+
+    @Configuration @ConditionalOnClass(name = "com.fasterxml.jackson.dataformat.avro.AvroMapper")
+    static class AvroCodecConfig {
+
+        @Bean @ConditionalOnMissingBean(name = "serviceBusAvroCodec")
+        public PayloadCodec serviceBusAvroCodec() {
+            return new AvroPayloadCodec((AvroMapper) configure(new AvroMapper()), Arrays.asList("avro/binary", "application/avro"));
+        }
+    }
+
+    static ObjectMapper configure(ObjectMapper objectMapper) {
+        return objectMapper
+                .registerModule(new JavaTimeModule())
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true);
+    }
+}
@@ -3,25 +3,105 @@ package org.spring.azure.hub.provider;
 import com.azure.messaging.servicebus.ServiceBusClientBuilder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.metrics.ServiceBusMetrics;
+import org.spring.azure.hub.model.properties.ServiceBusProperties;
+import org.spring.azure.hub.utilities.ConnectionStringUtil;
+import org.springframework.beans.factory.ObjectProvider;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
+/**
+ * Hands out client builders per entity. Builders registered in {@code serviceBusClientBuilderConfigurations} are used
+ * as is; every other entity is assigned to the least loaded of {@code connectionsPerNamespace} pooled connections for
+ * its namespace and credential, so processors and senders share AMQP connections instead of opening one each.
+ */
 @Slf4j @RequiredArgsConstructor
 public class ServiceBusConnectionProvider {
 
     protected final Map<String, ServiceBusClientBuilder> serviceBusClientBuilderConfigurations;
+    protected final ServiceBusProperties serviceBusProperties;
+    protected final ObjectProvider<ServiceBusMetrics> serviceBusMetrics;
+    protected final Map<String, List<PooledConnection>> connectionPools = new ConcurrentHashMap<>();
+    protected final Map<String, ServiceBusClientBuilder> transactionalBuilders = new ConcurrentHashMap<>();
 
     public ServiceBusClientBuilder getServiceBusClientBuilder(String name, String connectionString) {
         log.debug("Retrieving ServiceBusClientBuilder for name: '{}'.", name);
-        ServiceBusClientBuilder builder = serviceBusClientBuilderConfigurations.getOrDefault(name, getDefaultValue(connectionString));
-        if (builder == null)
-            log.warn("No ServiceBusClientBuilder found for name: '{}'. Using default configuration with the provided connection string.", name);
-         else
+        ServiceBusClientBuilder builder = serviceBusClientBuilderConfigurations.get(name);
+        if (builder != null) {
             log.debug("ServiceBusClientBuilder successfully retrieved for name: '{}'.", name);
+            return builder;
+        }
+        log.debug("No ServiceBusClientBuilder configured for name: '{}'. Using a pooled connection for its namespace.", name);
+        return getPooledBuilder(name, connectionString);
+    }
+
+    /**
+     * A builder with cross-entity transactions enabled for one processor, which the processor and the senders of its
+     * transactions share; its connection cannot be pooled, as transactions run through the first entity it serves.
+     * Builders registered in {@code serviceBusClientBuilderConfigurations} are used as is.
+     */
+    public ServiceBusClientBuilder getTransactionalBuilder(String name, String processorName, String connectionString) {
+        ServiceBusClientBuilder builder = serviceBusClientBuilderConfigurations.get(name);
+        if (builder != null)
+            return builder;
+        return transactionalBuilders.computeIfAbsent(processorName, key -> {
+            log.info("Creating connection with cross-entity transactions for '{}'", key);
+            return getDefaultValue(ConnectionStringUtil.removeEntityPath(connectionString)).enableCrossEntityTransactions();
+        });
+    }
+
+    /**
+     * Releases the link of a closed client of the entity built from {@code builder}; a no-op for builders that are not
+     * pooled.
+     */
+    public void release(String name, ServiceBusClientBuilder builder) {
+        for (List<PooledConnection> pool : connectionPools.values()) {
+            for (PooledConnection connection : pool) {
+                if (connection.getBuilder() == builder) {
+                    if (connection.release(name))
+                        log.debug("Released link of '{}' on pooled connection {}", name, connection);
+                    return;
+                }
+            }
+        }
+    }
+
+    public Collection<PooledConnection> getPooledConnections() {
+        return connectionPools.values().stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    protected synchronized ServiceBusClientBuilder getPooledBuilder(String name, String connectionString) {
+        String namespaceConnectionString = ConnectionStringUtil.removeEntityPath(connectionString);
+        List<PooledConnection> pool = connectionPools.computeIfAbsent(namespaceConnectionString, this::createPool);
+        PooledConnection connection = pool.stream()
+                .min(Comparator.comparingInt(PooledConnection::getLinkCount))
+                .orElseThrow(() -> new IllegalStateException("Connection pool is empty for " + name));
+        ServiceBusClientBuilder builder = connection.assign(name);
+        log.info("Assigned '{}' to pooled connection {}", name, connection);
         return builder;
     }
 
+    protected List<PooledConnection> createPool(String namespaceConnectionString) {
+        String endpoint = ConnectionStringUtil.getEndpoint(namespaceConnectionString);
+        int size = Math.max(1, serviceBusProperties.getConnectionsPerNamespace());
+        List<PooledConnection> pool = new ArrayList<>(size);
+        ServiceBusMetrics metrics = serviceBusMetrics.getIfAvailable(() -> ServiceBusMetrics.NOOP);
+        for (int index = 0; index < size; index++) {
+            PooledConnection connection = new PooledConnection(endpoint, index, getDefaultValue(namespaceConnectionString));
+            metrics.bindConnection(connection);
+            pool.add(connection);
+        }
+        log.info("Created pool of {} connections for namespace '{}'", size, endpoint);
+        return pool;
+    }
+
     protected ServiceBusClientBuilder getDefaultValue(String connectionString) {
         return new ServiceBusClientBuilder().connectionString(connectionString);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package org.spring.azure.hub.provider;
+
+import org.spring.azure.hub.emulator.LoadGenerator;
+import org.spring.azure.hub.emulator.ServiceBusEmulator;
+import org.spring.azure.hub.model.properties.ServiceBusProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registers the in-memory emulator with {@code servicebus.emulator.enabled=true}. Processors and
+ * {@code MessageBusTemplate} then use it instead of Service Bus.
+ */
+@Configuration @ConditionalOnProperty(prefix = "servicebus.emulator", name = "enabled", havingValue = "true")
+public class ServiceBusEmulatorConfig {
+
+    @Bean(destroyMethod = "close")
+    public ServiceBusEmulator serviceBusEmulator(ServiceBusProperties serviceBusProperties) {
+        ServiceBusProperties.EmulatorConfig emulator = serviceBusProperties.getEmulator();
+        return new ServiceBusEmulator(emulator.getLockDuration(), TimeUnit.SECONDS, emulator.getMaxDeliveryCount());
+    }
+
+    @Bean
+    public LoadGenerator serviceBusLoadGenerator(ServiceBusEmulator serviceBusEmulator) {
+        return new LoadGenerator(serviceBusEmulator);
+    }
+}
@@ -0,0 +1,55 @@
+package org.spring.azure.hub.provider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.spring.azure.hub.metrics.LagTracker;
+import org.spring.azure.hub.metrics.MicrometerServiceBusMetrics;
+import org.spring.azure.hub.metrics.ServiceBusLagEndpoint;
+import org.spring.azure.hub.metrics.ServiceBusMetrics;
+import org.spring.azure.hub.registrar.AnnotatedMethodScanner;
+import org.spring.azure.hub.settings.client.ConfigReloader;
+import org.spring.azure.hub.settings.client.ProcessorRegistry;
+import org.spring.azure.hub.settings.client.ServiceBusProcessorsEndpoint;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Micrometer instrumentation, registered only when Micrometer is on the classpath. Without a {@link MeterRegistry}
+ * bean, or with {@code servicebus.metrics-enabled=false}, processors use {@link ServiceBusMetrics#NOOP}. The lag and
+ * processors endpoints are registered when Spring Boot Actuator is present.
+ */
+public @Configuration class ServiceBusMetricsConfig {
+
+    @Configuration @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class MicrometerMetricsConfig {
+
+        @Bean @ConditionalOnMissingBean
+        public ServiceBusMetrics serviceBusMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+                                                   AnnotatedMethodScanner annotatedMethodScanner,
+                                                   @Value("${servicebus.metrics-enabled:true}") boolean enabled) {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (!enabled || registry == null)
+                return ServiceBusMetrics.NOOP;
+            MicrometerServiceBusMetrics metrics = new MicrometerServiceBusMetrics(registry);
+            metrics.bindAnnotationScanner(annotatedMethodScanner);
+            return metrics;
+        }
+    }
+
+    @Configuration @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    static class EndpointConfig {
+
+        @Bean @ConditionalOnMissingBean
+        public ServiceBusLagEndpoint serviceBusLagEndpoint(LagTracker lagTracker) {
+            return new ServiceBusLagEndpoint(lagTracker);
+        }
+
+        @Bean @ConditionalOnMissingBean
+        public ServiceBusProcessorsEndpoint serviceBusProcessorsEndpoint(ProcessorRegistry processorRegistry, ConfigReloader configReloader) {
+            return new ServiceBusProcessorsEndpoint(processorRegistry, configReloader);
+        }
+    }
+}
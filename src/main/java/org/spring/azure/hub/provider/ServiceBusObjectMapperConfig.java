@@ -1,20 +1,51 @@
 package org.spring.azure.hub.provider;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
 
-public @Configuration class ServiceBusObjectMapperConfig {
+public @Configuration @Slf4j class ServiceBusObjectMapperConfig {
+
+    public static final String HIGH_PERFORMANCE_PROFILE = "high-performance";
+    private static final String BLACKBIRD_MODULE = "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
+    private static final String AFTERBURNER_MODULE = "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
 
     @Bean @ConditionalOnMissingBean(name = "serviceBusClientObjectMapper", value = ObjectMapper.class)
-    public ObjectMapper serviceBusClientObjectMapper() {
+    public ObjectMapper serviceBusClientObjectMapper(@Value("${servicebus.object-mapper-profile:default}") String profile) {
+        if (HIGH_PERFORMANCE_PROFILE.equalsIgnoreCase(profile))
+            return highPerformanceObjectMapper();
         return new ObjectMapper()
                 .enable(SerializationFeature.INDENT_OUTPUT)
                 .registerModule(new JavaTimeModule())
                 .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true);
     }
-}
\ No newline at end of file
+
+    /**
+     * Same deserialization semantics as the default mapper, without pretty printing and with bytecode-generated
+     * accessors from Blackbird (preferred) or Afterburner when either module is on the classpath.
+     */
+    protected ObjectMapper highPerformanceObjectMapper() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true);
+        ClassLoader classLoader = getClass().getClassLoader();
+        String moduleName = ClassUtils.isPresent(BLACKBIRD_MODULE, classLoader) ? BLACKBIRD_MODULE
+                : ClassUtils.isPresent(AFTERBURNER_MODULE, classLoader) ? AFTERBURNER_MODULE : null;
+        if (moduleName == null) {
+            log.warn("High-performance ObjectMapper profile enabled but neither jackson-module-blackbird nor jackson-module-afterburner is on the classpath.");
+            return objectMapper;
+        }
+        Module module = (Module) BeanUtils.instantiateClass(ClassUtils.resolveClassName(moduleName, classLoader));
+        log.info("Using high-performance ObjectMapper profile with {}", module.getModuleName());
+        return objectMapper.registerModule(module);
+    }
+}
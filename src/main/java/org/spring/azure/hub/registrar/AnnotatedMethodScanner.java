@@ -0,0 +1,117 @@
+package org.spring.azure.hub.registrar;
+
+import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.annotation.ErrorHandler;
+import org.spring.azure.hub.annotation.GlobalDeadLetterHandler;
+import org.spring.azure.hub.annotation.GlobalErrorHandler;
+import org.spring.azure.hub.annotation.QueueListener;
+import org.spring.azure.hub.annotation.TopicListener;
+import org.spring.azure.hub.model.dto.AnnotatedMethods;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds the Service Bus annotated methods of bean classes with a single reflective walk per class. Results are cached
+ * by user class, so prototypes and CGLIB proxies of a scanned class are not walked again, and classes that cannot
+ * carry the annotations (such as {@code java.*} types) are skipped without reflection. Classes covered by a
+ * {@link ListenerIndex} are resolved from it instead of being walked.
+ */
+@Slf4j @Component
+public class AnnotatedMethodScanner {
+
+    private static final List<Class<? extends Annotation>> ANNOTATION_TYPES = Arrays.asList(
+            GlobalErrorHandler.class, ErrorHandler.class, GlobalDeadLetterHandler.class, QueueListener.class, TopicListener.class);
+
+    private final Map<Class<?>, AnnotatedMethods> cache = new ConcurrentHashMap<>();
+    private final LongAdder scanNanos = new LongAdder();
+    private final LongAdder scannedClasses = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder indexedClasses = new LongAdder();
+    private final ListenerIndex listenerIndex;
+
+    public AnnotatedMethodScanner() {
+        this(ListenerIndex.load(ClassUtils.getDefaultClassLoader()));
+    }
+
+    public AnnotatedMethodScanner(ListenerIndex listenerIndex) {
+        this.listenerIndex = listenerIndex;
+    }
+
+    public AnnotatedMethods scan(Class<?> beanClass) {
+        Class<?> userClass = ClassUtils.getUserClass(beanClass);
+        AnnotatedMethods methods = cache.get(userClass);
+        if (methods != null) {
+            cacheHits.increment();
+            return methods;
+        }
+        return cache.computeIfAbsent(userClass, this::walk);
+    }
+
+    protected AnnotatedMethods walk(Class<?> type) {
+        long start = System.nanoTime();
+        try {
+            if (!AnnotationUtils.isCandidateClass(type, ANNOTATION_TYPES))
+                return AnnotatedMethods.EMPTY;
+            AnnotatedMethods methods = new AnnotatedMethods();
+            boolean indexed = listenerIndex != null && listenerIndex.covers(type);
+            if (indexed)
+                indexedClasses.increment();
+            for (Method method : indexed ? listenerIndex.getMethods(type) : Arrays.asList(ReflectionUtils.getAllDeclaredMethods(type)))
+                if (method.getDeclaredAnnotations().length > 0)
+                    add(methods, method);
+            return methods.isEmpty() ? AnnotatedMethods.EMPTY : methods;
+        } finally {
+            scannedClasses.increment();
+            scanNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    protected void add(AnnotatedMethods methods, Method method) {
+        if (method.isAnnotationPresent(GlobalErrorHandler.class))
+            methods.getGlobalErrorHandlers().add(method);
+        else if (method.isAnnotationPresent(ErrorHandler.class))
+            methods.getErrorHandlers().add(method);
+        if (method.isAnnotationPresent(GlobalDeadLetterHandler.class))
+            methods.getGlobalDeadLetterHandlers().add(method);
+        if (method.isAnnotationPresent(QueueListener.class))
+            methods.getQueueListeners().add(method);
+        else if (method.isAnnotationPresent(TopicListener.class))
+            methods.getTopicListeners().add(method);
+    }
+
+    /**
+     * Total time spent walking bean classes, excluding cache hits.
+     */
+    public long getScanNanos() {
+        return scanNanos.sum();
+    }
+
+    public long getScannedClasses() {
+        return scannedClasses.sum();
+    }
+
+    /**
+     * Scanned classes that were resolved from a {@link ListenerIndex}.
+     */
+    public long getIndexedClasses() {
+        return indexedClasses.sum();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public void clearCache() {
+        cache.clear();
+    }
+}
@@ -0,0 +1,31 @@
+package org.spring.azure.hub.registrar;
+
+import lombok.RequiredArgsConstructor;
+import org.spring.azure.hub.model.dto.AnnotatedMethods;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scans each bean once and hands the annotated methods to the error handler, dead-letter handler and listener
+ * registrars, in that order.
+ */
+@Component @RequiredArgsConstructor
+public class AnnotationRegistrar implements BeanPostProcessor {
+
+    private final AnnotatedMethodScanner annotatedMethodScanner;
+    private final ErrorHandlerRegistrar errorHandlerRegistrar;
+    private final GlobalDeadLetterHandlerRegistrar globalDeadLetterHandlerRegistrar;
+    private final ListenerRegistrar listenerRegistrar;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        AnnotatedMethods methods = annotatedMethodScanner.scan(bean.getClass());
+        if (methods.isEmpty())
+            return bean;
+        errorHandlerRegistrar.register(bean, methods);
+        globalDeadLetterHandlerRegistrar.register(bean, methods);
+        listenerRegistrar.register(bean, methods);
+        return bean;
+    }
+}
@@ -3,36 +3,28 @@ package org.spring.azure.hub.registrar;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.spring.azure.hub.model.context.ServiceBusSharedResources;
+import org.spring.azure.hub.model.dto.AnnotatedMethods;
 import org.spring.azure.hub.model.dto.ErrorHandlerMethod;
 import org.spring.azure.hub.model.dto.TopicKey;
 import org.spring.azure.hub.registrar.resolver.AnnotationOrderResolver;
 import org.spring.azure.hub.registrar.validator.DuplicateErrorHandlerException;
 import org.spring.azure.hub.registrar.validator.MethodValidator;
 import org.spring.azure.hub.annotation.ErrorHandler;
-import org.spring.azure.hub.annotation.GlobalErrorHandler;
-import org.springframework.beans.BeansException;
-import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.stereotype.Component;
-import org.springframework.util.ReflectionUtils;
 
 import java.lang.reflect.Method;
 
 @Component @Slf4j @RequiredArgsConstructor
-public class ErrorHandlerRegistrar implements BeanPostProcessor {
+public class ErrorHandlerRegistrar {
 
     private final ServiceBusSharedResources sharedResources;
     private final MethodValidator methodValidator;
 
-    @Override
-    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
-        Method[] methods = ReflectionUtils.getAllDeclaredMethods(bean.getClass());
-        for (Method method : methods) {
-            if (method.isAnnotationPresent(GlobalErrorHandler.class))
-                registerGlobalErrorHandler(method, bean);
-            else if (method.isAnnotationPresent(ErrorHandler.class))
-                registerErrorHandler(method, bean);
-        }
-        return bean;
+    public void register(Object bean, AnnotatedMethods methods) {
+        for (Method method : methods.getGlobalErrorHandlers())
+            registerGlobalErrorHandler(method, bean);
+        for (Method method : methods.getErrorHandlers())
+            registerErrorHandler(method, bean);
     }
 
     protected void registerGlobalErrorHandler(Method method, Object bean) {
@@ -3,31 +3,24 @@ package org.spring.azure.hub.registrar;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.spring.azure.hub.model.context.ServiceBusSharedResources;
+import org.spring.azure.hub.model.dto.AnnotatedMethods;
 import org.spring.azure.hub.model.dto.ListenerMethod;
-import org.spring.azure.hub.annotation.GlobalDeadLetterHandler;
 import org.spring.azure.hub.registrar.validator.MethodValidator;
-import org.springframework.beans.BeansException;
-import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
-import org.springframework.util.ReflectionUtils;
 
 import java.lang.reflect.Method;
 
 @Component @Slf4j @RequiredArgsConstructor
-public class GlobalDeadLetterHandlerRegistrar implements BeanPostProcessor {
+public class GlobalDeadLetterHandlerRegistrar {
 
     private final ServiceBusSharedResources sharedResources;
     private final MethodValidator methodValidator;
 
-    @Override
-    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
-        Method[] methods = ReflectionUtils.getAllDeclaredMethods(bean.getClass());
-        for (Method method : methods)
-            if (method.isAnnotationPresent(GlobalDeadLetterHandler.class))
-                registerGlobalDeadLetterListener(method, bean);
-        return bean;
+    public void register(Object bean, AnnotatedMethods methods) {
+        for (Method method : methods.getGlobalDeadLetterHandlers())
+            registerGlobalDeadLetterListener(method, bean);
     }
 
     protected void registerGlobalDeadLetterListener(Method method, Object bean) {
@@ -0,0 +1,134 @@
+package org.spring.azure.hub.registrar;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.SpringProperties;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Annotated methods listed at build time by {@code service-bus-hub-processor} in {@value #INDEX_LOCATION}. An index
+ * covers the jar or class directory it was found in: classes loaded from there are registered from it without a
+ * reflective scan, other classes are scanned as usual. Set {@value #IGNORE_PROPERTY} to {@code true}, as a system
+ * property or in {@code spring.properties}, to ignore all indexes.
+ */
+@Slf4j
+public class ListenerIndex {
+
+    public static final String INDEX_LOCATION = "META-INF/servicebus-hub/listeners.index";
+    public static final String IGNORE_PROPERTY = "servicebus.index.ignore";
+
+    private final Set<String> roots;
+    private final Map<String, List<String[]>> entries;
+    private final ClassLoader classLoader;
+
+    ListenerIndex(Set<String> roots, Map<String, List<String[]>> entries, ClassLoader classLoader) {
+        this.roots = roots;
+        this.entries = entries;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * The merged indexes visible to the class loader, or {@code null} when there are none or they are ignored.
+     */
+    public static ListenerIndex load(ClassLoader classLoader) {
+        if (SpringProperties.getFlag(IGNORE_PROPERTY))
+            return null;
+        try {
+            Enumeration<URL> urls = classLoader.getResources(INDEX_LOCATION);
+            if (!urls.hasMoreElements())
+                return null;
+            Set<String> roots = new HashSet<>();
+            Map<String, List<String[]>> entries = new HashMap<>();
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                String location = url.toString();
+                roots.add(location.substring(0, location.length() - INDEX_LOCATION.length()));
+                read(url, entries);
+            }
+            log.info("Loaded {} Service Bus listener index(es) covering {} classes", roots.size(), entries.size());
+            return new ListenerIndex(roots, entries, classLoader);
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Unable to load Service Bus listener index from '%s'", INDEX_LOCATION), e);
+        }
+    }
+
+    private static void read(URL url, Map<String, List<String[]>> entries) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                String[] entry = line.split("\t", -1);
+                if (entry.length < 4)
+                    throw new IllegalStateException(String.format("Malformed Service Bus listener index entry in '%s': %s", url, line));
+                entries.computeIfAbsent(entry[1], key -> new ArrayList<>()).add(entry);
+            }
+        }
+    }
+
+    /**
+     * Whether the class was loaded from a jar or directory holding an index.
+     */
+    public boolean covers(Class<?> type) {
+        CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null)
+            return false;
+        String location = codeSource.getLocation().toString();
+        if (!location.endsWith("/"))
+            location = "jar:" + location + "!/";
+        return roots.contains(location);
+    }
+
+    /**
+     * Indexed methods declared by the type, its superclasses and interfaces.
+     */
+    public List<Method> getMethods(Class<?> type) {
+        List<Method> methods = new ArrayList<>();
+        for (Class<?> declaringType : ClassUtils.getAllInterfacesForClassAsSet(type, classLoader))
+            addMethods(declaringType, methods);
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass())
+            addMethods(current, methods);
+        return methods.isEmpty() ? Collections.emptyList() : methods;
+    }
+
+    private void addMethods(Class<?> declaringType, List<Method> methods) {
+        List<String[]> declared = entries.get(declaringType.getName());
+        if (declared == null)
+            return;
+        for (String[] entry : declared) {
+            Method method = resolve(declaringType, entry);
+            if (!methods.contains(method))
+                methods.add(method);
+        }
+    }
+
+    private Method resolve(Class<?> declaringType, String[] entry) {
+        try {
+            String[] parameterNames = StringUtils.commaDelimitedListToStringArray(entry[3]);
+            Class<?>[] parameterTypes = new Class<?>[parameterNames.length];
+            for (int i = 0; i < parameterNames.length; i++)
+                parameterTypes[i] = ClassUtils.forName(parameterNames[i], declaringType.getClassLoader());
+            return declaringType.getDeclaredMethod(entry[2], parameterTypes);
+        } catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+            throw new IllegalStateException(String.format(
+                    "Service Bus listener index is out of date: %s#%s(%s) not found. Rebuild the module or set %s=true.",
+                    entry[1], entry[2], entry[3], IGNORE_PROPERTY), e);
+        }
+    }
+}
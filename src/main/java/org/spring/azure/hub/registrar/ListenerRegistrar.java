@@ -4,14 +4,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.spring.azure.hub.model.Constants;
 import org.spring.azure.hub.model.context.ServiceBusSharedResources;
+import org.spring.azure.hub.model.dto.AnnotatedMethods;
 import org.spring.azure.hub.model.dto.TopicKey;
 import org.spring.azure.hub.annotation.QueueListener;
 import org.spring.azure.hub.annotation.TopicListener;
 import org.spring.azure.hub.registrar.validator.MethodValidator;
-import org.springframework.beans.BeansException;
-import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.stereotype.Component;
-import org.springframework.util.ReflectionUtils;
 
 import java.lang.reflect.Method;
 import java.util.stream.Collectors;
@@ -19,21 +17,16 @@ import java.util.stream.Collectors;
 @Component
 @Slf4j
 @RequiredArgsConstructor
-public class ListenerRegistrar implements BeanPostProcessor {
+public class ListenerRegistrar {
 
     private final ServiceBusSharedResources sharedResources;
     private final MethodValidator methodValidator;
 
-    @Override
-    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
-        Method[] methods = ReflectionUtils.getAllDeclaredMethods(bean.getClass());
-        for (Method method : methods) {
-            if (method.isAnnotationPresent(QueueListener.class))
-                registerQueueListener(method, bean);
-            else if (method.isAnnotationPresent(TopicListener.class))
-                registerTopicListener(method, bean);
-        }
-        return bean;
+    public void register(Object bean, AnnotatedMethods methods) {
+        for (Method method : methods.getQueueListeners())
+            registerQueueListener(method, bean);
+        for (Method method : methods.getTopicListeners())
+            registerTopicListener(method, bean);
     }
 
     protected void registerQueueListener(Method method, Object bean) {
@@ -42,7 +35,7 @@ public class ListenerRegistrar implements BeanPostProcessor {
         if (listenerAnnotation.isDeadLetterQueue())
             queueName += Constants.DEAD_LETTER;
         checkDuplicate(method, bean, queueName);
-        methodValidator.validateListenerMethod(method);
+        validate(method, listenerAnnotation.batch(), listenerAnnotation.outputQueue(), listenerAnnotation.outputTopic());
         sharedResources.registerListenerMethod(queueName, bean, method);
         log.info("Registered queue listener for '{}': {}#{}", queueName, bean.getClass().getName(), method.getName());
     }
@@ -53,13 +46,21 @@ public class ListenerRegistrar implements BeanPostProcessor {
         String subscriptionName = listenerAnnotation.subscription();
         if (listenerAnnotation.isDeadLetterQueue())
             subscriptionName += Constants.DEAD_LETTER;
-        methodValidator.validateListenerMethod(method);
+        validate(method, listenerAnnotation.batch(), listenerAnnotation.outputQueue(), listenerAnnotation.outputTopic());
         TopicKey key = new TopicKey(topicName, subscriptionName);
         checkDuplicate(method, bean, key);
         sharedResources.registerListenerMethod(key, bean, method);
         log.info("Registered topic listener for '{}':'{}': {}#{}", topicName, subscriptionName, bean.getClass().getName(), method.getName());
     }
 
+    protected void validate(Method method, boolean batch, String outputQueue, String outputTopic) {
+        if (batch)
+            methodValidator.validateBatchListenerMethod(method);
+        else
+            methodValidator.validateListenerMethod(method);
+        methodValidator.validateListenerOutput(method, batch, outputQueue, outputTopic);
+    }
+
     protected void checkDuplicate(Method method, Object bean, TopicKey key) {
         if (!sharedResources.getTopicListeners().containsKey(key)) return;
         String duplicateListenersInfo = sharedResources.getTopicListeners().values().stream()
@@ -2,10 +2,12 @@ package org.spring.azure.hub.registrar.validator;
 
 import com.azure.messaging.servicebus.ServiceBusErrorContext;
 import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import org.springframework.core.ResolvableType;
 import org.springframework.stereotype.Component;
 
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.List;
 
 @Component
 public class MethodValidator {
@@ -22,6 +24,35 @@ public class MethodValidator {
                     method.getName(), method.getDeclaringClass().getSimpleName()));
     }
 
+    public void validateBatchListenerMethod(Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (parameterTypes.length != 1 || !parameterTypes[0].isAssignableFrom(List.class))
+            throw new IllegalArgumentException(String.format(
+                    "Batch listener method '%s' in class '%s' must have exactly one parameter of type List<T> or List<ServiceBusReceivedMessageContext>.",
+                    method.getName(), method.getDeclaringClass().getSimpleName()));
+        if (ResolvableType.forMethodParameter(method, 0).asCollection().getGeneric(0).resolve() == null)
+            throw new IllegalArgumentException(String.format(
+                    "Batch listener method '%s' in class '%s' must declare the element type of its List parameter.",
+                    method.getName(), method.getDeclaringClass().getSimpleName()));
+    }
+
+    public void validateListenerOutput(Method method, boolean batch, String outputQueue, String outputTopic) {
+        if (outputQueue.isEmpty() && outputTopic.isEmpty())
+            return;
+        if (!outputQueue.isEmpty() && !outputTopic.isEmpty())
+            throw new IllegalArgumentException(String.format(
+                    "Listener method '%s' in class '%s' can set either outputQueue or outputTopic, not both.",
+                    method.getName(), method.getDeclaringClass().getSimpleName()));
+        if (batch)
+            throw new IllegalArgumentException(String.format(
+                    "Batch listener method '%s' in class '%s' cannot forward to an output entity.",
+                    method.getName(), method.getDeclaringClass().getSimpleName()));
+        if (method.getReturnType() == void.class || method.getReturnType() == Void.class)
+            throw new IllegalArgumentException(String.format(
+                    "Listener method '%s' in class '%s' forwards to an output entity and must return a value.",
+                    method.getName(), method.getDeclaringClass().getSimpleName()));
+    }
+
     public void validateErrorHandlerMethod(Method method) {
         Class<?>[] parameterTypes = method.getParameterTypes();
         if (parameterTypes.length != 1 || !ServiceBusErrorContext.class.isAssignableFrom(parameterTypes[0]))
@@ -18,7 +18,11 @@ public class TopicSettings extends AbstractMessagingSettings<ServiceBusPropertie
     }
 
     public void configure(ServiceBusProperties.TopicConfig topicConfig) {
-        topicConfig.getSubscriptions().forEach(subscription -> super.initializeEntityConfiguration(subscription, topicConfig));
+        topicConfig.getSubscriptions().forEach(subscription -> configureSubscription(subscription, topicConfig));
+    }
+
+    public void configureSubscription(ServiceBusProperties.TopicConfig.SubscriptionConfig subscription, ServiceBusProperties.TopicConfig topicConfig) {
+        super.initializeEntityConfiguration(subscription, topicConfig);
     }
 
     @Override
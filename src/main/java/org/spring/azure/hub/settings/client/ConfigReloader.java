@@ -0,0 +1,196 @@
+package org.spring.azure.hub.settings.client;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.model.dto.NameData;
+import org.spring.azure.hub.model.properties.Config;
+import org.spring.azure.hub.model.properties.ServiceBusProperties;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Applies changed {@code servicebus.*} properties to running processors. The properties are bound again from the
+ * Environment and resolved through the same queue, topic and subscription inheritance as at startup; each processor's
+ * effective settings are compared with the ones last resolved for it, and only the processors whose properties changed
+ * are rebuilt, see {@link ManagedProcessor#rebuild}. Only the changed settings are applied, so a processor keeps
+ * settings changed at runtime, such as a {@link ProcessorRegistry#rescale}, until the same property changes. Runs on Spring Cloud's {@code EnvironmentChangeEvent} when it is on the classpath,
+ * or through {@link #reload()}.
+ */
+@Slf4j @RequiredArgsConstructor @Component
+public class ConfigReloader implements ApplicationListener<ApplicationEvent> {
+
+    static final String ENVIRONMENT_CHANGE_EVENT = "org.springframework.cloud.context.environment.EnvironmentChangeEvent";
+
+    /**
+     * Settings bound to state that outlives a rebuild (the entity itself, dead-letter processors, deduplication stores,
+     * lag histograms); changes are logged and need a restart.
+     */
+    static final Set<String> RESTART_PROPERTIES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "enableSession", "enableDeadLettering", "enableCrossEntityTransactions", "nearMissPercent",
+            "deduplicationKey", "deduplicationWindow", "deduplicationCapacity", "deduplicationStore")));
+
+    private final Environment environment;
+    private final ServiceBusProperties serviceBusProperties;
+    private final ProcessorRegistry processorRegistry;
+    /** Settings last resolved per processor name; the ones it was registered with until a reload applied new ones. */
+    private final Map<String, Config> applied = new ConcurrentHashMap<>();
+    private ServiceBusProperties appliedProperties;
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (!ENVIRONMENT_CHANGE_EVENT.equals(event.getClass().getName()))
+            return;
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Failed to reload Service Bus properties", e);
+        }
+    }
+
+    /**
+     * Rebuilds the processors whose effective settings changed, in parallel on up to {@code startupParallelism}
+     * threads, and returns the properties applied per rebuilt processor. Processors that failed to rebuild keep their
+     * previous settings, and the next reload tries the same changes again.
+     */
+    public synchronized Map<String, List<String>> reload() {
+        ServiceBusProperties fresh = new ServiceBusProperties();
+        Binder.get(environment).bind("servicebus", Bindable.ofInstance(fresh));
+        fresh.init();
+        warnRestartRequired("servicebus", appliedProperties != null ? appliedProperties : serviceBusProperties, fresh, ServiceBusProperties.class);
+        appliedProperties = fresh;
+        Map<ManagedProcessor, Config> replacements = new TreeMap<>((a, b) -> a.getName().compareTo(b.getName()));
+        Map<String, Config> resolvedConfigs = new ConcurrentHashMap<>();
+        Map<String, List<String>> changes = new ConcurrentSkipListMap<>();
+        for (ManagedProcessor processor : processorRegistry.getProcessors().values()) {
+            Config previous = applied.computeIfAbsent(processor.getName(), name -> processor.getInitialConfig());
+            Config resolved = resolve(fresh, processor.getNameData());
+            Config replacement = new Config();
+            BeanUtils.copyProperties(processor.getConfig(), replacement);
+            BeanWrapper replacementWrapper = new BeanWrapperImpl(replacement);
+            BeanWrapper resolvedWrapper = new BeanWrapperImpl(resolved);
+            List<String> changed = new ArrayList<>();
+            for (String property : diff(previous, resolved, Config.class)) {
+                if (RESTART_PROPERTIES.contains(property))
+                    continue;
+                replacementWrapper.setPropertyValue(property, resolvedWrapper.getPropertyValue(property));
+                changed.add(property);
+            }
+            warnRestartRequired(processor.getName(), previous, resolved, Config.class);
+            if (changed.isEmpty()) {
+                applied.put(processor.getName(), resolved);
+            } else {
+                replacements.put(processor, replacement);
+                resolvedConfigs.put(processor.getName(), resolved);
+                changes.put(processor.getName(), changed);
+            }
+        }
+        if (replacements.isEmpty()) {
+            log.info("Reloaded Service Bus properties: no processor settings changed");
+            return changes;
+        }
+        log.info("Reloaded Service Bus properties: rebuilding {} of {} processors", replacements.size(), processorRegistry.getProcessors().size());
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(replacements.size(), serviceBusProperties.getStartupParallelism())), runnable -> {
+                    Thread thread = new Thread(runnable, "servicebus-reload-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            CompletableFuture.allOf(replacements.entrySet().stream()
+                    .map(entry -> CompletableFuture.runAsync(() -> {
+                        String name = entry.getKey().getName();
+                        log.info("Rebuilding Service Bus processor for '{}': {} changed", name, changes.get(name));
+                        entry.getKey().rebuild(entry.getValue(), serviceBusProperties.getShutdownTimeout());
+                        applied.put(name, resolvedConfigs.get(name));
+                    }, executor).exceptionally(e -> {
+                        String name = entry.getKey().getName();
+                        log.warn("Failed to rebuild Service Bus processor for '{}', keeping its previous settings", name,
+                                e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                        changes.remove(name);
+                        return null;
+                    }))
+                    .toArray(CompletableFuture[]::new)).join();
+        } finally {
+            executor.shutdown();
+        }
+        return changes;
+    }
+
+    /**
+     * The settings a processor of the entity would get at startup; entities without their own configuration inherit
+     * from their topic or the root, as added by the queue and topic configurers.
+     */
+    protected Config resolve(ServiceBusProperties properties, NameData nameData) {
+        if (!nameData.isTopic())
+            return properties.getQueues().stream()
+                    .filter(queue -> nameData.getQueue().equals(queue.getName()))
+                    .<Config>map(queue -> queue)
+                    .findFirst()
+                    .orElseGet(() -> inherited(properties));
+        ServiceBusProperties.TopicConfig topic = properties.getTopics().stream()
+                .filter(candidate -> nameData.getTopic().equals(candidate.getName()))
+                .findFirst()
+                .orElse(null);
+        if (topic == null)
+            return inherited(properties);
+        return topic.getSubscriptions().stream()
+                .filter(subscription -> nameData.getSubscription().equals(subscription.getName()))
+                .<Config>map(subscription -> subscription)
+                .findFirst()
+                .orElseGet(() -> inherited(topic));
+    }
+
+    protected List<String> diff(Object current, Object resolved, Class<?> type) {
+        BeanWrapper currentWrapper = new BeanWrapperImpl(current);
+        BeanWrapper resolvedWrapper = new BeanWrapperImpl(resolved);
+        List<String> changed = new ArrayList<>();
+        for (PropertyDescriptor property : BeanUtils.getPropertyDescriptors(type)) {
+            if (property.getWriteMethod() == null || property.getReadMethod().getDeclaringClass() != type
+                    || !BeanUtils.isSimpleValueType(property.getPropertyType()))
+                continue;
+            if (!Objects.equals(currentWrapper.getPropertyValue(property.getName()), resolvedWrapper.getPropertyValue(property.getName())))
+                changed.add(property.getName());
+        }
+        return changed;
+    }
+
+    private void warnRestartRequired(String name, Object current, Object resolved, Class<?> type) {
+        List<String> changed = diff(current, resolved, type);
+        if (type == Config.class)
+            changed.retainAll(RESTART_PROPERTIES);
+        if (!changed.isEmpty())
+            log.warn("{} of '{}' changed but only applies after a restart", changed, name);
+    }
+
+    private static Config inherited(Config parent) {
+        Config config = new Config();
+        config.inheritPropertiesFrom(parent);
+        return config;
+    }
+}
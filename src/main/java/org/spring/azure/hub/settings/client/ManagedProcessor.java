@@ -0,0 +1,167 @@
+package org.spring.azure.hub.settings.client;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.model.dto.NameData;
+import org.spring.azure.hub.model.properties.Config;
+import org.spring.azure.hub.model.properties.OrderingKey;
+import org.spring.azure.hub.settings.processor.ProcessorActivity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The processor registered for an entity in {@code ServiceBusSharedResources.getProcessorClients()}. It wraps the
+ * SDK or emulated processor so that it can be paused by an operator and rebuilt with new settings while the
+ * application runs. {@link #start()} and {@link #stop()}, as called at startup, at shutdown and by the circuit
+ * breaker, record whether the processor should run; a paused processor stays stopped until it is resumed.
+ */
+@Slf4j
+public class ManagedProcessor implements ProcessorClient {
+
+    /**
+     * Builds the underlying processor; its listener binding records into the given activity.
+     */
+    @FunctionalInterface
+    public interface Factory {
+        ProcessorClient create(Config config, ProcessorActivity activity);
+    }
+
+    @Getter private final String name;
+    @Getter private final NameData nameData;
+    @Getter private final ProcessorActivity activity = new ProcessorActivity();
+    private final Factory factory;
+    @Getter private volatile Config config;
+    /** The settings the processor was registered with, before any rebuild. */
+    @Getter private final Config initialConfig;
+    private volatile ProcessorClient delegate;
+    private ProcessorActivity delegateActivity;
+    private boolean started;
+    @Getter private volatile boolean paused;
+    private boolean detached;
+    private boolean rebuilding;
+    private boolean closed;
+
+    public ManagedProcessor(String name, NameData nameData, Config config, Factory factory) {
+        this.name = name;
+        this.nameData = nameData;
+        this.config = config;
+        this.initialConfig = config;
+        this.factory = factory;
+        this.delegateActivity = new ProcessorActivity(activity);
+        this.delegate = factory.create(config, delegateActivity);
+    }
+
+    @Override
+    public synchronized void start() {
+        started = true;
+        if (!paused && !detached)
+            delegate.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        started = false;
+        if (!detached)
+            delegate.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return delegate.isRunning();
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        delegate.close();
+    }
+
+    public synchronized void pause() {
+        paused = true;
+        if (!detached)
+            delegate.stop();
+    }
+
+    /**
+     * Starts the processor again unless it was stopped meanwhile, for example by an open circuit breaker, which then
+     * starts it when it probes.
+     */
+    public synchronized void resume() {
+        paused = false;
+        if (started && !detached)
+            delegate.start();
+    }
+
+    /**
+     * Replaces the underlying processor with one built from {@code replacement}, running if the old one was meant to
+     * run. The new processor starts before the old one stops receiving, so the entity is consumed throughout; the old
+     * one then gets up to {@code drainTimeout} seconds to settle its in-flight messages before it is closed. Processors
+     * that order messages by key outside sessions hand over the other way round, as two processors would run the same
+     * key in parallel: the old one drains before the new one starts.
+     */
+    public void rebuild(Config replacement, long drainTimeout) {
+        ProcessorClient previous;
+        ProcessorActivity previousActivity;
+        boolean makeBeforeBreak;
+        synchronized (this) {
+            if (rebuilding || closed)
+                throw new IllegalStateException(String.format("Processor for '%s' is %s", name, closed ? "closed" : "already being rebuilt"));
+            makeBeforeBreak = !isKeyOrdered(config) && !isKeyOrdered(replacement);
+            rebuilding = true;
+            previous = delegate;
+            previousActivity = delegateActivity;
+        }
+        ProcessorActivity nextActivity = new ProcessorActivity(activity);
+        ProcessorClient next;
+        try {
+            next = factory.create(replacement, nextActivity);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                rebuilding = false;
+            }
+            throw e;
+        }
+        if (makeBeforeBreak)
+            install(replacement, next, nextActivity);
+        else
+            synchronized (this) {
+                detached = true;
+            }
+        try {
+            previous.stop();
+            if (!previousActivity.awaitIdle(drainTimeout, TimeUnit.SECONDS))
+                log.warn("'{}' messages of '{}' were still in flight after {} seconds; closing its previous processor anyway",
+                        previousActivity.getInFlight(), name, drainTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Failed to stop the previous processor of '{}'", name, e);
+        }
+        try {
+            previous.close();
+        } catch (RuntimeException e) {
+            log.warn("Failed to close the previous processor of '{}'", name, e);
+        } finally {
+            if (!makeBeforeBreak)
+                install(replacement, next, nextActivity);
+            synchronized (this) {
+                rebuilding = false;
+            }
+        }
+    }
+
+    private synchronized void install(Config replacement, ProcessorClient next, ProcessorActivity nextActivity) {
+        delegate = next;
+        delegateActivity = nextActivity;
+        config = replacement;
+        detached = false;
+        if (closed)
+            next.close();
+        else if (started && !paused)
+            next.start();
+    }
+
+    private static boolean isKeyOrdered(Config config) {
+        return OrderingKey.valueOf(config.getOrderingKey()) != OrderingKey.NONE && !config.getEnableSession();
+    }
+}
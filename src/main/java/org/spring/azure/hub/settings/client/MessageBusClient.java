@@ -1,30 +1,86 @@
 package org.spring.azure.hub.settings.client;
 
 import com.azure.messaging.servicebus.ServiceBusClientBuilder;
-import com.azure.messaging.servicebus.ServiceBusProcessorClient;
+import com.azure.messaging.servicebus.ServiceBusErrorContext;
+import com.azure.messaging.servicebus.ServiceBusErrorSource;
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
 import com.azure.messaging.servicebus.models.ServiceBusReceiveMode;
 import com.azure.messaging.servicebus.models.SubQueue;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.emulator.EmulatedProcessorClient;
+import org.spring.azure.hub.emulator.EmulatorRedeliverer;
+import org.spring.azure.hub.emulator.EmulatorSettler;
+import org.spring.azure.hub.emulator.ServiceBusEmulator;
+import org.spring.azure.hub.metrics.EntityMetrics;
+import org.spring.azure.hub.metrics.LagTracker;
+import org.spring.azure.hub.metrics.ServiceBusMetrics;
 import org.spring.azure.hub.model.Constants;
 import org.spring.azure.hub.model.context.ServiceBusSharedResources;
 import org.spring.azure.hub.model.dto.ErrorHandlerMethod;
+import org.spring.azure.hub.model.dto.ListenerBinding;
 import org.spring.azure.hub.model.dto.ListenerMethod;
+import org.spring.azure.hub.model.dto.OutputEntity;
+import org.spring.azure.hub.model.properties.BatchFailurePolicy;
 import org.spring.azure.hub.model.properties.CompletionMode;
 import org.spring.azure.hub.model.properties.Config;
+import org.spring.azure.hub.model.properties.DispatchMode;
+import org.spring.azure.hub.model.properties.OrderingKey;
+import org.spring.azure.hub.model.properties.TimeoutPolicy;
 import org.spring.azure.hub.provider.ServiceBusConnectionProvider;
 import org.spring.azure.hub.settings.processor.MessageProcessor;
+import org.spring.azure.hub.settings.processor.MessageSettler;
+import org.spring.azure.hub.settings.processor.ProcessorActivity;
+import org.spring.azure.hub.settings.processor.batch.BatchAccumulator;
+import org.spring.azure.hub.settings.processor.breaker.CircuitBreakerController;
+import org.spring.azure.hub.settings.processor.dedup.DeduplicationStores;
+import org.spring.azure.hub.settings.processor.dedup.Deduplicator;
+import org.spring.azure.hub.settings.processor.dispatch.AdaptiveConcurrencyController;
+import org.spring.azure.hub.settings.processor.dispatch.Bulkhead;
+import org.spring.azure.hub.settings.processor.dispatch.DispatchExecutors;
+import org.spring.azure.hub.settings.processor.dispatch.KeyedSerialExecutor;
+import org.spring.azure.hub.settings.processor.dispatch.MessageDispatcher;
+import org.spring.azure.hub.settings.processor.forward.Forwarder;
+import org.spring.azure.hub.settings.processor.forward.Forwarders;
+import org.spring.azure.hub.settings.processor.invoker.ListenerInvoker;
+import org.spring.azure.hub.settings.processor.retry.DeferredRedeliverer;
+import org.spring.azure.hub.settings.processor.retry.Redeliverer;
+import org.spring.azure.hub.settings.processor.retry.RetryPolicy;
+import org.spring.azure.hub.settings.processor.retry.RetryScheduler;
+import org.spring.azure.hub.settings.processor.retry.ScheduledCopyRedeliverer;
+import org.spring.azure.hub.settings.processor.session.SessionStateCache;
 import org.spring.azure.hub.model.dto.NameData;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @Slf4j @RequiredArgsConstructor @Component
 public class MessageBusClient {
 
     private final ServiceBusSharedResources sharedResources;
     private final MessageProcessor messageProcessor;
+    private final MessageDispatcher messageDispatcher;
+    private final DispatchExecutors dispatchExecutors;
+    private final AdaptiveConcurrencyController concurrencyController;
     private final ServiceBusConnectionProvider clientProvider;
+    private final ObjectProvider<ServiceBusMetrics> serviceBusMetrics;
+    private final LagTracker lagTracker;
+    private final ObjectProvider<ServiceBusEmulator> serviceBusEmulator;
+    private final DeduplicationStores deduplicationStores;
+    private final RetryScheduler retryScheduler;
+    private final CircuitBreakerController circuitBreakerController;
+    private final ProcessorRegistry processorRegistry;
+    private final Forwarders forwarders;
+    private final SessionStateCache sessionStateCache;
+    private final Map<String, DeferredRedeliverer> deferredRedeliverers = new ConcurrentHashMap<>();
+    private final Map<String, ScheduledCopyRedeliverer> scheduledCopyRedeliverers = new ConcurrentHashMap<>();
 
     public void configureMessageClient(NameData nameData,
                                        Config config,
@@ -36,60 +92,360 @@ public class MessageBusClient {
         if(isDeadLetter)
             name = name + Constants.DEAD_LETTER;
         log.info("Configuring Service Bus processor for '{}'", name);
-        sharedResources.getProcessorClients().put(name,
-                config.getEnableSession() ?
-                        withSessionProcessor(nameData, connectionString, config, listener, errorHandler, isDeadLetter)
-                        : processor(nameData, connectionString, config, listener, errorHandler, isDeadLetter));
+        ServiceBusEmulator emulator = serviceBusEmulator.getIfAvailable();
+        processorRegistry.register(name, nameData, config, (processorConfig, activity) ->
+                emulator != null ? emulatedProcessor(emulator, nameData, processorConfig, listener, errorHandler, isDeadLetter, activity)
+                        : processorConfig.getEnableSession() ?
+                        withSessionProcessor(nameData, connectionString, processorConfig, listener, errorHandler, isDeadLetter, activity)
+                        : processor(nameData, connectionString, processorConfig, listener, errorHandler, isDeadLetter, activity));
         log.info("Successfully registered processor for '{}', dead letter processor: '{}'", name, isDeadLetter);
     }
 
-    protected ServiceBusProcessorClient processor(NameData nameData,
+    protected ProcessorClient processor(NameData nameData,
                                                   String connectionString,
                                                   Config config,
                                                   ListenerMethod listener,
                                                   ErrorHandlerMethod errorHandler,
-                                                  boolean isDeadLetter) {
+                                                  boolean isDeadLetter,
+                                                  ProcessorActivity activity) {
         String name = nameData.getName();
+        String processorName = isDeadLetter ? name + Constants.DEAD_LETTER : name;
         boolean isConditional = CompletionMode.CONDITIONAL == CompletionMode.valueOf(config.getAutoComplete());
-        ServiceBusClientBuilder.ServiceBusProcessorClientBuilder processorBuilder = clientProvider.getServiceBusClientBuilder(name, connectionString)
+        OutputEntity output = getOutput(processorName, config, listener, isConditional);
+        ServiceBusClientBuilder clientBuilder = getClientBuilder(name, processorName, connectionString, config, output);
+        Redeliverer redeliverer = !isRetried(name, config, listener, isConditional, isDeadLetter) ? null
+                : nameData.isTopic() ? getDeferredRedeliverer(processorName, nameData, connectionString, errorHandler)
+                : getScheduledCopyRedeliverer(processorName, nameData, connectionString);
+        ListenerBinding binding = createBinding(name, config, listener, isConditional, isDeadLetter, MessageSettler.SDK, redeliverer,
+                createForwarder(processorName, connectionString, config, output, clientBuilder), activity);
+        if (redeliverer instanceof DeferredRedeliverer)
+            ((DeferredRedeliverer) redeliverer).bind(binding);
+        ServiceBusClientBuilder.ServiceBusProcessorClientBuilder processorBuilder = clientBuilder
                 .processor()
                 .topicName(nameData.getTopic())
                 .subscriptionName(nameData.getSubscription())
                 .queueName(nameData.getQueue())
                 .subQueue(isDeadLetter ? SubQueue.DEAD_LETTER_QUEUE : SubQueue.NONE)
                 .receiveMode(ServiceBusReceiveMode.valueOf(config.getReceiveMode()))
-                .maxConcurrentCalls(config.getMaxConcurrentCalls())
+                .maxConcurrentCalls(getReceiveConcurrency(name, config, listener, binding))
                 .maxAutoLockRenewDuration(Duration.ofSeconds(config.getMaxAutoLockRenewDuration()))
                 .prefetchCount(config.getPrefetchCount())
-                .processMessage(messageContext -> messageProcessor.processMessage(name, listener, messageContext, isConditional, config.getAbandonOnSerializationError()))
-                .processError(errorContext -> messageProcessor.handleError(errorHandler, errorContext));
+                .processMessage(messageContext -> messageDispatcher.dispatch(binding, errorHandler, messageContext))
+                .processError(errorContext -> handleProcessError(binding, errorHandler, errorContext));
         if (isConditional)
             processorBuilder.disableAutoComplete();
-        return processorBuilder.buildProcessorClient();
+        return ProcessorClient.of(processorBuilder.buildProcessorClient(), () -> clientProvider.release(name, clientBuilder));
     }
 
-    protected ServiceBusProcessorClient withSessionProcessor(NameData nameData,
+    protected ProcessorClient withSessionProcessor(NameData nameData,
                                                              String connectionString,
                                                              Config config,
                                                              ListenerMethod listener,
                                                              ErrorHandlerMethod errorHandler,
-                                                             boolean isDeadLetter) {
+                                                             boolean isDeadLetter,
+                                                             ProcessorActivity activity) {
         String name = nameData.getName();
+        String processorName = isDeadLetter ? name + Constants.DEAD_LETTER : name;
         boolean isConditional = CompletionMode.CONDITIONAL == CompletionMode.valueOf(config.getAutoComplete());
-        ServiceBusClientBuilder.ServiceBusSessionProcessorClientBuilder processorBuilder = clientProvider.getServiceBusClientBuilder(name, connectionString)
+        if (config.getMaxRetries() > 0 && !isDeadLetter)
+            log.warn("maxRetries for '{}' is ignored on session entities, as retries would break the session order; failed messages are abandoned", name);
+        OutputEntity output = getOutput(processorName, config, listener, isConditional);
+        ServiceBusClientBuilder clientBuilder = getClientBuilder(name, processorName, connectionString, config, output);
+        ListenerBinding binding = createBinding(name, config, listener, isConditional, isDeadLetter, MessageSettler.SDK, null,
+                createForwarder(processorName, connectionString, config, output, clientBuilder), activity);
+        sessionStateCache.registerSessionIdleTimeout(config.getSessionIdleTimeout());
+        ServiceBusClientBuilder.ServiceBusSessionProcessorClientBuilder processorBuilder = clientBuilder
                 .sessionProcessor()
                 .topicName(nameData.getTopic())
                 .subscriptionName(nameData.getSubscription())
                 .queueName(nameData.getQueue())
                 .subQueue(isDeadLetter ? SubQueue.DEAD_LETTER_QUEUE : SubQueue.NONE)
                 .receiveMode(ServiceBusReceiveMode.valueOf(config.getReceiveMode()))
-                .maxConcurrentCalls(config.getMaxConcurrentCalls())
+                .maxConcurrentCalls(getReceiveConcurrency(name, config, listener, binding))
+                .maxConcurrentSessions(config.getMaxConcurrentSessions())
                 .maxAutoLockRenewDuration(Duration.ofSeconds(config.getMaxAutoLockRenewDuration()))
                 .prefetchCount(config.getPrefetchCount())
-                .processMessage(messageContext -> messageProcessor.processMessage(name, listener, messageContext, isConditional, config.getAbandonOnSerializationError()))
-                .processError(errorContext -> messageProcessor.handleError(errorHandler, errorContext));
-        if (CompletionMode.CONDITIONAL == CompletionMode.valueOf(config.getAutoComplete()))
+                .processMessage(messageContext -> messageDispatcher.dispatch(binding, errorHandler, messageContext))
+                .processError(errorContext -> handleProcessError(binding, errorHandler, errorContext));
+        if (config.getSessionIdleTimeout() > 0)
+            processorBuilder.sessionIdleTimeout(Duration.ofSeconds(config.getSessionIdleTimeout()));
+        if (isConditional)
             processorBuilder.disableAutoComplete();
-        return processorBuilder.buildProcessorClient();
+        return ProcessorClient.of(processorBuilder.buildProcessorClient(), () -> clientProvider.release(name, clientBuilder));
+    }
+
+    /**
+     * Same callbacks as the SDK processors, receiving from the emulator; the framework settles against it too.
+     */
+    protected ProcessorClient emulatedProcessor(ServiceBusEmulator emulator,
+                                                NameData nameData,
+                                                Config config,
+                                                ListenerMethod listener,
+                                                ErrorHandlerMethod errorHandler,
+                                                boolean isDeadLetter,
+                                                ProcessorActivity activity) {
+        String name = nameData.getName();
+        boolean isConditional = CompletionMode.CONDITIONAL == CompletionMode.valueOf(config.getAutoComplete());
+        OutputEntity output = getOutput(isDeadLetter ? name + Constants.DEAD_LETTER : name, config, listener, isConditional);
+        ListenerBinding binding = createBinding(name, config, listener, isConditional, isDeadLetter, new EmulatorSettler(emulator),
+                isRetried(name, config, listener, isConditional, isDeadLetter) ? new EmulatorRedeliverer(emulator) : null,
+                output != null ? forwarders.emulator(emulator, output) : null, activity);
+        return EmulatedProcessorClient.builder()
+                .emulator(emulator)
+                .entity(emulator.entity(nameData.getTopic(), nameData.isTopic() ? nameData.getSubscription() : nameData.getQueue(), isDeadLetter))
+                .sessionEnabled(config.getEnableSession())
+                .maxConcurrentCalls(config.getEnableSession() ? config.getMaxConcurrentSessions() : getReceiveConcurrency(name, config, listener, binding))
+                .sessionIdleTimeoutNanos(TimeUnit.SECONDS.toNanos(config.getSessionIdleTimeout()))
+                .lockRenewalNanos(TimeUnit.SECONDS.toNanos(config.getMaxAutoLockRenewDuration()))
+                .autoComplete(!isConditional)
+                .receiveAndDelete(ServiceBusReceiveMode.RECEIVE_AND_DELETE == ServiceBusReceiveMode.valueOf(config.getReceiveMode()))
+                .processMessage(messageContext -> messageDispatcher.dispatch(binding, errorHandler, messageContext))
+                .processError(errorContext -> handleProcessError(binding, errorHandler, errorContext))
+                .build();
+    }
+
+    protected ListenerBinding createBinding(String name, Config config, ListenerMethod listener, boolean isConditional,
+                                            boolean isDeadLetter, MessageSettler settler, Redeliverer redeliverer,
+                                            Forwarder forwarder, ProcessorActivity activity) {
+        ListenerInvoker invoker = listener.getInvoker();
+        String processorName = isDeadLetter ? name + Constants.DEAD_LETTER : name;
+        Executor executor = getDispatchExecutor(processorName, config, invoker, isConditional);
+        Function<ServiceBusReceivedMessageContext, String> orderingKey = createOrderingKey(processorName, config, executor);
+        EntityMetrics metrics = serviceBusMetrics.getIfAvailable(() -> ServiceBusMetrics.NOOP).entity(name, isDeadLetter);
+        Deduplicator deduplicator = deduplicationStores.get(processorName, config);
+        if (deduplicator != null)
+            metrics.bindDeduplicator(deduplicator);
+        return ListenerBinding.builder()
+                .name(name)
+                .invoker(invoker)
+                .payloadReader(messageProcessor.createPayloadReader(invoker))
+                .conditional(isConditional)
+                .autoAck(invoker.isAutoAck(isConditional))
+                .abandonOnSerializationError(config.getAbandonOnSerializationError())
+                .batchAccumulator(invoker.isBatch()
+                        ? new BatchAccumulator(config.getMaxBatchSize(), TimeUnit.MILLISECONDS.toNanos(config.getMaxBatchWaitTime()))
+                        : null)
+                .batchFailurePolicy(BatchFailurePolicy.valueOf(config.getBatchFailurePolicy()))
+                .executor(executor)
+                .bulkhead(createBulkhead(processorName, config, listener, executor))
+                .orderedExecutor(orderingKey != null ? new KeyedSerialExecutor(executor, config.getMaxKeysInFlight()) : null)
+                .orderingKey(orderingKey)
+                .deduplicator(deduplicator)
+                .retryPolicy(redeliverer != null ? new RetryPolicy(config.getMaxRetries(), config.getRetryBackoff(), config.getRetryMaxBackoff()) : null)
+                .redeliverer(redeliverer)
+                .circuitBreaker(circuitBreakerController.register(processorName, config, metrics))
+                .timeout(getListenerTimeout(processorName, config, listener))
+                .timeoutPolicy(TimeoutPolicy.valueOf(config.getTimeoutPolicy()))
+                .forwarder(forwarder)
+                .metrics(metrics)
+                .activity(activity)
+                .settler(settler)
+                .histograms(config.getLagTracking() ? lagTracker.register(processorName, config.getNearMissPercent(), metrics) : null)
+                .build();
+    }
+
+    /**
+     * The listener's annotated {@code timeout}, or else the entity's {@code listenerTimeout}. A timeout longer than
+     * {@code maxAutoLockRenewDuration} lets the lock expire before the listener is given up on.
+     */
+    protected long getListenerTimeout(String name, Config config, ListenerMethod listener) {
+        long timeout = ListenerInvoker.timeout(listener.getMethod());
+        if (timeout < 0)
+            timeout = config.getListenerTimeout();
+        if (timeout <= 0)
+            return 0;
+        long lockRenewal = TimeUnit.SECONDS.toMillis(config.getMaxAutoLockRenewDuration());
+        if (lockRenewal > 0 && timeout > lockRenewal)
+            log.warn("Listener timeout {} ms for '{}' exceeds maxAutoLockRenewDuration of {} ms; the lock can expire first",
+                    timeout, name, lockRenewal);
+        log.info("Listener timeout for '{}' is {} ms, {} on timeout", name, timeout, config.getTimeoutPolicy());
+        return timeout;
+    }
+
+    /**
+     * The listener's {@code outputQueue} or {@code outputTopic}. Forwarding completes the input message with the send,
+     * so the framework must settle it: CONDITIONAL completion, PEEK_LOCK and no {@code ServiceBusReceivedMessageContext}
+     * parameter.
+     */
+    protected OutputEntity getOutput(String name, Config config, ListenerMethod listener, boolean isConditional) {
+        OutputEntity output = ListenerInvoker.output(listener.getMethod());
+        if (output == null)
+            return null;
+        if (!listener.getInvoker().isAutoAck(isConditional)
+                || ServiceBusReceiveMode.RECEIVE_AND_DELETE == ServiceBusReceiveMode.valueOf(config.getReceiveMode()))
+            throw new IllegalStateException(String.format(
+                    "Listener for '%s' forwards to %s, which requires CONDITIONAL completion, PEEK_LOCK and no ServiceBusReceivedMessageContext parameter",
+                    name, output));
+        log.info("Forwarding results of '{}' to {}{}", name, output,
+                config.getEnableCrossEntityTransactions() ? " in cross-entity transactions" : "");
+        return output;
+    }
+
+    /**
+     * Processors that forward in cross-entity transactions get a connection of their own, shared with the sender of
+     * their output; every other processor uses its entity's builder.
+     */
+    protected ServiceBusClientBuilder getClientBuilder(String name, String processorName, String connectionString, Config config, OutputEntity output) {
+        if (output != null && config.getEnableCrossEntityTransactions())
+            return clientProvider.getTransactionalBuilder(name, processorName, connectionString);
+        return clientProvider.getServiceBusClientBuilder(name, connectionString);
+    }
+
+    /**
+     * Transactional senders share the processor's connection; other senders get a pooled connection of their own.
+     */
+    protected Forwarder createForwarder(String processorName, String connectionString, Config config, OutputEntity output,
+                                        ServiceBusClientBuilder clientBuilder) {
+        if (output == null)
+            return null;
+        boolean transactional = config.getEnableCrossEntityTransactions();
+        return forwarders.sender(processorName, output, transactional,
+                () -> transactional ? clientBuilder : clientProvider.getServiceBusClientBuilder(output.getName(), connectionString));
+    }
+
+    /**
+     * Processor errors other than listener failures, which the dispatcher already recorded, count against the circuit
+     * breaker.
+     */
+    protected void handleProcessError(ListenerBinding binding, ErrorHandlerMethod errorHandler, ServiceBusErrorContext errorContext) {
+        if (binding.getCircuitBreaker() != null && errorContext.getErrorSource() != ServiceBusErrorSource.USER_CALLBACK)
+            binding.getCircuitBreaker().recordError();
+        messageProcessor.handleError(binding, errorHandler, errorContext);
+    }
+
+    /**
+     * One per queue for the lifetime of the application, so that rebuilt processors share its sender instead of each
+     * leaving one behind.
+     */
+    protected ScheduledCopyRedeliverer getScheduledCopyRedeliverer(String processorName, NameData nameData, String connectionString) {
+        return scheduledCopyRedeliverers.computeIfAbsent(processorName, key -> retryScheduler.track(new ScheduledCopyRedeliverer(
+                () -> clientProvider.getServiceBusClientBuilder(nameData.getName(), connectionString)
+                        .sender().queueName(nameData.getQueue()).buildClient())));
+    }
+
+    /**
+     * One per subscription for the lifetime of the application, so that retries deferred by a processor that was
+     * rebuilt since are still received and dispatched to the processor that replaced it.
+     */
+    protected DeferredRedeliverer getDeferredRedeliverer(String processorName, NameData nameData, String connectionString, ErrorHandlerMethod errorHandler) {
+        return deferredRedeliverers.computeIfAbsent(processorName, key -> retryScheduler.track(new DeferredRedeliverer(retryScheduler,
+                (retried, message) -> messageDispatcher.dispatch(retried, errorHandler, message),
+                () -> clientProvider.getServiceBusClientBuilder(nameData.getName(), connectionString).receiver()
+                        .topicName(nameData.getTopic())
+                        .subscriptionName(nameData.getSubscription())
+                        .buildAsyncClient())));
+    }
+
+    /**
+     * Whether failed messages are redelivered with backoff. The framework must settle them (CONDITIONAL mode, single
+     * message listeners); session messages are not retried as that would break their order, and dead-letter
+     * processors keep abandoning.
+     */
+    protected boolean isRetried(String name, Config config, ListenerMethod listener, boolean isConditional, boolean isDeadLetter) {
+        if (config.getMaxRetries() <= 0 || isDeadLetter)
+            return false;
+        if (!isConditional || listener.getInvoker().isBatch() || config.getEnableSession()) {
+            log.warn("maxRetries for '{}' requires CONDITIONAL completion, a non-batch listener and no sessions; failed messages are abandoned", name);
+            return false;
+        }
+        log.info("Retrying '{}' up to {} times with backoff from {} to {} ms", name, config.getMaxRetries(), config.getRetryBackoff(), config.getRetryMaxBackoff());
+        return true;
+    }
+
+    /**
+     * Messages run in parallel across keys and one at a time per key, so settlement per key follows the receive order.
+     * Ordering needs hand-off dispatch; on the callback thread only {@code maxConcurrentCalls} 1 keeps the order.
+     * Session entities default to their session id.
+     */
+    protected Function<ServiceBusReceivedMessageContext, String> createOrderingKey(String name, Config config, Executor executor) {
+        OrderingKey key = OrderingKey.valueOf(config.getOrderingKey());
+        if (key == OrderingKey.NONE && config.getEnableSession())
+            key = OrderingKey.SESSION_ID;
+        if (key == OrderingKey.NONE)
+            return null;
+        if (executor == null) {
+            if (!config.getEnableSession() && config.getMaxConcurrentCalls() > 1)
+                log.warn("orderingKey {} for '{}' requires dispatchMode POOL or VIRTUAL; with {} concurrent calls on the caller thread messages are not ordered",
+                        key, name, config.getMaxConcurrentCalls());
+            return null;
+        }
+        String property = config.getOrderingProperty();
+        if (key == OrderingKey.PROPERTY && !StringUtils.hasText(property))
+            throw new IllegalStateException(String.format("orderingKey PROPERTY for '%s' requires orderingProperty", name));
+        log.info("Dispatching '{}' ordered by {}{}, maxKeysInFlight {}", name, key,
+                key == OrderingKey.PROPERTY ? " '" + property + "'" : "",
+                config.getMaxKeysInFlight() > 0 ? config.getMaxKeysInFlight() : "unbounded");
+        switch (key) {
+            case SESSION_ID:
+                return message -> message.getMessage().getSessionId();
+            case PARTITION_KEY:
+                return message -> message.getMessage().getPartitionKey();
+            default:
+                return message -> {
+                    Object value = message.getMessage().getApplicationProperties().get(property);
+                    return value != null ? value.toString() : null;
+                };
+        }
+    }
+
+    /**
+     * Hand-off dispatch is bounded by {@code maxInFlight}; with adaptive concurrency the bulkhead also gates callback
+     * thread dispatch, below the processor's {@code maxConcurrentCalls}, and its limit is registered for adjustment.
+     */
+    protected Bulkhead createBulkhead(String name, Config config, ListenerMethod listener, Executor executor) {
+        boolean adaptive = config.getAdaptiveConcurrency();
+        if (adaptive && listener.getInvoker().isBatch()) {
+            log.warn("Adaptive concurrency is not supported for batch listener '{}'", name);
+            adaptive = false;
+        }
+        if (executor == null && !adaptive)
+            return null;
+        int ceiling = executor != null ? config.getMaxInFlight() : getMaxConcurrentCalls(name, config, listener);
+        Bulkhead bulkhead = new Bulkhead(name, ceiling);
+        if (adaptive)
+            concurrencyController.register(bulkhead, config.getMinConcurrency(), ceiling, config.getTargetLatency());
+        return bulkhead;
+    }
+
+    /**
+     * Listeners can only leave the callback thread when the framework settles messages itself (CONDITIONAL mode);
+     * in AUTO mode the SDK completes the message as soon as the callback returns. Batch listeners already block the
+     * callback until their batch is dispatched and always run on it.
+     */
+    protected Executor getDispatchExecutor(String name, Config config, ListenerInvoker invoker, boolean isConditional) {
+        DispatchMode mode = DispatchMode.valueOf(config.getDispatchMode());
+        if (mode == DispatchMode.CALLER)
+            return null;
+        if (!isConditional || invoker.isBatch()) {
+            log.warn("Dispatch mode {} for '{}' requires CONDITIONAL completion and a non-batch listener, running on the caller thread",
+                    mode, name);
+            return null;
+        }
+        log.info("Dispatching '{}' with {} executor, maxInFlight {}", name, mode, config.getMaxInFlight());
+        return dispatchExecutors.get(name, mode, config.getMaxInFlight());
+    }
+
+    /**
+     * Ordered bindings receive with a single callback (per session), so messages reach the keyed executor in the order
+     * they were received; listeners still run in parallel across keys.
+     */
+    protected int getReceiveConcurrency(String name, Config config, ListenerMethod listener, ListenerBinding binding) {
+        if (binding.getOrderedExecutor() == null)
+            return getMaxConcurrentCalls(name, config, listener);
+        if (config.getMaxConcurrentCalls() > 1)
+            log.info("Receiving '{}' with one concurrent call to keep the order of its keys; up to maxInFlight {} messages run in parallel",
+                    name, config.getMaxInFlight());
+        return 1;
+    }
+
+    /**
+     * Batches are filled by concurrent callbacks, so a batch listener needs at least {@code maxBatchSize} concurrent calls.
+     */
+    protected int getMaxConcurrentCalls(String name, Config config, ListenerMethod listener) {
+        if (!listener.getInvoker().isBatch() || config.getMaxConcurrentCalls() >= config.getMaxBatchSize())
+            return config.getMaxConcurrentCalls();
+        log.info("Raising maxConcurrentCalls for batch listener '{}' from {} to maxBatchSize {}",
+                name, config.getMaxConcurrentCalls(), config.getMaxBatchSize());
+        return config.getMaxBatchSize();
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package org.spring.azure.hub.settings.client;
+
+import com.azure.messaging.servicebus.ServiceBusProcessorClient;
+
+/**
+ * Lifecycle of a processor, implemented by the SDK {@link ServiceBusProcessorClient} and by the in-memory emulator.
+ */
+public interface ProcessorClient extends AutoCloseable {
+
+    void start();
+
+    void stop();
+
+    boolean isRunning();
+
+    @Override
+    void close();
+
+    static ProcessorClient of(ServiceBusProcessorClient processorClient) {
+        return new SdkProcessorClient(processorClient, null);
+    }
+
+    /**
+     * @param onClose runs after the processor was closed, for example to release its pooled connection link
+     */
+    static ProcessorClient of(ServiceBusProcessorClient processorClient, Runnable onClose) {
+        return new SdkProcessorClient(processorClient, onClose);
+    }
+}
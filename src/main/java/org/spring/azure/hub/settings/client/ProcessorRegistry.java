@@ -0,0 +1,108 @@
+package org.spring.azure.hub.settings.client;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.model.context.ServiceBusSharedResources;
+import org.spring.azure.hub.model.dto.NameData;
+import org.spring.azure.hub.model.dto.ProcessorStatus;
+import org.spring.azure.hub.model.properties.Config;
+import org.spring.azure.hub.model.properties.ServiceBusProperties;
+import org.spring.azure.hub.settings.processor.breaker.CircuitBreaker;
+import org.spring.azure.hub.settings.processor.breaker.CircuitBreakerController;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runtime control of the registered processors, by processor name ({@code queue}, {@code topic/subscription}, with
+ * {@code /$DeadLetterQueue} for dead-letter processors): pause, resume, rebuild with a different concurrency or
+ * prefetch count, and live status.
+ */
+@Slf4j @RequiredArgsConstructor @Component
+public class ProcessorRegistry {
+
+    private final ServiceBusSharedResources sharedResources;
+    private final ServiceBusProperties serviceBusProperties;
+    private final CircuitBreakerController circuitBreakerController;
+    private final Map<String, ManagedProcessor> processors = new ConcurrentHashMap<>();
+
+    /**
+     * Builds the processor and registers it in {@link ServiceBusSharedResources#getProcessorClients()}.
+     */
+    public ManagedProcessor register(String name, NameData nameData, Config config, ManagedProcessor.Factory factory) {
+        ManagedProcessor processor = new ManagedProcessor(name, nameData, config, factory);
+        processors.put(name, processor);
+        sharedResources.getProcessorClients().put(name, processor);
+        return processor;
+    }
+
+    public Map<String, ManagedProcessor> getProcessors() {
+        return processors;
+    }
+
+    public void pause(String name) {
+        get(name).pause();
+        log.info("Paused Service Bus processor for '{}'", name);
+    }
+
+    public void resume(String name) {
+        get(name).resume();
+        log.info("Resumed Service Bus processor for '{}'", name);
+    }
+
+    /**
+     * Rebuilds the processor with the given settings, keeping the others; {@code null} keeps the current value. The
+     * call returns once the previous processor drained its in-flight messages, for at most {@code shutdownTimeout}
+     * seconds, see {@link ManagedProcessor#rebuild}.
+     */
+    public ProcessorStatus rescale(String name, Integer maxConcurrentCalls, Integer prefetchCount) {
+        ManagedProcessor processor = get(name);
+        if (maxConcurrentCalls != null && maxConcurrentCalls < 1)
+            throw new IllegalArgumentException(String.format("maxConcurrentCalls for '%s' must be at least 1, was %d", name, maxConcurrentCalls));
+        if (prefetchCount != null && prefetchCount < 0)
+            throw new IllegalArgumentException(String.format("prefetchCount for '%s' must not be negative, was %d", name, prefetchCount));
+        Config current = processor.getConfig();
+        Config replacement = new Config();
+        BeanUtils.copyProperties(current, replacement);
+        if (maxConcurrentCalls != null)
+            replacement.setMaxConcurrentCalls(maxConcurrentCalls);
+        if (prefetchCount != null)
+            replacement.setPrefetchCount(prefetchCount);
+        log.info("Rebuilding Service Bus processor for '{}': maxConcurrentCalls {} -> {}, prefetchCount {} -> {}", name,
+                current.getMaxConcurrentCalls(), replacement.getMaxConcurrentCalls(), current.getPrefetchCount(), replacement.getPrefetchCount());
+        processor.rebuild(replacement, serviceBusProperties.getShutdownTimeout());
+        return status(name);
+    }
+
+    public ProcessorStatus status(String name) {
+        ManagedProcessor processor = get(name);
+        CircuitBreaker circuitBreaker = circuitBreakerController.getCircuitBreakers().get(name);
+        return ProcessorStatus.builder()
+                .name(name)
+                .running(processor.isRunning())
+                .paused(processor.isPaused())
+                .circuitBreaker(circuitBreaker != null ? circuitBreaker.getState().toString() : null)
+                .inFlight(processor.getActivity().getInFlight())
+                .processed(processor.getActivity().getProcessed())
+                .throughput(processor.getActivity().getThroughput())
+                .maxConcurrentCalls(processor.getConfig().getMaxConcurrentCalls())
+                .prefetchCount(processor.getConfig().getPrefetchCount())
+                .build();
+    }
+
+    public Map<String, ProcessorStatus> statuses() {
+        Map<String, ProcessorStatus> statuses = new TreeMap<>();
+        processors.keySet().forEach(name -> statuses.put(name, status(name)));
+        return statuses;
+    }
+
+    protected ManagedProcessor get(String name) {
+        ManagedProcessor processor = processors.get(name);
+        if (processor == null)
+            throw new IllegalArgumentException(String.format("No Service Bus processor registered for '%s'", name));
+        return processor;
+    }
+}
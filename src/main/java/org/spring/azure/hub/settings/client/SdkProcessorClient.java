@@ -0,0 +1,43 @@
+package org.spring.azure.hub.settings.client;
+
+import com.azure.messaging.servicebus.ServiceBusProcessorClient;
+import lombok.Getter;
+
+public class SdkProcessorClient implements ProcessorClient {
+
+    @Getter private final ServiceBusProcessorClient delegate;
+    private Runnable onClose;
+
+    public SdkProcessorClient(ServiceBusProcessorClient delegate, Runnable onClose) {
+        this.delegate = delegate;
+        this.onClose = onClose;
+    }
+
+    @Override
+    public void start() {
+        delegate.start();
+    }
+
+    @Override
+    public void stop() {
+        delegate.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return delegate.isRunning();
+    }
+
+    @Override
+    public synchronized void close() {
+        delegate.close();
+        if (onClose != null)
+            onClose.run();
+        onClose = null;
+    }
+
+    @Override
+    public String toString() {
+        return delegate.getIdentifier();
+    }
+}
@@ -0,0 +1,61 @@
+package org.spring.azure.hub.settings.client;
+
+import lombok.RequiredArgsConstructor;
+import org.spring.azure.hub.model.dto.ProcessorStatus;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /actuator/servicebusprocessors}: live status of every processor, pause, resume or rescale of one of them
+ * through {@link ProcessorRegistry}, and a reload of the {@code servicebus.*} properties through {@link ConfigReloader}.
+ */
+@RequiredArgsConstructor @Endpoint(id = "servicebusprocessors")
+public class ServiceBusProcessorsEndpoint {
+
+    private final ProcessorRegistry processorRegistry;
+    private final ConfigReloader configReloader;
+
+    @ReadOperation
+    public Map<String, ProcessorStatus> processors() {
+        return processorRegistry.statuses();
+    }
+
+    /**
+     * Rebuilds the processors whose settings changed in the Environment and returns their changed properties.
+     */
+    @WriteOperation
+    public Map<String, List<String>> reload() {
+        return configReloader.reload();
+    }
+
+    @ReadOperation
+    public ProcessorStatus processor(@Selector(match = Selector.Match.ALL_REMAINING) String... name) {
+        String processorName = String.join("/", name);
+        return processorRegistry.getProcessors().containsKey(processorName) ? processorRegistry.status(processorName) : null;
+    }
+
+    /**
+     * Pauses or resumes the processor when {@code paused} is given, then rebuilds it when {@code maxConcurrentCalls}
+     * or {@code prefetchCount} is given.
+     */
+    @WriteOperation
+    public ProcessorStatus update(@Selector(match = Selector.Match.ALL_REMAINING) String[] name, @Nullable Boolean paused,
+                                  @Nullable Integer maxConcurrentCalls, @Nullable Integer prefetchCount) {
+        String processorName = String.join("/", name);
+        if (!processorRegistry.getProcessors().containsKey(processorName))
+            return null;
+        if (Boolean.TRUE.equals(paused))
+            processorRegistry.pause(processorName);
+        else if (Boolean.FALSE.equals(paused))
+            processorRegistry.resume(processorName);
+        if (maxConcurrentCalls != null || prefetchCount != null)
+            return processorRegistry.rescale(processorName, maxConcurrentCalls, prefetchCount);
+        return processorRegistry.status(processorName);
+    }
+}
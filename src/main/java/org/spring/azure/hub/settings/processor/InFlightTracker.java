@@ -0,0 +1,70 @@
+package org.spring.azure.hub.settings.processor;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts {@code processMessage} calls that are still running, so shutdown can wait for them to settle before the
+ * processor clients are closed.
+ */
+@Component
+public class InFlightTracker {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger drained = new AtomicInteger();
+    private volatile boolean draining = false;
+
+    public void enter() {
+        inFlight.incrementAndGet();
+    }
+
+    public void exit() {
+        inFlight.decrementAndGet();
+        if (draining) {
+            drained.incrementAndGet();
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Waits until every in-flight call has returned or the timeout passed. Calls still running at the deadline are
+     * reported as abandoned: their messages are released when the clients close, or redelivered once their locks expire.
+     */
+    public DrainResult drain(Duration timeout) {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        drained.set(0);
+        draining = true;
+        try {
+            synchronized (this) {
+                long remaining;
+                while (inFlight.get() > 0 && (remaining = deadline - System.nanoTime()) > 0)
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            draining = false;
+        }
+        return new DrainResult(drained.get(), Math.max(inFlight.get(), 0),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @Data @AllArgsConstructor
+    public static class DrainResult {
+        private int drained;
+        private int abandoned;
+        private long elapsedMillis;
+    }
+}
@@ -2,81 +2,338 @@ package org.spring.azure.hub.settings.processor;
 
 import com.azure.messaging.servicebus.ServiceBusErrorContext;
 import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import com.azure.messaging.servicebus.models.DeadLetterOptions;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.metrics.EntityHistograms;
+import org.spring.azure.hub.metrics.EntityMetrics;
 import org.spring.azure.hub.model.context.ServiceBusSharedResources;
 import org.spring.azure.hub.model.dto.ErrorHandlerMethod;
-import org.spring.azure.hub.model.dto.ListenerMethod;
+import org.spring.azure.hub.model.dto.ListenerBinding;
+import org.spring.azure.hub.model.properties.TimeoutPolicy;
+import org.spring.azure.hub.settings.processor.batch.BatchAccumulator;
+import org.spring.azure.hub.settings.processor.dedup.Deduplicator;
+import org.spring.azure.hub.settings.processor.invoker.ListenerInvoker;
+import org.spring.azure.hub.settings.processor.retry.Redeliverer;
+import org.spring.azure.hub.settings.processor.retry.RetryPolicy;
+import org.spring.azure.hub.settings.processor.serialization.PayloadReader;
 import org.spring.azure.hub.settings.processor.serialization.Serializer;
+import org.spring.azure.hub.settings.processor.serialization.codec.PayloadCodecRegistry;
+import org.spring.azure.hub.settings.processor.timeout.ListenerTimeoutException;
+import org.spring.azure.hub.settings.processor.timeout.ListenerWatchdog;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ReflectionUtils;
 
-import java.lang.reflect.Method;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 @Slf4j @RequiredArgsConstructor @Component
 public class MessageProcessor {
 
+    public static final String RETRIES_EXHAUSTED = "MaxRetriesExceeded";
+    public static final String LISTENER_TIMEOUT = "ListenerTimeout";
+
     private final ServiceBusSharedResources sharedResources;
     private final ObjectMapper serviceBusClientObjectMapper;
+    private final PayloadCodecRegistry payloadCodecRegistry;
+    private final ListenerWatchdog listenerWatchdog;
 
-    public void processMessage(String name,
-                               ListenerMethod listener,
-                               ServiceBusReceivedMessageContext message,
-                               boolean isConditional, Boolean abandonOnSerializationError) {
+    public void processMessage(ListenerBinding binding, ServiceBusReceivedMessageContext message) {
+        EntityMetrics metrics = binding.getMetrics();
+        EntityHistograms histograms = binding.getHistograms();
+        metrics.received();
+        long dispatchedAt = histograms != null ? System.currentTimeMillis() : 0L;
+        long lockBudget = histograms != null ? histograms.dispatched(message.getMessage(), dispatchedAt) : -1L;
+        try {
+            processSingleMessage(binding, message);
+        } finally {
+            metrics.finished();
+            if (histograms != null)
+                histograms.finished(message.getMessage(), lockBudget, System.currentTimeMillis() - dispatchedAt);
+        }
+    }
+
+    protected void processSingleMessage(ListenerBinding binding, ServiceBusReceivedMessageContext message) {
+        String name = binding.getName();
         log.debug("Processing message from '{}'", name);
-        Method listenerMethod = listener.getMethod();
-        Class<?>[] parameterTypes = listenerMethod.getParameterTypes();
-        boolean autoAck = isAutoAck(parameterTypes, isConditional);
-        Object[] args = getParameters(name, message, parameterTypes, listenerMethod, abandonOnSerializationError, autoAck);
+        if (binding.getBatchAccumulator() != null) {
+            processBatchMessage(binding, message);
+            return;
+        }
+        if (isDuplicate(binding, message))
+            return;
+        ListenerInvoker invoker = binding.getInvoker();
+        EntityMetrics metrics = binding.getMetrics();
+        boolean autoAck = binding.isAutoAck();
+        Object payload = getPayload(binding, message);
         try {
-            ReflectionUtils.invokeMethod(listenerMethod, listener.getBean(), args);
+            log.debug("Invoking Listener '{}' for '{}'", invoker.getMethod().getName(), name);
+            long start = metrics.start();
+            Object result;
+            try {
+                result = invoke(binding, payload, message);
+            } finally {
+                metrics.invoked(start);
+            }
+            if (binding.getForwarder() != null) {
+                forward(binding, message, result);
+                processed(binding, message);
+                return;
+            }
+            processed(binding, message);
             if (autoAck) {
-                message.complete();
+                complete(binding, message);
                 log.debug("Message successfully completed for '{}'", name);
             }
         } catch (Throwable e) {
-            if (autoAck)
-                message.abandon();
-            throw e;
+            metrics.failed();
+            if (e instanceof ListenerTimeoutException) {
+                metrics.timedOut();
+                if (autoAck)
+                    settleTimedOut(binding, message, e);
+            } else if (autoAck) {
+                settleFailed(binding, message, e);
+            }
+            ReflectionUtils.rethrowRuntimeException(e);
         }
     }
 
-    public void handleError(ErrorHandlerMethod errorHandler, ServiceBusErrorContext context) {
+    /**
+     * Calls the listener, through the watchdog when the binding has a timeout. {@code message} is {@code null} for
+     * batch listeners, whose payload is the list of messages. Returns what the listener returned.
+     */
+    protected Object invoke(ListenerBinding binding, Object payload, ServiceBusReceivedMessageContext message) throws Throwable {
+        ListenerInvoker invoker = binding.getInvoker();
+        if (binding.getTimeout() <= 0)
+            return invoker.invoke(payload, message);
+        String subject = message != null ? String.format("message '%s'", message.getMessage().getMessageId())
+                : String.format("a batch of %d messages", ((List<?>) payload).size());
+        return listenerWatchdog.invoke(binding.getName(), subject, binding.getTimeout(), () -> invoker.invoke(payload, message));
+    }
+
+    /**
+     * Sends the listener's result to the binding's output entity and completes the message with it.
+     */
+    protected void forward(ListenerBinding binding, ServiceBusReceivedMessageContext message, Object result) {
+        EntityMetrics metrics = binding.getMetrics();
+        long start = metrics.start();
+        int forwarded = binding.getForwarder().forward(binding, message, result);
+        metrics.settled(start);
+        metrics.completed();
+        metrics.forwarded(forwarded);
+        log.debug("Message '{}' for '{}' completed with {} forwarded messages", message.getMessage().getMessageId(), binding.getName(), forwarded);
+    }
+
+    public void handleError(ListenerBinding binding, ErrorHandlerMethod errorHandler, ServiceBusErrorContext context) {
+        binding.getMetrics().processError(context.getErrorSource());
         log.debug("Invoking Error Handler '{}'", errorHandler.getMethod());
         ReflectionUtils.invokeMethod(errorHandler.getMethod(), errorHandler.getBean(), context);
     }
 
-    protected boolean isAutoAck(Class<?>[] parameterTypes, boolean isConditional) {
-        return isConditional && parameterTypes.length == 1 && !ServiceBusReceivedMessageContext.class.isAssignableFrom(parameterTypes[0]);
+    public PayloadReader createPayloadReader(ListenerInvoker invoker) {
+        if (!invoker.hasPayload())
+            return null;
+        return Serializer.reader(invoker.getPayloadType(), invoker.getGenericPayloadType(),
+                serviceBusClientObjectMapper, payloadCodecRegistry, sharedResources);
     }
 
-    protected Object[] getParameters(String name, ServiceBusReceivedMessageContext message,
-                                   Class<?>[] parameterTypes, Method listenerMethod,
-                                   boolean abandonOnSerializationError, boolean autoAck) {
+    /**
+     * Joins the message to the entity's open batch and returns once that batch has been dispatched. Only the callback
+     * that dispatched a failed batch reports the failure, unless the SDK settles messages itself (AUTO mode), in which
+     * case every callback rethrows so each message is abandoned.
+     */
+    protected void processBatchMessage(ListenerBinding binding, ServiceBusReceivedMessageContext message) {
+        if (isDuplicate(binding, message))
+            return;
+        BatchAccumulator accumulator = binding.getBatchAccumulator();
+        Object payload = binding.getInvoker().hasPayload() ? getPayload(binding, message) : message;
+        BatchAccumulator.Batch batch = accumulator.join(message, payload);
         try {
-            Object deserializedObject = Arrays.stream(parameterTypes)
-                    .filter(paramType -> !ServiceBusReceivedMessageContext.class.isAssignableFrom(paramType))
-                    .findFirst()
-                    .map(type -> Serializer.serialize(type, message, serviceBusClientObjectMapper, sharedResources))
-                    .orElse(message);
-            Object[] parameters = prepareListenerArgs(parameterTypes, deserializedObject, message);
-            log.debug("Invoking Listener '{}' for '{}'", listenerMethod.getName(), name);
-            return parameters;
+            if (!accumulator.claimIfReady(batch)) {
+                if (batch.await())
+                    return;
+                if (!accumulator.claimIfReady(batch)) {
+                    batch.join();
+                    return;
+                }
+            }
         } catch (Throwable e) {
-            if(autoAck || abandonOnSerializationError)
-                message.abandon();
-            throw e;
+            if (!binding.isConditional())
+                ReflectionUtils.rethrowRuntimeException(e);
+            return;
+        }
+        dispatchBatch(binding, batch);
+    }
+
+    protected void dispatchBatch(ListenerBinding binding, BatchAccumulator.Batch batch) {
+        log.debug("Invoking batch Listener '{}' for '{}' with {} messages",
+                binding.getInvoker().getMethod().getName(), binding.getName(), batch.getMessages().size());
+        try {
+            long start = binding.getMetrics().start();
+            try {
+                invoke(binding, batch.getPayloads(), null);
+            } finally {
+                binding.getMetrics().invoked(start);
+            }
+            batch.getMessages().forEach(message -> processed(binding, message));
+            if (binding.isAutoAck())
+                batch.getMessages().forEach(message -> complete(binding, message));
+            batch.complete();
+        } catch (Throwable e) {
+            batch.getMessages().forEach(message -> binding.getMetrics().failed());
+            if (e instanceof ListenerTimeoutException)
+                batch.getMessages().forEach(message -> binding.getMetrics().timedOut());
+            if (binding.isAutoAck())
+                settleFailedBatch(binding, batch, e);
+            batch.fail(e);
+            ReflectionUtils.rethrowRuntimeException(e);
+        }
+    }
+
+    protected void settleFailedBatch(ListenerBinding binding, BatchAccumulator.Batch batch, Throwable error) {
+        log.warn("Batch listener for '{}' failed for {} messages, applying {} policy",
+                binding.getName(), batch.getMessages().size(), binding.getBatchFailurePolicy());
+        List<ServiceBusReceivedMessageContext> messages = batch.getMessages();
+        for (int i = 0; i < messages.size(); i++) {
+            ServiceBusReceivedMessageContext message = messages.get(i);
+            try {
+                switch (binding.getBatchFailurePolicy()) {
+                    case DEAD_LETTER_ALL:
+                        deadLetter(binding, message, new DeadLetterOptions()
+                                .setDeadLetterReason("BatchListenerFailed")
+                                .setDeadLetterErrorDescription(String.valueOf(error.getMessage())));
+                        break;
+                    case SPLIT:
+                        retryIndividually(binding, message, batch.getPayloads().get(i));
+                        break;
+                    default:
+                        abandon(binding, message);
+                }
+            } catch (Throwable e) {
+                log.warn("Failed to settle message '{}' from failed batch for '{}'", message.getMessage().getMessageId(), binding.getName(), e);
+            }
+        }
+    }
+
+    protected void retryIndividually(ListenerBinding binding, ServiceBusReceivedMessageContext message, Object payload) {
+        try {
+            invoke(binding, Collections.singletonList(payload), null);
+        } catch (Throwable e) {
+            log.debug("Message '{}' failed when retried individually for '{}'", message.getMessage().getMessageId(), binding.getName(), e);
+            abandon(binding, message);
+            return;
+        }
+        processed(binding, message);
+        complete(binding, message);
+    }
+
+    /**
+     * A message already processed within the deduplication window is completed, when the framework settles, without
+     * being deserialized or passed to the listener.
+     */
+    protected boolean isDuplicate(ListenerBinding binding, ServiceBusReceivedMessageContext message) {
+        Deduplicator deduplicator = binding.getDeduplicator();
+        if (deduplicator == null || !deduplicator.isDuplicate(message.getMessage()))
+            return false;
+        log.debug("Skipping duplicate message '{}' for '{}'", message.getMessage().getMessageId(), binding.getName());
+        if (binding.isConditional())
+            complete(binding, message);
+        return true;
+    }
+
+    protected void processed(ListenerBinding binding, ServiceBusReceivedMessageContext message) {
+        if (binding.getDeduplicator() != null)
+            binding.getDeduplicator().processed(message.getMessage());
+    }
+
+    /**
+     * Abandons the failed message, or with a retry policy hands it to the entity's redeliverer until the policy gives
+     * up and dead-letters it.
+     */
+    protected void settleFailed(ListenerBinding binding, ServiceBusReceivedMessageContext message, Throwable error) {
+        RetryPolicy policy = binding.getRetryPolicy();
+        if (policy == null) {
+            abandon(binding, message);
+            return;
+        }
+        int retry = Redeliverer.retries(message) + 1;
+        if (retry > policy.getMaxRetries()) {
+            log.warn("Message '{}' for '{}' failed after {} retries, dead-lettering it", message.getMessage().getMessageId(), binding.getName(), retry - 1);
+            String description = String.format("Listener failed after %d retries: %s", retry - 1, error.getMessage());
+            deadLetter(binding, message, new DeadLetterOptions()
+                    .setDeadLetterReason(RETRIES_EXHAUSTED)
+                    .setDeadLetterErrorDescription(description.length() > 1024 ? description.substring(0, 1024) : description));
+            return;
+        }
+        long delay = policy.delayMillis(retry);
+        EntityMetrics metrics = binding.getMetrics();
+        long start = metrics.start();
+        try {
+            binding.getRedeliverer().redeliver(binding, message, retry, delay);
+        } catch (RuntimeException e) {
+            log.warn("Unable to schedule retry {} of message '{}' for '{}', abandoning it", retry, message.getMessage().getMessageId(), binding.getName(), e);
+            abandon(binding, message);
+            return;
         }
+        metrics.settled(start);
+        metrics.retried();
+        log.debug("Message '{}' for '{}' failed, retry {} in {} ms", message.getMessage().getMessageId(), binding.getName(), retry, delay);
     }
 
-    protected Object[] prepareListenerArgs(Class<?>[] parameterTypes, Object deserializedObject, ServiceBusReceivedMessageContext message) {
-        if (parameterTypes.length == 2 && Arrays.stream(parameterTypes).anyMatch(ServiceBusReceivedMessageContext.class::isAssignableFrom))
-            return new Object[]{deserializedObject, message};
-        else if (parameterTypes.length == 1 && ServiceBusReceivedMessageContext.class.isAssignableFrom(parameterTypes[0]))
-            return new Object[]{message};
-        else
-            return new Object[]{deserializedObject};
+    /**
+     * Dead-letters a message whose listener timed out, or with the ABANDON policy settles it like any failure.
+     */
+    protected void settleTimedOut(ListenerBinding binding, ServiceBusReceivedMessageContext message, Throwable error) {
+        if (binding.getTimeoutPolicy() != TimeoutPolicy.DEAD_LETTER) {
+            settleFailed(binding, message, error);
+            return;
+        }
+        log.warn("Listener for '{}' timed out on message '{}', dead-lettering it", binding.getName(), message.getMessage().getMessageId());
+        deadLetter(binding, message, new DeadLetterOptions()
+                .setDeadLetterReason(LISTENER_TIMEOUT)
+                .setDeadLetterErrorDescription(error.getMessage()));
+    }
+
+    protected void complete(ListenerBinding binding, ServiceBusReceivedMessageContext message) {
+        EntityMetrics metrics = binding.getMetrics();
+        long start = metrics.start();
+        binding.getSettler().complete(message);
+        metrics.settled(start);
+        metrics.completed();
+    }
+
+    protected void abandon(ListenerBinding binding, ServiceBusReceivedMessageContext message) {
+        EntityMetrics metrics = binding.getMetrics();
+        long start = metrics.start();
+        binding.getSettler().abandon(message);
+        metrics.settled(start);
+        metrics.abandoned();
+    }
+
+    protected void deadLetter(ListenerBinding binding, ServiceBusReceivedMessageContext message, DeadLetterOptions options) {
+        EntityMetrics metrics = binding.getMetrics();
+        long start = metrics.start();
+        binding.getSettler().deadLetter(message, options);
+        metrics.settled(start);
+        metrics.deadLettered();
+    }
+
+    protected Object getPayload(ListenerBinding binding, ServiceBusReceivedMessageContext message) {
+        PayloadReader payloadReader = binding.getPayloadReader();
+        if (payloadReader == null)
+            return null;
+        EntityMetrics metrics = binding.getMetrics();
+        long start = metrics.start();
+        try {
+            Object payload = payloadReader.read(message);
+            metrics.deserialized(start);
+            return payload;
+        } catch (Throwable e) {
+            metrics.failed();
+            if (binding.isAutoAck() || binding.isAbandonOnSerializationError())
+                abandon(binding, message);
+            throw e;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package org.spring.azure.hub.settings.processor;
+
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import com.azure.messaging.servicebus.models.DeadLetterOptions;
+
+/**
+ * How the framework settles messages it owns. {@link #SDK} settles through the received context; the emulator settles
+ * against its in-memory entities.
+ */
+public interface MessageSettler {
+
+    MessageSettler SDK = new MessageSettler() {
+
+        @Override
+        public void complete(ServiceBusReceivedMessageContext message) {
+            message.complete();
+        }
+
+        @Override
+        public void abandon(ServiceBusReceivedMessageContext message) {
+            message.abandon();
+        }
+
+        @Override
+        public void deadLetter(ServiceBusReceivedMessageContext message, DeadLetterOptions options) {
+            message.deadLetter(options);
+        }
+    };
+
+    void complete(ServiceBusReceivedMessageContext message);
+
+    void abandon(ServiceBusReceivedMessageContext message);
+
+    void deadLetter(ServiceBusReceivedMessageContext message, DeadLetterOptions options);
+}
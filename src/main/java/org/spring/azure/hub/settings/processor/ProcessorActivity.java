@@ -0,0 +1,92 @@
+package org.spring.azure.hub.settings.processor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-flight and processed message counts of one processor. Throughput is counted in one-second buckets and averaged
+ * over the last {@value #WINDOW_SECONDS} full seconds; concurrent updates at a bucket boundary may lose a few counts.
+ * A processor that is rebuilt records into a child activity per underlying client, which adds to the processor's
+ * totals while its own in-flight count tells when the old client has drained.
+ */
+public class ProcessorActivity {
+
+    static final int WINDOW_SECONDS = 10;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder processed = new LongAdder();
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(WINDOW_SECONDS);
+    private final AtomicLongArray bucketSeconds = new AtomicLongArray(WINDOW_SECONDS);
+    private final ProcessorActivity parent;
+
+    public ProcessorActivity() {
+        this(null);
+    }
+
+    public ProcessorActivity(ProcessorActivity parent) {
+        this.parent = parent;
+    }
+
+    public void enter() {
+        inFlight.incrementAndGet();
+        if (parent != null)
+            parent.enter();
+    }
+
+    public void exit() {
+        if (parent != null)
+            parent.exit();
+        processed.increment();
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        int bucket = (int) Math.floorMod(second, (long) WINDOW_SECONDS);
+        long bucketSecond = bucketSeconds.get(bucket);
+        if (bucketSecond != second && bucketSeconds.compareAndSet(bucket, bucketSecond, second))
+            bucketCounts.set(bucket, 0);
+        bucketCounts.incrementAndGet(bucket);
+        if (inFlight.decrementAndGet() == 0) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    /**
+     * Messages per second over the last {@value #WINDOW_SECONDS} full seconds.
+     */
+    public double getThroughput() {
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        long count = 0;
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            long age = second - bucketSeconds.get(i);
+            if (age >= 1 && age <= WINDOW_SECONDS)
+                count += bucketCounts.get(i);
+        }
+        return (double) count / WINDOW_SECONDS;
+    }
+
+    /**
+     * Waits until no message is in flight or the timeout passed, and returns whether the processor became idle.
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            long remaining;
+            while (inFlight.get() > 0) {
+                if ((remaining = deadline - System.nanoTime()) <= 0)
+                    return false;
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,93 @@
+package org.spring.azure.hub.settings.processor.batch;
+
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Collects concurrent processor callbacks of one entity into batches. Every callback joins the open batch and
+ * blocks until it is dispatched, so the SDK keeps renewing its lock meanwhile. The callback that fills the batch,
+ * or the first one to reach the batch deadline, claims it and dispatches it on its own thread. A full batch takes no
+ * more messages, even before it is claimed.
+ */
+@RequiredArgsConstructor
+public class BatchAccumulator {
+
+    @Getter private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private Batch current;
+
+    public synchronized Batch join(ServiceBusReceivedMessageContext message, Object payload) {
+        if (current == null || current.messages.size() >= maxBatchSize)
+            current = new Batch(maxBatchSize, System.nanoTime() + maxWaitNanos);
+        Batch batch = current;
+        batch.messages.add(message);
+        batch.payloads.add(payload);
+        return batch;
+    }
+
+    /**
+     * @return {@code true} when the caller must dispatch the batch, either because it is full or because its deadline passed.
+     */
+    public synchronized boolean claimIfReady(Batch batch) {
+        if (batch.claimed || (batch.messages.size() < maxBatchSize && System.nanoTime() - batch.deadline < 0))
+            return false;
+        batch.claimed = true;
+        if (current == batch)
+            current = null;
+        return true;
+    }
+
+    public static class Batch {
+
+        @Getter private final List<ServiceBusReceivedMessageContext> messages;
+        @Getter private final List<Object> payloads;
+        private final long deadline;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private boolean claimed;
+
+        Batch(int capacity, long deadline) {
+            this.messages = new ArrayList<>(capacity);
+            this.payloads = new ArrayList<>(capacity);
+            this.deadline = deadline;
+        }
+
+        /**
+         * Waits until the batch is dispatched or its deadline passes.
+         * @return {@code true} once the batch has been dispatched by another callback
+         */
+        public boolean await() throws Throwable {
+            try {
+                result.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                return true;
+            } catch (TimeoutException e) {
+                return false;
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            }
+        }
+
+        public void complete() {
+            result.complete(null);
+        }
+
+        public void fail(Throwable e) {
+            result.completeExceptionally(e);
+        }
+
+        public void join() throws Throwable {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package org.spring.azure.hub.settings.processor.breaker;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Failure and slow-call rates of one processor over a sliding window of one-second buckets, advanced by
+ * {@link CircuitBreakerController}. While {@link State#CLOSED} every message is admitted; {@link State#OPEN} holds
+ * them until their deadline and then rejects them; {@link State#HALF_OPEN} admits at most {@code probeConcurrency} probes at a time, blocking further callbacks,
+ * until {@code probeCalls} probes succeeded (closing the breaker) or one failed or was slow (opening it again).
+ * State changes are handed to the transition listener, which must not block.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    public enum Admission { ADMITTED, PROBE, REJECTED }
+
+    @Getter private final String name;
+    private volatile int failureRateThreshold;
+    private volatile long slowCallNanos;
+    private volatile int slowCallRateThreshold;
+    private volatile int minimumCalls;
+    @Getter private volatile long openDurationNanos;
+    private volatile int probeConcurrency;
+    private volatile int probeCalls;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder slowCalls = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final long[] bucketCalls;
+    private final long[] bucketFailures;
+    private final long[] bucketSlowCalls;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition probeFreed = lock.newCondition();
+    private volatile Consumer<CircuitBreakerEvent> transitionListener = transition -> { };
+    @Getter private volatile State state = State.CLOSED;
+    private volatile boolean released;
+    private int bucket;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    /**
+     * @param windowSeconds length of the sliding window, one bucket per {@link #tick} second
+     * @param slowCallMillis duration from which a call counts as slow, slow calls are not tracked when not positive
+     */
+    public CircuitBreaker(String name, int windowSeconds, int failureRateThreshold, long slowCallMillis, int slowCallRateThreshold,
+                          int minimumCalls, long openDurationSeconds, int probeConcurrency, int probeCalls) {
+        if (windowSeconds < 1)
+            throw new IllegalArgumentException(String.format("circuitWindow for '%s' must be at least 1, was %d", name, windowSeconds));
+        this.name = name;
+        this.bucketCalls = new long[windowSeconds];
+        this.bucketFailures = new long[windowSeconds];
+        this.bucketSlowCalls = new long[windowSeconds];
+        reconfigure(failureRateThreshold, slowCallMillis, slowCallRateThreshold, minimumCalls, openDurationSeconds, probeConcurrency, probeCalls);
+    }
+
+    /**
+     * Applies new thresholds, keeping the state and the calls counted so far. A changed {@code openDuration} applies
+     * from the next time the breaker opens.
+     */
+    public void reconfigure(int failureRateThreshold, long slowCallMillis, int slowCallRateThreshold, int minimumCalls,
+                            long openDurationSeconds, int probeConcurrency, int probeCalls) {
+        if (minimumCalls < 1 || probeConcurrency < 1 || probeCalls < 1)
+            throw new IllegalArgumentException(String.format(
+                    "minimumCalls, probeConcurrency and probeCalls for '%s' must be at least 1, were %d, %d and %d",
+                    name, minimumCalls, probeConcurrency, probeCalls));
+        if (failureRateThreshold < 1 || failureRateThreshold > 100 || slowCallRateThreshold < 1 || slowCallRateThreshold > 100)
+            throw new IllegalArgumentException(String.format(
+                    "failureRateThreshold and slowCallRateThreshold for '%s' must be percentages between 1 and 100, were %d and %d",
+                    name, failureRateThreshold, slowCallRateThreshold));
+        lock.lock();
+        try {
+            this.failureRateThreshold = failureRateThreshold;
+            this.slowCallNanos = slowCallMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(slowCallMillis) : 0;
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            this.minimumCalls = minimumCalls;
+            this.openDurationNanos = TimeUnit.SECONDS.toNanos(openDurationSeconds);
+            this.probeConcurrency = probeConcurrency;
+            this.probeCalls = probeCalls;
+            probeFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setTransitionListener(Consumer<CircuitBreakerEvent> transitionListener) {
+        this.transitionListener = transitionListener;
+    }
+
+    /**
+     * Admits a message, or rejects it at once while open.
+     */
+    public Admission acquire() throws InterruptedException {
+        return acquire(System.nanoTime());
+    }
+
+    /**
+     * Admits a message, waiting for a free probe slot while half-open. While open the message is held until the
+     * breaker turns half-open or {@code deadlineNanos}, in {@link System#nanoTime()} terms, has passed. Each admission
+     * must be followed by {@link #record} with the returned value; rejected messages must be given back to the entity.
+     */
+    public Admission acquire(long deadlineNanos) throws InterruptedException {
+        if (state == State.CLOSED || released)
+            return Admission.ADMITTED;
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                if (state == State.CLOSED || released)
+                    return Admission.ADMITTED;
+                if (state == State.OPEN) {
+                    long remaining = deadlineNanos - System.nanoTime();
+                    if (remaining <= 0) {
+                        rejected.increment();
+                        return Admission.REJECTED;
+                    }
+                    probeFreed.awaitNanos(remaining);
+                    continue;
+                }
+                if (probesInFlight < probeConcurrency) {
+                    probesInFlight++;
+                    return Admission.PROBE;
+                }
+                probeFreed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void record(Admission admission, long elapsedNanos, boolean failed) {
+        boolean slow = slowCallNanos > 0 && elapsedNanos >= slowCallNanos;
+        if (admission != Admission.PROBE) {
+            calls.increment();
+            if (failed)
+                failures.increment();
+            if (slow)
+                slowCalls.increment();
+            return;
+        }
+        CircuitBreakerEvent transition = null;
+        lock.lock();
+        try {
+            probesInFlight--;
+            probeFreed.signalAll();
+            if (state == State.HALF_OPEN) {
+                if (failed || slow)
+                    transition = transition(State.OPEN, failed ? "probe failed" : "probe was slow");
+                else if (++probeSuccesses >= probeCalls)
+                    transition = transition(State.CLOSED, String.format("%d probes succeeded", probeSuccesses));
+            }
+        } finally {
+            lock.unlock();
+        }
+        publish(transition);
+    }
+
+    /**
+     * Gives back an admission whose message was not processed after all.
+     */
+    public void cancel(Admission admission) {
+        if (admission != Admission.PROBE)
+            return;
+        lock.lock();
+        try {
+            probesInFlight--;
+            probeFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counts a {@code processError} callback that is not a listener failure, such as a lost connection, as a failed
+     * call; while half-open it opens the breaker again.
+     */
+    public void recordError() {
+        if (state != State.HALF_OPEN) {
+            calls.increment();
+            failures.increment();
+            return;
+        }
+        CircuitBreakerEvent transition = null;
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN)
+                transition = transition(State.OPEN, "processor reported an error");
+        } finally {
+            lock.unlock();
+        }
+        publish(transition);
+    }
+
+    /**
+     * Moves the window on by one bucket, opens the breaker when a rate crossed its threshold over at least
+     * {@code minimumCalls} calls, and moves an open breaker to half-open once {@code openDuration} has passed.
+     */
+    public void tick(long nowNanos) {
+        CircuitBreakerEvent transition = null;
+        lock.lock();
+        try {
+            bucketCalls[bucket] = calls.sumThenReset();
+            bucketFailures[bucket] = failures.sumThenReset();
+            bucketSlowCalls[bucket] = slowCalls.sumThenReset();
+            bucket = (bucket + 1) % bucketCalls.length;
+            if (state == State.CLOSED) {
+                long windowCalls = Arrays.stream(bucketCalls).sum();
+                long windowFailures = Arrays.stream(bucketFailures).sum();
+                long windowSlowCalls = Arrays.stream(bucketSlowCalls).sum();
+                if (windowCalls >= minimumCalls && windowFailures * 100 >= failureRateThreshold * windowCalls)
+                    transition = transition(State.OPEN, String.format("%d of %d calls failed", windowFailures, windowCalls));
+                else if (windowCalls >= minimumCalls && slowCallNanos > 0 && windowSlowCalls * 100 >= slowCallRateThreshold * windowCalls)
+                    transition = transition(State.OPEN, String.format("%d of %d calls took %d ms or longer",
+                            windowSlowCalls, windowCalls, TimeUnit.NANOSECONDS.toMillis(slowCallNanos)));
+            } else if (state == State.OPEN && nowNanos - openedAt >= openDurationNanos) {
+                transition = transition(State.HALF_OPEN, String.format("open for %d s", TimeUnit.NANOSECONDS.toSeconds(nowNanos - openedAt)));
+            }
+        } finally {
+            lock.unlock();
+        }
+        publish(transition);
+    }
+
+    /**
+     * Admits every message from now on without changing state, so that callbacks waiting for a probe slot can finish
+     * while processors shut down.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            released = true;
+            probeFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getOpened() {
+        return opened.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private CircuitBreakerEvent transition(State next, String reason) {
+        State previous = state;
+        state = next;
+        probeSuccesses = 0;
+        if (next == State.OPEN) {
+            openedAt = System.nanoTime();
+            opened.increment();
+        }
+        if (next != State.HALF_OPEN) {
+            Arrays.fill(bucketCalls, 0);
+            Arrays.fill(bucketFailures, 0);
+            Arrays.fill(bucketSlowCalls, 0);
+            calls.reset();
+            failures.reset();
+            slowCalls.reset();
+        }
+        probeFreed.signalAll();
+        return new CircuitBreakerEvent(name, previous, next, reason);
+    }
+
+    private void publish(CircuitBreakerEvent transition) {
+        if (transition != null)
+            transitionListener.accept(transition);
+    }
+}
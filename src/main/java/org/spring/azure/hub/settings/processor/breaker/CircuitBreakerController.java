@@ -0,0 +1,130 @@
+package org.spring.azure.hub.settings.processor.breaker;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.metrics.EntityMetrics;
+import org.spring.azure.hub.model.context.ServiceBusSharedResources;
+import org.spring.azure.hub.model.properties.Config;
+import org.spring.azure.hub.model.properties.ServiceBusProperties;
+import org.spring.azure.hub.settings.client.ProcessorClient;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the circuit breakers of processors with {@code circuitBreaker} enabled. Every second each breaker's window
+ * moves on and is evaluated; state changes stop the entity's processor when the breaker opens and start it again when
+ * it turns half-open, always from the {@code servicebus-breaker} thread rather than from a processor callback. Each
+ * change is then published as a {@link CircuitBreakerEvent}.
+ */
+@Slf4j @RequiredArgsConstructor @Component
+public class CircuitBreakerController {
+
+    private final ServiceBusProperties serviceBusProperties;
+    private final ServiceBusSharedResources sharedResources;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param name the processor name, as registered in {@link ServiceBusSharedResources#getProcessorClients()}
+     * @return the processor's breaker, the existing one with the new thresholds when the processor is rebuilt, or
+     * {@code null} when {@code circuitBreaker} is disabled
+     */
+    public synchronized CircuitBreaker register(String name, Config config, EntityMetrics metrics) {
+        if (!config.getCircuitBreaker()) {
+            CircuitBreaker removed = circuitBreakers.remove(name);
+            if (removed != null)
+                removed.release();
+            return null;
+        }
+        if (circuitBreakers.containsKey(name)) {
+            CircuitBreaker circuitBreaker = circuitBreakers.get(name);
+            circuitBreaker.reconfigure(config.getFailureRateThreshold(), config.getSlowCallThreshold(), config.getSlowCallRateThreshold(),
+                    config.getMinimumCalls(), config.getOpenDuration(), config.getProbeConcurrency(), config.getProbeCalls());
+            return circuitBreaker;
+        }
+        CircuitBreaker circuitBreaker = new CircuitBreaker(name, serviceBusProperties.getCircuitWindow(),
+                config.getFailureRateThreshold(), config.getSlowCallThreshold(), config.getSlowCallRateThreshold(),
+                config.getMinimumCalls(), config.getOpenDuration(), config.getProbeConcurrency(), config.getProbeCalls());
+        circuitBreaker.setTransitionListener(this::onTransition);
+        circuitBreakers.put(name, circuitBreaker);
+        metrics.bindCircuitBreaker(circuitBreaker);
+        log.info("Circuit breaker enabled for '{}': opens at {}% failed{} over at least {} calls in {} s, probes after {} s",
+                name, config.getFailureRateThreshold(),
+                config.getSlowCallThreshold() > 0 ? String.format(" or %d%% slower than %d ms", config.getSlowCallRateThreshold(), config.getSlowCallThreshold()) : "",
+                config.getMinimumCalls(), serviceBusProperties.getCircuitWindow(), config.getOpenDuration());
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "servicebus-breaker");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::tickAll, 1, 1, TimeUnit.SECONDS);
+        }
+        return circuitBreaker;
+    }
+
+    public Map<String, CircuitBreaker> getCircuitBreakers() {
+        return circuitBreakers;
+    }
+
+    protected void tickAll() {
+        long now = System.nanoTime();
+        circuitBreakers.values().forEach(circuitBreaker -> {
+            try {
+                circuitBreaker.tick(now);
+            } catch (Exception e) {
+                log.warn("Failed to evaluate the circuit breaker of '{}'", circuitBreaker.getName(), e);
+            }
+        });
+    }
+
+    protected void onTransition(CircuitBreakerEvent event) {
+        try {
+            scheduler.execute(() -> apply(event));
+        } catch (RejectedExecutionException e) {
+            log.debug("Ignoring circuit breaker transition of '{}' to {} during shutdown", event.getName(), event.getTo());
+        }
+    }
+
+    protected void apply(CircuitBreakerEvent event) {
+        log.warn("Circuit breaker for '{}' changed from {} to {}: {}", event.getName(), event.getFrom(), event.getTo(), event.getReason());
+        ProcessorClient processor = sharedResources.getProcessorClients().get(event.getName());
+        if (processor != null && event.getTo() != CircuitBreaker.State.CLOSED) {
+            CircuitBreaker circuitBreaker = circuitBreakers.get(event.getName());
+            try {
+                if (event.getTo() == CircuitBreaker.State.OPEN && circuitBreaker.getState() == CircuitBreaker.State.OPEN)
+                    processor.stop();
+                else if (event.getTo() == CircuitBreaker.State.HALF_OPEN && circuitBreaker.getState() == CircuitBreaker.State.HALF_OPEN)
+                    processor.start();
+            } catch (RuntimeException e) {
+                log.warn("Failed to {} the processor of '{}'", event.getTo() == CircuitBreaker.State.OPEN ? "stop" : "start", event.getName(), e);
+                circuitBreaker.recordError();
+            }
+        }
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            log.warn("Circuit breaker event listener for '{}' failed", event.getName(), e);
+        }
+    }
+
+    /**
+     * Stops evaluating breakers and lets waiting callbacks through, so that processors stopped by an open breaker stay
+     * stopped and in-flight messages can drain.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+        circuitBreakers.values().forEach(CircuitBreaker::release);
+    }
+}
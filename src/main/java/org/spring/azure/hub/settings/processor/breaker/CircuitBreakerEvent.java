@@ -0,0 +1,16 @@
+package org.spring.azure.hub.settings.processor.breaker;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published as an application event when the circuit breaker of a processor changes state; {@code name} is the
+ * processor's entity, with {@code /$DeadLetterQueue} for dead-letter processors.
+ */
+@Data @AllArgsConstructor
+public class CircuitBreakerEvent {
+    private final String name;
+    private final CircuitBreaker.State from;
+    private final CircuitBreaker.State to;
+    private final String reason;
+}
@@ -0,0 +1,73 @@
+package org.spring.azure.hub.settings.processor.dedup;
+
+/**
+ * Fixed-size set of 64-bit key hashes with an expiry time each. Keys hash to a bucket of {@value #WAYS} slots; a full
+ * bucket replaces its entry closest to expiry, so memory never grows past the capacity and the oldest keys are
+ * forgotten first. Buckets are guarded by striped locks. Expiry uses wall-clock milliseconds so that persistent
+ * stores stay valid across restarts.
+ */
+public abstract class DeduplicationStore implements AutoCloseable {
+
+    static final int WAYS = 8;
+    private static final int STRIPES = 64;
+
+    private final int buckets;
+    private final Object[] locks = new Object[STRIPES];
+
+    protected DeduplicationStore(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException(String.format("deduplicationCapacity must be at least 1, was %d", capacity));
+        this.buckets = Integer.highestOneBit(Math.max((capacity + WAYS - 1) / WAYS, 1) * 2 - 1);
+        for (int i = 0; i < STRIPES; i++)
+            locks[i] = new Object();
+    }
+
+    public boolean contains(long key, long now) {
+        int bucket = bucket(key);
+        synchronized (locks[bucket & (STRIPES - 1)]) {
+            for (int slot = bucket * WAYS; slot < (bucket + 1) * WAYS; slot++)
+                if (key(slot) == key && expiresAt(slot) > now)
+                    return true;
+        }
+        return false;
+    }
+
+    public void add(long key, long expiresAt) {
+        int bucket = bucket(key);
+        synchronized (locks[bucket & (STRIPES - 1)]) {
+            int victim = bucket * WAYS;
+            for (int slot = bucket * WAYS; slot < (bucket + 1) * WAYS; slot++) {
+                if (key(slot) == key) {
+                    victim = slot;
+                    break;
+                }
+                if (expiresAt(slot) < expiresAt(victim))
+                    victim = slot;
+            }
+            write(victim, key, expiresAt);
+        }
+    }
+
+    public int getCapacity() {
+        return buckets * WAYS;
+    }
+
+    /**
+     * Bytes held by the store, on the heap or mapped.
+     */
+    public abstract long getMemoryBytes();
+
+    protected abstract long key(int slot);
+
+    protected abstract long expiresAt(int slot);
+
+    protected abstract void write(int slot, long key, long expiresAt);
+
+    @Override
+    public void close() {
+    }
+
+    private int bucket(long key) {
+        return (int) (key ^ key >>> 32) & (buckets - 1);
+    }
+}
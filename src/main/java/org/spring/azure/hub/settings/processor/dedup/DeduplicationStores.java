@@ -0,0 +1,62 @@
+package org.spring.azure.hub.settings.processor.dedup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.model.properties.Config;
+import org.spring.azure.hub.model.properties.DeduplicationStoreType;
+import org.spring.azure.hub.model.properties.ServiceBusProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the {@link Deduplicator} of each processor with {@code deduplication} enabled and closes their stores at
+ * shutdown. Mapped stores are files named after the processor in {@code deduplicationDirectory}, by default
+ * {@code servicebus-hub-dedup} in the temporary directory.
+ */
+@Slf4j @Component
+public class DeduplicationStores {
+
+    private final ServiceBusProperties serviceBusProperties;
+    private final Map<String, Deduplicator> deduplicators = new ConcurrentHashMap<>();
+
+    public DeduplicationStores(ServiceBusProperties serviceBusProperties) {
+        this.serviceBusProperties = serviceBusProperties;
+    }
+
+    /**
+     * The processor's deduplicator, or {@code null} when {@code deduplication} is disabled for it.
+     */
+    public Deduplicator get(String name, Config config) {
+        if (!config.getDeduplication())
+            return null;
+        return deduplicators.computeIfAbsent(name, key -> create(key, config));
+    }
+
+    protected Deduplicator create(String name, Config config) {
+        DeduplicationStoreType type = DeduplicationStoreType.valueOf(config.getDeduplicationStore());
+        DeduplicationStore store = type == DeduplicationStoreType.MAPPED
+                ? new MappedDeduplicationStore(file(name), config.getDeduplicationCapacity())
+                : new InMemoryDeduplicationStore(config.getDeduplicationCapacity());
+        log.info("Deduplicating '{}' by {} over {} s in a {} store of {} keys ({} KiB)", name,
+                config.getDeduplicationKey() != null ? "property '" + config.getDeduplicationKey() + "'" : "message id",
+                config.getDeduplicationWindow(), type, store.getCapacity(), store.getMemoryBytes() / 1024);
+        return new Deduplicator(name, store, config.getDeduplicationKey(), TimeUnit.SECONDS.toMillis(config.getDeduplicationWindow()));
+    }
+
+    protected Path file(String name) {
+        String directory = serviceBusProperties.getDeduplicationDirectory();
+        Path root = directory != null ? Paths.get(directory) : Paths.get(System.getProperty("java.io.tmpdir"), "servicebus-hub-dedup");
+        return root.resolve(name.replaceAll("[^A-Za-z0-9._-]", "_") + ".dedup");
+    }
+
+    @PreDestroy
+    public void close() {
+        deduplicators.values().forEach(deduplicator -> deduplicator.getStore().close());
+        deduplicators.clear();
+    }
+}
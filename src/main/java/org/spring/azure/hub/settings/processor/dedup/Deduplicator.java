@@ -0,0 +1,78 @@
+package org.spring.azure.hub.settings.processor.dedup;
+
+import com.azure.messaging.servicebus.ServiceBusReceivedMessage;
+import lombok.Getter;
+import org.spring.azure.hub.settings.processor.retry.Redeliverer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Idempotent-consumer filter of one processor. A message is remembered once its listener succeeded, and a later
+ * delivery with the same key within {@code deduplicationWindow} is a duplicate. The key is the message id, the
+ * original one for retried copies, or the application property named by {@code deduplicationKey}; messages without a
+ * key are never duplicates. Keys are stored as 64-bit hashes, so two distinct keys collide with negligible probability.
+ */
+public class Deduplicator {
+
+    @Getter private final String name;
+    @Getter private final DeduplicationStore store;
+    private final String keyProperty;
+    private final long windowMillis;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public Deduplicator(String name, DeduplicationStore store, String keyProperty, long windowMillis) {
+        this.name = name;
+        this.store = store;
+        this.keyProperty = keyProperty;
+        this.windowMillis = windowMillis;
+    }
+
+    public boolean isDuplicate(ServiceBusReceivedMessage message) {
+        String key = key(message);
+        if (key == null)
+            return false;
+        boolean duplicate = store.contains(hash(key), System.currentTimeMillis());
+        (duplicate ? hits : misses).increment();
+        return duplicate;
+    }
+
+    public void processed(ServiceBusReceivedMessage message) {
+        String key = key(message);
+        if (key != null)
+            store.add(hash(key), System.currentTimeMillis() + windowMillis);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    protected String key(ServiceBusReceivedMessage message) {
+        if (keyProperty == null)
+            return Redeliverer.originalMessageId(message);
+        Object value = message.getApplicationProperties().get(keyProperty);
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mix; never {@code 0}, which marks an empty slot.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash != 0 ? hash : 1;
+    }
+}
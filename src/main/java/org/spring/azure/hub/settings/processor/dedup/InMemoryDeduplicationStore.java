@@ -0,0 +1,35 @@
+package org.spring.azure.hub.settings.processor.dedup;
+
+/**
+ * {@link DeduplicationStore} on the heap: two longs per slot.
+ */
+public class InMemoryDeduplicationStore extends DeduplicationStore {
+
+    private final long[] slots;
+
+    public InMemoryDeduplicationStore(int capacity) {
+        super(capacity);
+        this.slots = new long[getCapacity() * 2];
+    }
+
+    @Override
+    public long getMemoryBytes() {
+        return slots.length * 8L;
+    }
+
+    @Override
+    protected long key(int slot) {
+        return slots[slot * 2];
+    }
+
+    @Override
+    protected long expiresAt(int slot) {
+        return slots[slot * 2 + 1];
+    }
+
+    @Override
+    protected void write(int slot, long key, long expiresAt) {
+        slots[slot * 2] = key;
+        slots[slot * 2 + 1] = expiresAt;
+    }
+}
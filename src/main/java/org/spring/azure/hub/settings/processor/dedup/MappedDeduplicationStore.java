@@ -0,0 +1,84 @@
+package org.spring.azure.hub.settings.processor.dedup;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link DeduplicationStore} in a memory-mapped file, so remembered keys survive a restart. The file starts with a
+ * header holding its format and capacity; a file written with another capacity is cleared. Writes reach the file
+ * through the page cache and are forced to disk on {@link #close()}, so a crash of the host, not of the process, can
+ * lose the latest keys.
+ */
+@Slf4j
+public class MappedDeduplicationStore extends DeduplicationStore {
+
+    private static final long MAGIC = 0x5342_4844_4450_0001L;
+    private static final int HEADER = 16;
+    private static final int SLOT = 16;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    public MappedDeduplicationStore(Path file, int capacity) {
+        super(capacity);
+        long size = HEADER + (long) getCapacity() * SLOT;
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException(String.format("deduplicationCapacity %d is too large for a mapped store", capacity));
+        this.file = file;
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean reusable = channel.size() == size;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (reusable && buffer.getLong(0) == MAGIC && buffer.getLong(8) == getCapacity()) {
+                log.info("Opened deduplication store '{}' with capacity {}", file, getCapacity());
+            } else {
+                for (int position = 0; position < size; position += 8)
+                    buffer.putLong(position, 0L);
+                buffer.putLong(0, MAGIC);
+                buffer.putLong(8, getCapacity());
+                log.info("Created deduplication store '{}' with capacity {}", file, getCapacity());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Unable to open deduplication store '%s'", file), e);
+        }
+    }
+
+    @Override
+    public long getMemoryBytes() {
+        return buffer.capacity();
+    }
+
+    @Override
+    protected long key(int slot) {
+        return buffer.getLong(HEADER + slot * SLOT);
+    }
+
+    @Override
+    protected long expiresAt(int slot) {
+        return buffer.getLong(HEADER + slot * SLOT + 8);
+    }
+
+    @Override
+    protected void write(int slot, long key, long expiresAt) {
+        buffer.putLong(HEADER + slot * SLOT + 8, expiresAt);
+        buffer.putLong(HEADER + slot * SLOT, key);
+    }
+
+    @Override
+    public void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Unable to close deduplication store '{}'", file, e);
+        }
+    }
+}
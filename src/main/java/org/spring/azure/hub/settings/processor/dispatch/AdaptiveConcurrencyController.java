@@ -0,0 +1,99 @@
+package org.spring.azure.hub.settings.processor.dispatch;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.model.properties.ServiceBusProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AIMD limiter for processors with {@code adaptiveConcurrency}. Every {@code adaptiveInterval} seconds the latency,
+ * error rate and saturation of each bulkhead are read: a window that is slower than {@code targetLatency} or fails
+ * more than {@code ERROR_THRESHOLD} of its calls cuts the limit by a quarter, a healthy window whose bulkhead was full
+ * raises it by one. The limit always stays between {@code minConcurrency} and the configured ceiling.
+ */
+@Slf4j @RequiredArgsConstructor @Component
+public class AdaptiveConcurrencyController {
+
+    static final double ERROR_THRESHOLD = 0.1;
+    static final double DECREASE_FACTOR = 0.75;
+
+    private final ServiceBusProperties serviceBusProperties;
+    private final Map<String, Registration> registrations = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    public synchronized void register(Bulkhead bulkhead, int minLimit, int maxLimit, long targetLatencyMillis) {
+        if (minLimit < 1 || minLimit > maxLimit)
+            throw new IllegalArgumentException(String.format(
+                    "minConcurrency for '%s' must be between 1 and %d, was %d", bulkhead.getName(), maxLimit, minLimit));
+        registrations.put(bulkhead.getName(), new Registration(bulkhead, minLimit, maxLimit, TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis)));
+        log.info("Adaptive concurrency enabled for '{}' between {} and {}, target latency {} ms",
+                bulkhead.getName(), minLimit, maxLimit, targetLatencyMillis);
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "servicebus-concurrency");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = serviceBusProperties.getAdaptiveInterval();
+            scheduler.scheduleWithFixedDelay(this::adjustAll, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    public Map<String, Registration> getRegistrations() {
+        return registrations;
+    }
+
+    protected void adjustAll() {
+        registrations.values().forEach(registration -> {
+            try {
+                adjust(registration);
+            } catch (Exception e) {
+                log.warn("Failed to adjust concurrency for '{}'", registration.getBulkhead().getName(), e);
+            }
+        });
+    }
+
+    protected void adjust(Registration registration) {
+        Bulkhead bulkhead = registration.getBulkhead();
+        Bulkhead.Window window = bulkhead.snapshot();
+        if (window.getCalls() == 0)
+            return;
+        long averageLatency = window.getLatencyNanos() / window.getCalls();
+        double errorRate = (double) window.getFailures() / window.getCalls();
+        int current = bulkhead.getLimit();
+        int next = current;
+        if (averageLatency > registration.getTargetLatencyNanos() || errorRate > ERROR_THRESHOLD)
+            next = Math.max(registration.getMinLimit(), (int) (current * DECREASE_FACTOR));
+        else if (window.isSaturated())
+            next = Math.min(registration.getMaxLimit(), current + 1);
+        if (next == current)
+            return;
+        bulkhead.setLimit(next);
+        log.info("Adjusted concurrency for '{}' from {} to {} (average latency {} ms, {} of {} calls failed, saturated: {})",
+                bulkhead.getName(), current, next, TimeUnit.NANOSECONDS.toMillis(averageLatency),
+                window.getFailures(), window.getCalls(), window.isSaturated());
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+    }
+
+    @Data @AllArgsConstructor
+    public static class Registration {
+        private Bulkhead bulkhead;
+        private int minLimit;
+        private int maxLimit;
+        private long targetLatencyNanos;
+    }
+}
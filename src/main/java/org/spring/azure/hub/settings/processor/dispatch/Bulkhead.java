@@ -0,0 +1,94 @@
+package org.spring.azure.hub.settings.processor.dispatch;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the listener calls of one processor that are running or queued on a dispatch executor. A full bulkhead blocks
+ * the processor callback, which stops the processor from pulling further messages for that entity only. The limit can
+ * be changed at runtime by {@link AdaptiveConcurrencyController}, which reads the latency and error counts recorded here.
+ */
+public class Bulkhead {
+
+    @Getter private final String name;
+    @Getter private volatile int limit;
+    private final ResizableSemaphore permits;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final AtomicBoolean saturated = new AtomicBoolean();
+
+    public Bulkhead(String name, int limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException(String.format("maxInFlight for '%s' must be at least 1, was %d", name, limit));
+        this.name = name;
+        this.limit = limit;
+        this.permits = new ResizableSemaphore(limit);
+    }
+
+    public void acquire() throws InterruptedException {
+        if (permits.tryAcquire())
+            return;
+        saturated.set(true);
+        permits.acquire();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getInFlight() {
+        return Math.max(limit - permits.availablePermits(), 0);
+    }
+
+    public void record(long elapsedNanos, boolean failed) {
+        calls.increment();
+        latencyNanos.add(elapsedNanos);
+        if (failed)
+            failures.increment();
+    }
+
+    /**
+     * Calls already holding a permit keep it; lowering the limit only delays new acquisitions until enough are released.
+     */
+    public synchronized void setLimit(int limit) {
+        int delta = limit - this.limit;
+        if (delta > 0)
+            permits.release(delta);
+        else if (delta < 0)
+            permits.reducePermits(-delta);
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the calls recorded since the previous snapshot and starts a new window.
+     */
+    public Window snapshot() {
+        return new Window(calls.sumThenReset(), failures.sumThenReset(), latencyNanos.sumThenReset(), saturated.getAndSet(false));
+    }
+
+    @Data @AllArgsConstructor
+    public static class Window {
+        private long calls;
+        private long failures;
+        private long latencyNanos;
+        private boolean saturated;
+    }
+
+    private static class ResizableSemaphore extends Semaphore {
+
+        ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
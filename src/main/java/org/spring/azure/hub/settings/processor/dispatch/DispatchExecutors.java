@@ -0,0 +1,111 @@
+package org.spring.azure.hub.settings.processor.dispatch;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.model.properties.DispatchMode;
+import org.spring.azure.hub.model.properties.ServiceBusProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors shared by every entity dispatching off the receive thread. They are created on first use and shut down
+ * with the context, after the processors have been drained.
+ * <p>
+ * Entities on the shared pool reserve their {@code maxInFlight} threads in it, and an entity whose reservation does not
+ * fit in {@code dispatchPoolSize} is refused, so that slow entities can never occupy the threads of the others.
+ */
+@Slf4j @RequiredArgsConstructor @Component
+public class DispatchExecutors {
+
+    private final ServiceBusProperties serviceBusProperties;
+    private ExecutorService pool;
+    private ExecutorService virtual;
+    /** Set once virtual threads turned out to be unavailable, so the fallback is only decided and logged once. */
+    private boolean virtualUnavailable;
+    private final Map<String, Integer> poolReservations = new HashMap<>();
+
+    /**
+     * Same as {@link #get(DispatchMode)}, reserving {@code maxInFlight} threads for the entity when it lands on the
+     * shared pool. A rebuilt processor replaces the reservation of its predecessor.
+     *
+     * @throws IllegalStateException when the reservations of all entities would exceed {@code dispatchPoolSize}
+     */
+    public synchronized Executor get(String name, DispatchMode mode, int maxInFlight) {
+        Executor executor = get(mode);
+        if (executor != null && executor == pool)
+            reserve(name, maxInFlight);
+        return executor;
+    }
+
+    /**
+     * @return the executor for the mode, or {@code null} when listeners run on the caller thread.
+     */
+    public synchronized Executor get(DispatchMode mode) {
+        switch (mode) {
+            case POOL:
+                return pool();
+            case VIRTUAL:
+                if (virtual == null && !virtualUnavailable) {
+                    virtual = createVirtualThreadExecutor();
+                    virtualUnavailable = virtual == null;
+                }
+                return virtual != null ? virtual : pool();
+            default:
+                return null;
+        }
+    }
+
+    protected ExecutorService pool() {
+        if (pool == null) {
+            AtomicInteger count = new AtomicInteger();
+            pool = Executors.newFixedThreadPool(serviceBusProperties.getDispatchPoolSize(), runnable -> {
+                Thread thread = new Thread(runnable, "servicebus-dispatch-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return pool;
+    }
+
+    protected void reserve(String name, int maxInFlight) {
+        int reserved = poolReservations.entrySet().stream()
+                .filter(reservation -> !reservation.getKey().equals(name))
+                .mapToInt(Map.Entry::getValue)
+                .sum();
+        int poolSize = serviceBusProperties.getDispatchPoolSize();
+        if (reserved + maxInFlight > poolSize)
+            throw new IllegalStateException(String.format(
+                    "maxInFlight %d of '%s' does not fit in the shared dispatch pool: other entities reserve %d of its %d threads. Raise dispatchPoolSize or lower maxInFlight",
+                    maxInFlight, name, reserved, poolSize));
+        poolReservations.put(name, maxInFlight);
+        log.debug("'{}' reserves {} threads of the shared dispatch pool, {} of {} reserved", name, maxInFlight, reserved + maxInFlight, poolSize);
+    }
+
+    /**
+     * The library targets Java 8, so virtual threads are looked up reflectively instead of shipping a multi-release jar.
+     */
+    protected ExecutorService createVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads require Java 21 or later, dispatching on the shared pool of {} threads instead",
+                    serviceBusProperties.getDispatchPoolSize());
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (pool != null)
+            pool.shutdown();
+        if (virtual != null)
+            virtual.shutdown();
+    }
+}
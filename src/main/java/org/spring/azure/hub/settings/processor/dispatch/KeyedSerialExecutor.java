@@ -0,0 +1,173 @@
+package org.spring.azure.hub.settings.processor.dispatch;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs tasks with the same key one at a time and in submission order, and tasks with different keys in parallel on
+ * the delegate executor. A key only holds a delegate thread while it has queued tasks, and gives it up after
+ * {@value #MAX_TASKS_PER_TURN} tasks so that busy keys do not starve the others. Tasks without a key are not ordered.
+ * Tasks are expected to handle their own failures; one that throws does not block the tasks queued behind it.
+ * <p>
+ * With a key limit, a task for a new key waits until fewer keys than the limit have queued or running tasks.
+ */
+public class KeyedSerialExecutor {
+
+    private static final int MAX_TASKS_PER_TURN = 16;
+
+    private final Executor delegate;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    /** {@code null} when the number of keys is not limited. */
+    private final Semaphore keyPermits;
+
+    public KeyedSerialExecutor(Executor delegate) {
+        this(delegate, 0);
+    }
+
+    /**
+     * @param maxKeys keys with queued or running tasks at once, unlimited when not positive
+     */
+    public KeyedSerialExecutor(Executor delegate, int maxKeys) {
+        this.delegate = delegate;
+        this.keyPermits = maxKeys > 0 ? new Semaphore(maxKeys) : null;
+    }
+
+    public void execute(String key, Runnable task) throws InterruptedException {
+        if (key == null) {
+            delegate.execute(task);
+            return;
+        }
+        boolean[] permit = new boolean[1];
+        boolean[] schedule = new boolean[1];
+        Lane added;
+        do {
+            if (keyPermits != null && !permit[0] && !lanes.containsKey(key)) {
+                keyPermits.acquire();
+                permit[0] = true;
+            }
+            added = lanes.compute(key, (name, existing) -> {
+                if (existing == null && keyPermits != null && !permit[0])
+                    return null;
+                Lane current = existing;
+                if (current == null) {
+                    current = new Lane(name);
+                    permit[0] = false;
+                }
+                current.tasks.add(task);
+                if (!current.running)
+                    schedule[0] = current.running = true;
+                return current;
+            });
+        } while (added == null);
+        if (permit[0])
+            keyPermits.release();
+        if (!schedule[0])
+            return;
+        Lane lane = added;
+        try {
+            delegate.execute(() -> drain(lane));
+        } catch (RejectedExecutionException e) {
+            boolean[] removed = new boolean[1];
+            lanes.computeIfPresent(key, (name, current) -> {
+                current.tasks.remove(task);
+                current.running = false;
+                removed[0] = current.tasks.isEmpty();
+                return removed[0] ? null : current;
+            });
+            if (removed[0])
+                releaseKey();
+            throw e;
+        }
+    }
+
+    /**
+     * Keys with queued or running tasks.
+     */
+    public int getActiveKeys() {
+        return lanes.size();
+    }
+
+    protected void drain(Lane lane) {
+        while (true) {
+            for (int i = 0; i < MAX_TASKS_PER_TURN; i++) {
+                Runnable next = poll(lane);
+                if (next == null)
+                    return;
+                boolean completed = false;
+                try {
+                    next.run();
+                    completed = true;
+                } finally {
+                    if (!completed)
+                        resume(lane);
+                }
+            }
+            if (poll(lane, true) == null)
+                return;
+            try {
+                delegate.execute(() -> drain(lane));
+                return;
+            } catch (RejectedExecutionException e) {
+                // the delegate is shutting down: keep draining on this thread
+            }
+        }
+    }
+
+    /**
+     * Hands the remaining tasks of a lane to another thread after a task failed.
+     */
+    private void resume(Lane lane) {
+        if (poll(lane, true) == null)
+            return;
+        try {
+            delegate.execute(() -> drain(lane));
+        } catch (RejectedExecutionException e) {
+            if (lanes.remove(lane.key, lane))
+                releaseKey();
+        }
+    }
+
+    private Runnable poll(Lane lane) {
+        return poll(lane, false);
+    }
+
+    /**
+     * Takes the next task, or with {@code peekOnly} checks that one is left. Removes the lane when it is empty, so a
+     * later task for the key schedules a new turn.
+     */
+    private Runnable poll(Lane lane, boolean peekOnly) {
+        Runnable[] next = new Runnable[1];
+        boolean[] removed = new boolean[1];
+        lanes.computeIfPresent(lane.key, (name, current) -> {
+            next[0] = peekOnly ? current.tasks.peek() : current.tasks.poll();
+            if (next[0] != null)
+                return current;
+            current.running = false;
+            removed[0] = true;
+            return null;
+        });
+        if (removed[0])
+            releaseKey();
+        return next[0];
+    }
+
+    private void releaseKey() {
+        if (keyPermits != null)
+            keyPermits.release();
+    }
+
+    static class Lane {
+        private final String key;
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private boolean running;
+
+        Lane(String key) {
+            this.key = key;
+        }
+    }
+}
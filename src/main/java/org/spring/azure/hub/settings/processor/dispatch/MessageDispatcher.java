@@ -0,0 +1,205 @@
+package org.spring.azure.hub.settings.processor.dispatch;
+
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.model.dto.ErrorHandlerMethod;
+import org.spring.azure.hub.model.dto.ListenerBinding;
+import org.spring.azure.hub.settings.processor.InFlightTracker;
+import org.spring.azure.hub.settings.processor.MessageProcessor;
+import org.spring.azure.hub.settings.processor.breaker.CircuitBreaker;
+import org.spring.azure.hub.settings.processor.retry.Redeliverer;
+import org.spring.azure.hub.utilities.ServiceBusObjectUtil;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sits between the processor callback and {@link MessageProcessor}. Bindings without an executor run the listener on
+ * the callback thread, behind the bulkhead when adaptive concurrency is enabled. Otherwise the callback takes a permit
+ * from the entity's bulkhead, hands the message off and returns, so the processor keeps receiving while the listener
+ * runs; failures are then reported to the error handler.
+ * Bindings with an ordering key hand off to a {@link KeyedSerialExecutor}, so messages sharing a key are processed and
+ * settled in the order they were received. With a circuit breaker, each outcome and its duration is recorded, and
+ * messages are only admitted while the breaker allows it.
+ */
+@Slf4j @RequiredArgsConstructor @Component
+public class MessageDispatcher {
+
+    private static final long LOCK_MARGIN_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final MessageProcessor messageProcessor;
+    private final InFlightTracker inFlightTracker;
+
+    public void dispatch(ListenerBinding binding, ErrorHandlerMethod errorHandler, ServiceBusReceivedMessageContext message) {
+        CircuitBreaker.Admission admission = admit(binding, message);
+        if (admission == CircuitBreaker.Admission.REJECTED)
+            return;
+        Executor executor = binding.getExecutor();
+        Bulkhead bulkhead = binding.getBulkhead();
+        if (bulkhead == null) {
+            enter(binding);
+            try {
+                process(binding, null, admission, message);
+            } finally {
+                exit(binding);
+            }
+            return;
+        }
+        try {
+            acquire(binding, bulkhead);
+        } catch (RuntimeException e) {
+            cancel(binding, admission);
+            throw e;
+        }
+        enter(binding);
+        if (executor == null) {
+            try {
+                process(binding, bulkhead, admission, message);
+            } finally {
+                exit(binding);
+                bulkhead.release();
+            }
+            return;
+        }
+        Runnable task = () -> {
+            try {
+                process(binding, bulkhead, admission, message);
+            } catch (Throwable e) {
+                reportError(binding, errorHandler, message, e);
+            } finally {
+                exit(binding);
+                bulkhead.release();
+            }
+        };
+        try {
+            if (binding.getOrderedExecutor() != null)
+                binding.getOrderedExecutor().execute(binding.getOrderingKey().apply(message), task);
+            else
+                executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            exit(binding);
+            bulkhead.release();
+            cancel(binding, admission);
+            throw e;
+        } catch (InterruptedException e) {
+            exit(binding);
+            bulkhead.release();
+            cancel(binding, admission);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted while waiting for a free ordering key of '%s'", binding.getName()), e);
+        }
+    }
+
+    /**
+     * @param bulkhead  {@code null} when the binding has none
+     * @param admission {@code null} when the binding has no circuit breaker
+     */
+    protected void process(ListenerBinding binding, Bulkhead bulkhead, CircuitBreaker.Admission admission,
+                           ServiceBusReceivedMessageContext message) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            messageProcessor.processMessage(binding, message);
+            failed = false;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (bulkhead != null)
+                bulkhead.record(elapsed, failed);
+            if (admission != null)
+                binding.getCircuitBreaker().record(admission, elapsed, failed);
+        }
+    }
+
+    /**
+     * Passes the message through the binding's circuit breaker. While the breaker is open, a message is held on its
+     * callback until the breaker probes, for as long as its lock allows; pending retries are not held. A message still
+     * rejected is given back without using up a delivery attempt where possible: with a redeliverer it is postponed by
+     * the breaker's open duration keeping its retry number, otherwise it is abandoned, or in AUTO mode the callback
+     * fails so that the SDK abandons it.
+     */
+    protected CircuitBreaker.Admission admit(ListenerBinding binding, ServiceBusReceivedMessageContext message) {
+        CircuitBreaker circuitBreaker = binding.getCircuitBreaker();
+        if (circuitBreaker == null)
+            return null;
+        int retries = Redeliverer.retries(message);
+        boolean postponed = binding.getRedeliverer() != null && retries > 0;
+        CircuitBreaker.Admission admission;
+        try {
+            admission = circuitBreaker.acquire(postponed ? System.nanoTime() : holdDeadline(message));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted while waiting for a probe slot of '%s'", binding.getName()), e);
+        }
+        if (admission != CircuitBreaker.Admission.REJECTED)
+            return admission;
+        long sequenceNumber = message.getMessage().getSequenceNumber();
+        if (binding.getRedeliverer() != null) {
+            log.debug("Circuit breaker for '{}' is open; postponing message {}", binding.getName(), sequenceNumber);
+            binding.getRedeliverer().redeliver(binding, message, retries, TimeUnit.NANOSECONDS.toMillis(circuitBreaker.getOpenDurationNanos()));
+            return admission;
+        }
+        log.warn("Circuit breaker for '{}' is open; abandoning message {}, {} rejected so far",
+                binding.getName(), sequenceNumber, circuitBreaker.getRejected());
+        if (binding.isConditional())
+            binding.getSettler().abandon(message);
+        else
+            throw new IllegalStateException(String.format("Circuit breaker for '%s' is open", binding.getName()));
+        return admission;
+    }
+
+    /**
+     * Until when a message may wait for an open breaker: shortly before its lock expires, or indefinitely when it
+     * holds no lock, as in {@code RECEIVE_AND_DELETE} mode.
+     */
+    private static long holdDeadline(ServiceBusReceivedMessageContext message) {
+        long now = System.nanoTime();
+        OffsetDateTime lockedUntil = message.getMessage().getLockedUntil();
+        if (lockedUntil == null)
+            return now + Long.MAX_VALUE / 2;
+        long lockNanos = TimeUnit.MILLISECONDS.toNanos(Duration.between(OffsetDateTime.now(), lockedUntil).toMillis());
+        return now + lockNanos - LOCK_MARGIN_NANOS;
+    }
+
+    private void enter(ListenerBinding binding) {
+        inFlightTracker.enter();
+        binding.getActivity().enter();
+    }
+
+    private void exit(ListenerBinding binding) {
+        binding.getActivity().exit();
+        inFlightTracker.exit();
+    }
+
+    private static void cancel(ListenerBinding binding, CircuitBreaker.Admission admission) {
+        if (admission != null)
+            binding.getCircuitBreaker().cancel(admission);
+    }
+
+    protected void acquire(ListenerBinding binding, Bulkhead bulkhead) {
+        try {
+            bulkhead.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted while waiting for the bulkhead of '%s'", binding.getName()), e);
+        }
+    }
+
+    protected void reportError(ListenerBinding binding, ErrorHandlerMethod errorHandler,
+                               ServiceBusReceivedMessageContext message, Throwable error) {
+        if (errorHandler == null) {
+            log.error("Listener for '{}' failed", binding.getName(), error);
+            return;
+        }
+        try {
+            messageProcessor.handleError(binding, errorHandler, ServiceBusObjectUtil.errorContext(
+                    error, message.getFullyQualifiedNamespace(), message.getEntityPath()));
+        } catch (Throwable e) {
+            log.error("Listener for '{}' failed and its error handler could not be invoked", binding.getName(), error);
+        }
+    }
+}
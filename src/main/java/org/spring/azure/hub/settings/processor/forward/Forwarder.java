@@ -0,0 +1,37 @@
+package org.spring.azure.hub.settings.processor.forward;
+
+import com.azure.messaging.servicebus.ServiceBusMessage;
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import org.spring.azure.hub.model.dto.ListenerBinding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Sends what a listener returned to its output entity and completes the input message. A {@code null} result sends
+ * nothing, a collection one message per element.
+ */
+public interface Forwarder {
+
+    /**
+     * Completes the input message along with the send and returns the number of messages sent; throws when the input
+     * was not completed, so that the caller can settle it as failed.
+     */
+    int forward(ListenerBinding binding, ServiceBusReceivedMessageContext message, Object result);
+
+    static List<ServiceBusMessage> toMessages(Object result, Function<Object, ServiceBusMessage> serializer) {
+        if (result == null)
+            return Collections.emptyList();
+        if (!(result instanceof Collection))
+            return Collections.singletonList(serializer.apply(result));
+        List<ServiceBusMessage> messages = new ArrayList<>(((Collection<?>) result).size());
+        for (Object element : (Collection<?>) result) {
+            if (element != null)
+                messages.add(serializer.apply(element));
+        }
+        return messages;
+    }
+}
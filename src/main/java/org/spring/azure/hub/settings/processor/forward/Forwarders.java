@@ -0,0 +1,59 @@
+package org.spring.azure.hub.settings.processor.forward;
+
+import com.azure.messaging.servicebus.ServiceBusClientBuilder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.emulator.EmulatorForwarder;
+import org.spring.azure.hub.emulator.ServiceBusEmulator;
+import org.spring.azure.hub.model.dto.OutputEntity;
+import org.spring.azure.hub.settings.sender.MessageBusTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Forwarders of listeners with an {@code outputQueue} or {@code outputTopic}, serializing results like
+ * {@link MessageBusTemplate}. A processor keeps its forwarder, and its sender, when it is rebuilt. {@link #shutdown()}
+ * is called once in-flight messages drained and before processors are closed.
+ */
+@Slf4j @RequiredArgsConstructor @Component
+public class Forwarders {
+
+    private final MessageBusTemplate messageBusTemplate;
+    private final Map<String, SenderForwarder> senderForwarders = new ConcurrentHashMap<>();
+
+    /**
+     * @param clientBuilder the processor's builder for transactional forwarders, else any builder of the namespace
+     */
+    public Forwarder sender(String processorName, OutputEntity output, boolean transactional, Supplier<ServiceBusClientBuilder> clientBuilder) {
+        String key = String.format("%s->%s%s", processorName, output, transactional ? " in transactions" : "");
+        return senderForwarders.computeIfAbsent(key, ignored -> new SenderForwarder(output, transactional, () -> {
+            ServiceBusClientBuilder.ServiceBusSenderClientBuilder senderBuilder = clientBuilder.get().sender();
+            if (output.isTopic())
+                senderBuilder.topicName(output.getName());
+            else
+                senderBuilder.queueName(output.getName());
+            log.info("Creating forwarding sender for '{}' to {}", processorName, output);
+            return senderBuilder.buildClient();
+        }, messageBusTemplate::toMessage));
+    }
+
+    public Forwarder emulator(ServiceBusEmulator emulator, OutputEntity output) {
+        return new EmulatorForwarder(emulator, output, messageBusTemplate::toMessage);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senderForwarders.values().forEach(forwarder -> {
+            try {
+                forwarder.close();
+            } catch (RuntimeException e) {
+                log.warn("Unable to close forwarding sender", e);
+            }
+        });
+        senderForwarders.clear();
+    }
+}
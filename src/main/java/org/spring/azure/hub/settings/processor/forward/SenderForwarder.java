@@ -0,0 +1,111 @@
+package org.spring.azure.hub.settings.processor.forward;
+
+import com.azure.messaging.servicebus.ServiceBusMessage;
+import com.azure.messaging.servicebus.ServiceBusMessageBatch;
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import com.azure.messaging.servicebus.ServiceBusSenderClient;
+import com.azure.messaging.servicebus.ServiceBusTransactionContext;
+import com.azure.messaging.servicebus.models.CompleteOptions;
+import org.spring.azure.hub.model.dto.ListenerBinding;
+import org.spring.azure.hub.model.dto.OutputEntity;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Forwards through a sender to the output entity, in as few batches as the results fit in. Transactional forwarders
+ * complete the input and send every batch in one cross-entity transaction, so either all of it happens or none; their
+ * sender must come from the processor's client builder, with cross-entity transactions enabled. Otherwise the results
+ * are sent before the input is completed, and a failed completion sends them again on redelivery.
+ */
+public class SenderForwarder implements Forwarder, AutoCloseable {
+
+    private final OutputEntity output;
+    private final boolean transactional;
+    private final Supplier<ServiceBusSenderClient> senderFactory;
+    private final Function<Object, ServiceBusMessage> serializer;
+    private volatile ServiceBusSenderClient sender;
+
+    /**
+     * @param senderFactory builds the output entity's sender on the first forward, after the processor received from
+     *                      the input entity, which transactions then run through
+     */
+    public SenderForwarder(OutputEntity output, boolean transactional, Supplier<ServiceBusSenderClient> senderFactory,
+                           Function<Object, ServiceBusMessage> serializer) {
+        this.output = output;
+        this.transactional = transactional;
+        this.senderFactory = senderFactory;
+        this.serializer = serializer;
+    }
+
+    @Override
+    public int forward(ListenerBinding binding, ServiceBusReceivedMessageContext message, Object result) {
+        List<ServiceBusMessage> outputs = Forwarder.toMessages(result, serializer);
+        if (outputs.isEmpty()) {
+            binding.getSettler().complete(message);
+            return 0;
+        }
+        ServiceBusSenderClient sender = sender();
+        if (!transactional) {
+            send(sender, outputs, null);
+            binding.getSettler().complete(message);
+            return outputs.size();
+        }
+        ServiceBusTransactionContext transaction = sender.createTransaction();
+        try {
+            message.complete(new CompleteOptions().setTransactionContext(transaction));
+            send(sender, outputs, transaction);
+            sender.commitTransaction(transaction);
+        } catch (RuntimeException e) {
+            try {
+                sender.rollbackTransaction(transaction);
+            } catch (RuntimeException rollback) {
+                e.addSuppressed(rollback);
+            }
+            throw e;
+        }
+        return outputs.size();
+    }
+
+    protected void send(ServiceBusSenderClient sender, List<ServiceBusMessage> outputs, ServiceBusTransactionContext transaction) {
+        ServiceBusMessageBatch batch = sender.createMessageBatch();
+        for (ServiceBusMessage message : outputs) {
+            if (batch.tryAddMessage(message))
+                continue;
+            if (batch.getCount() > 0) {
+                send(sender, batch, transaction);
+                batch = sender.createMessageBatch();
+            }
+            if (!batch.tryAddMessage(message))
+                throw new IllegalStateException(String.format("Message '%s' for %s exceeds the maximum batch size of %d bytes",
+                        message.getMessageId(), output, batch.getMaxSizeInBytes()));
+        }
+        if (batch.getCount() > 0)
+            send(sender, batch, transaction);
+    }
+
+    private static void send(ServiceBusSenderClient sender, ServiceBusMessageBatch batch, ServiceBusTransactionContext transaction) {
+        if (transaction != null)
+            sender.sendMessages(batch, transaction);
+        else
+            sender.sendMessages(batch);
+    }
+
+    private ServiceBusSenderClient sender() {
+        if (sender == null) {
+            synchronized (this) {
+                if (sender == null)
+                    sender = senderFactory.get();
+            }
+        }
+        return sender;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (sender != null)
+            sender.close();
+        sender = null;
+    }
+}
@@ -0,0 +1,143 @@
+package org.spring.azure.hub.settings.processor.invoker;
+
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.spring.azure.hub.annotation.QueueListener;
+import org.spring.azure.hub.annotation.TopicListener;
+import org.spring.azure.hub.model.dto.OutputEntity;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+
+/**
+ * Listener call site compiled once at registration time. The argument layout and payload type are
+ * resolved up front so the message hot path only has to deserialize, invoke and settle.
+ */
+@Getter @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ListenerInvoker {
+
+    private final Method method;
+    private final MethodHandle handle;
+    private final ArgumentLayout layout;
+    private final Class<?> payloadType;
+    private final Type genericPayloadType;
+
+    /**
+     * For batch listeners the payload type is the element type of the {@code List} parameter.
+     */
+    public static ListenerInvoker compile(Object bean, Method method) {
+        if (isBatch(method)) {
+            ResolvableType elementType = ResolvableType.forMethodParameter(method, 0).asCollection().getGeneric(0);
+            Class<?> elementClass = elementType.resolve(Object.class);
+            if (ServiceBusReceivedMessageContext.class.isAssignableFrom(elementClass))
+                return new ListenerInvoker(method, toHandle(bean, method), ArgumentLayout.CONTEXT_BATCH, null, null);
+            return new ListenerInvoker(method, toHandle(bean, method), ArgumentLayout.BATCH, elementClass, elementType.getType());
+        }
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        Type[] genericParameterTypes = method.getGenericParameterTypes();
+        ArgumentLayout layout = ArgumentLayout.of(parameterTypes);
+        int payloadIndex = layout.getPayloadIndex();
+        Class<?> payloadType = payloadIndex < 0 ? null : parameterTypes[payloadIndex];
+        Type genericPayloadType = payloadIndex < 0 ? null : genericParameterTypes[payloadIndex];
+        return new ListenerInvoker(method, toHandle(bean, method), layout, payloadType, genericPayloadType);
+    }
+
+    public static boolean isBatch(Method method) {
+        QueueListener queueListener = method.getAnnotation(QueueListener.class);
+        if (queueListener != null)
+            return queueListener.batch();
+        TopicListener topicListener = method.getAnnotation(TopicListener.class);
+        return topicListener != null && topicListener.batch();
+    }
+
+    /**
+     * The {@code timeout} of the listener annotation, negative when it is not set.
+     */
+    public static long timeout(Method method) {
+        QueueListener queueListener = method.getAnnotation(QueueListener.class);
+        if (queueListener != null)
+            return queueListener.timeout();
+        TopicListener topicListener = method.getAnnotation(TopicListener.class);
+        return topicListener != null ? topicListener.timeout() : -1;
+    }
+
+    /**
+     * The {@code outputQueue} or {@code outputTopic} of the listener annotation, {@code null} when neither is set.
+     */
+    public static OutputEntity output(Method method) {
+        QueueListener queueListener = method.getAnnotation(QueueListener.class);
+        TopicListener topicListener = method.getAnnotation(TopicListener.class);
+        String outputQueue = queueListener != null ? queueListener.outputQueue() : topicListener != null ? topicListener.outputQueue() : "";
+        String outputTopic = queueListener != null ? queueListener.outputTopic() : topicListener != null ? topicListener.outputTopic() : "";
+        if (!outputQueue.isEmpty())
+            return new OutputEntity(outputQueue, false);
+        return outputTopic.isEmpty() ? null : new OutputEntity(outputTopic, true);
+    }
+
+    public boolean hasPayload() {
+        return payloadType != null;
+    }
+
+    public boolean hasContext() {
+        return layout != ArgumentLayout.PAYLOAD && layout != ArgumentLayout.BATCH;
+    }
+
+    public boolean isBatch() {
+        return layout == ArgumentLayout.BATCH || layout == ArgumentLayout.CONTEXT_BATCH;
+    }
+
+    public boolean isAutoAck(boolean isConditional) {
+        return isConditional && !hasContext();
+    }
+
+    public Object invoke(Object payload, ServiceBusReceivedMessageContext message) throws Throwable {
+        switch (layout) {
+            case PAYLOAD:
+            case BATCH:
+            case CONTEXT_BATCH:
+                return (Object) handle.invokeExact(payload);
+            case CONTEXT:
+                return (Object) handle.invokeExact((Object) message);
+            case PAYLOAD_CONTEXT:
+                return (Object) handle.invokeExact(payload, (Object) message);
+            default:
+                return (Object) handle.invokeExact((Object) message, payload);
+        }
+    }
+
+    protected static MethodHandle toHandle(Object bean, Method method) {
+        ReflectionUtils.makeAccessible(method);
+        try {
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (!Modifier.isStatic(method.getModifiers()))
+                handle = handle.bindTo(bean);
+            return handle.asType(MethodType.genericMethodType(method.getParameterCount()));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(String.format(
+                    "Unable to compile listener method '%s' in class '%s'.", method.getName(), method.getDeclaringClass().getSimpleName()), e);
+        }
+    }
+
+    @Getter @RequiredArgsConstructor
+    public enum ArgumentLayout {
+
+        PAYLOAD(0), CONTEXT(-1), PAYLOAD_CONTEXT(0), CONTEXT_PAYLOAD(1), BATCH(0), CONTEXT_BATCH(0);
+
+        private final int payloadIndex;
+
+        static ArgumentLayout of(Class<?>[] parameterTypes) {
+            boolean firstIsContext = ServiceBusReceivedMessageContext.class.isAssignableFrom(parameterTypes[0]);
+            if (parameterTypes.length == 1)
+                return firstIsContext ? CONTEXT : PAYLOAD;
+            return firstIsContext ? CONTEXT_PAYLOAD : PAYLOAD_CONTEXT;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package org.spring.azure.hub.settings.processor.retry;
+
+import com.azure.messaging.servicebus.ServiceBusException;
+import com.azure.messaging.servicebus.ServiceBusFailureReason;
+import com.azure.messaging.servicebus.ServiceBusReceivedMessage;
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import com.azure.messaging.servicebus.ServiceBusReceiverAsyncClient;
+import com.azure.messaging.servicebus.models.DeadLetterOptions;
+import com.azure.messaging.servicebus.models.DeferOptions;
+import com.azure.messaging.servicebus.models.ServiceBusMessageState;
+import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.model.dto.ListenerBinding;
+import org.spring.azure.hub.utilities.ServiceBusObjectUtil;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Redelivers subscription messages, which cannot be sent back to a single subscription, by deferring them and
+ * receiving them again by sequence number when the delay has passed. The retry number and the due time are written
+ * onto the deferred message, so that retries left deferred by a crash are found by peeking the subscription when the
+ * redeliverer is first bound, and scheduled again. At shutdown pending retries are dead-lettered with reason
+ * {@value #INTERRUPTED}. A retry whose receive fails is received again with the binding's backoff, up to
+ * {@value #RECEIVE_ATTEMPTS} times; one whose dispatch fails is deferred again. One redeliverer serves a subscription
+ * across rebuilds of its processor: deferred messages are received with a receiver of its own and dispatched to the
+ * current binding, so retries pending when the processor is replaced are still delivered.
+ */
+@Slf4j
+public class DeferredRedeliverer implements Redeliverer, AutoCloseable {
+
+    public static final String INTERRUPTED = "RetryInterrupted";
+    public static final String DUE_PROPERTY = "servicebus-hub-retry-due";
+    private static final Duration RECEIVE_TIMEOUT = Duration.ofSeconds(30);
+    private static final int RECEIVE_ATTEMPTS = 10;
+    private static final int PEEK_BATCH = 250;
+
+    private final RetryScheduler scheduler;
+    private final BiConsumer<ListenerBinding, ServiceBusReceivedMessageContext> dispatcher;
+    private final Supplier<ServiceBusReceiverAsyncClient> receiverFactory;
+    private volatile ServiceBusReceiverAsyncClient receiver;
+    private volatile ListenerBinding binding;
+
+    /**
+     * @param dispatcher      hands a redelivered message to the processor's pipeline, as its callback would
+     * @param receiverFactory builds the subscription's receiver on the first retry or recovery
+     */
+    public DeferredRedeliverer(RetryScheduler scheduler, BiConsumer<ListenerBinding, ServiceBusReceivedMessageContext> dispatcher,
+                               Supplier<ServiceBusReceiverAsyncClient> receiverFactory) {
+        this.scheduler = scheduler;
+        this.dispatcher = dispatcher;
+        this.receiverFactory = receiverFactory;
+    }
+
+    /**
+     * Sets the binding of the processor now consuming the subscription, which pending retries are dispatched to. The
+     * first binding also starts the recovery of retries left deferred by an earlier run.
+     */
+    public void bind(ListenerBinding binding) {
+        ListenerBinding previous;
+        synchronized (this) {
+            previous = this.binding;
+            this.binding = binding;
+        }
+        if (previous == null)
+            recover(binding, 0, new AtomicInteger());
+    }
+
+    @Override
+    public void redeliver(ListenerBinding binding, ServiceBusReceivedMessageContext message, int retry, long delayMillis) {
+        long sequenceNumber = message.getMessage().getSequenceNumber();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(RETRY_PROPERTY, retry);
+        properties.put(DUE_PROPERTY, System.currentTimeMillis() + delayMillis);
+        message.defer(new DeferOptions().setPropertiesToModify(properties));
+        schedule(binding, sequenceNumber, retry, delayMillis, 0);
+    }
+
+    private void schedule(ListenerBinding binding, long sequenceNumber, int retry, long delayMillis, int failures) {
+        scheduler.schedule(binding.getName(), sequenceNumber, delayMillis,
+                () -> receive(sequenceNumber, retry)
+                        .doOnSuccess(received -> {
+                            if (received == null)
+                                log.warn("Deferred message {} of '{}' was settled elsewhere; dropping its retry", sequenceNumber, binding.getName());
+                            else
+                                handOff(binding, received, retry);
+                        })
+                        .subscribe(null, error -> receiveFailed(binding, sequenceNumber, retry, failures + 1, error)),
+                () -> interrupt(sequenceNumber, retry));
+    }
+
+    /**
+     * Receives the deferred message without blocking the timer thread that fired; empty once it was settled elsewhere.
+     */
+    protected Mono<ServiceBusReceivedMessageContext> receive(long sequenceNumber, int retry) {
+        ServiceBusReceiverAsyncClient receiver = receiver();
+        return receiver.receiveDeferredMessage(sequenceNumber)
+                .timeout(RECEIVE_TIMEOUT)
+                .onErrorResume(DeferredRedeliverer::isNotFound, e -> Mono.empty())
+                .map(message -> {
+                    message.getApplicationProperties().put(RETRY_PROPERTY, retry);
+                    return ServiceBusObjectUtil.receivedMessageContext(receiver, message);
+                });
+    }
+
+    private void receiveFailed(ListenerBinding binding, long sequenceNumber, int retry, int failures, Throwable error) {
+        ListenerBinding current = current(binding);
+        if (failures >= RECEIVE_ATTEMPTS) {
+            log.error("Unable to receive deferred message {} of '{}' after {} attempts; it stays deferred until the next startup",
+                    sequenceNumber, current.getName(), failures, error);
+            return;
+        }
+        long delay = current.getRetryPolicy().delayMillis(failures);
+        log.warn("Unable to receive deferred message {} of '{}'; trying again in {} ms", sequenceNumber, current.getName(), delay, error);
+        try {
+            schedule(current, sequenceNumber, retry, delay, failures);
+        } catch (RuntimeException e) {
+            log.error("Unable to reschedule deferred message {} of '{}'; it stays deferred until the next startup", sequenceNumber, current.getName(), e);
+        }
+    }
+
+    private void handOff(ListenerBinding binding, ServiceBusReceivedMessageContext message, int retry) {
+        try {
+            scheduler.dispatch(() -> deliver(binding, message, retry));
+        } catch (RuntimeException e) {
+            log.error("Unable to hand off deferred message {} of '{}'; it stays deferred until the next startup",
+                    message.getMessage().getSequenceNumber(), binding.getName(), e);
+        }
+    }
+
+    /**
+     * Dispatches the retry to the current binding. When the dispatch fails before the pipeline settled the message,
+     * as with a rejected execution, the message is deferred again with the binding's backoff rather than left locked.
+     */
+    private void deliver(ListenerBinding binding, ServiceBusReceivedMessageContext message, int retry) {
+        ListenerBinding current = current(binding);
+        try {
+            dispatcher.accept(current, message);
+        } catch (RuntimeException e) {
+            long sequenceNumber = message.getMessage().getSequenceNumber();
+            try {
+                redeliver(current, message, retry, current.getRetryPolicy().delayMillis(retry));
+                log.warn("Unable to redeliver message {} of '{}'; deferred it again", sequenceNumber, current.getName(), e);
+            } catch (RuntimeException deferError) {
+                log.error("Unable to redeliver message {} of '{}'", sequenceNumber, current.getName(), e);
+            }
+        }
+    }
+
+    private void interrupt(long sequenceNumber, int retry) {
+        ServiceBusReceivedMessageContext message = receive(sequenceNumber, retry).block(RECEIVE_TIMEOUT);
+        if (message != null)
+            message.deadLetter(new DeadLetterOptions()
+                    .setDeadLetterReason(INTERRUPTED)
+                    .setDeadLetterErrorDescription(String.format("Retry %d was pending when the application stopped.", retry)));
+    }
+
+    /**
+     * Pages through the subscription from {@code fromSequenceNumber} and schedules every deferred retry that is not
+     * pending yet at its due time.
+     */
+    private void recover(ListenerBinding binding, long fromSequenceNumber, AtomicInteger recovered) {
+        receiver().peekMessages(PEEK_BATCH, fromSequenceNumber).collectList().subscribe(messages -> {
+            for (ServiceBusReceivedMessage message : messages)
+                if (recover(binding, message))
+                    recovered.incrementAndGet();
+            if (!messages.isEmpty())
+                recover(binding, messages.get(messages.size() - 1).getSequenceNumber() + 1, recovered);
+            else if (recovered.get() > 0)
+                log.info("Recovered {} deferred retries of '{}'", recovered.get(), binding.getName());
+        }, error -> log.error("Unable to recover deferred retries of '{}'", binding.getName(), error));
+    }
+
+    private boolean recover(ListenerBinding binding, ServiceBusReceivedMessage message) {
+        if (message.getState() != ServiceBusMessageState.DEFERRED || !message.getApplicationProperties().containsKey(RETRY_PROPERTY)
+                || scheduler.isPending(binding.getName(), message.getSequenceNumber()))
+            return false;
+        Object due = message.getApplicationProperties().get(DUE_PROPERTY);
+        long delay = due instanceof Number ? Math.max(((Number) due).longValue() - System.currentTimeMillis(), 0) : 0;
+        schedule(binding, message.getSequenceNumber(), Redeliverer.retries(message), delay, 0);
+        return true;
+    }
+
+    private ListenerBinding current(ListenerBinding binding) {
+        return this.binding != null ? this.binding : binding;
+    }
+
+    private static boolean isNotFound(Throwable error) {
+        return error instanceof ServiceBusException
+                && ((ServiceBusException) error).getReason() == ServiceBusFailureReason.MESSAGE_NOT_FOUND;
+    }
+
+    private ServiceBusReceiverAsyncClient receiver() {
+        if (receiver == null) {
+            synchronized (this) {
+                if (receiver == null)
+                    receiver = receiverFactory.get();
+            }
+        }
+        return receiver;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (receiver != null)
+            receiver.close();
+        receiver = null;
+    }
+}
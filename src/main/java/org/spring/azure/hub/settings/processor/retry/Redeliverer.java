@@ -0,0 +1,55 @@
+package org.spring.azure.hub.settings.processor.retry;
+
+import com.azure.messaging.servicebus.ServiceBusReceivedMessage;
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import org.spring.azure.hub.model.dto.ListenerBinding;
+
+import java.util.Map;
+
+/**
+ * Takes a failed message off its entity and delivers it again after a delay, without holding its lock or a
+ * processor slot in between. The retry number travels with the message in {@value #RETRY_PROPERTY}. Copies sent back
+ * to the entity get a message id of their own, so that duplicate detection does not drop them, and carry the id of
+ * the first delivery in {@value #ORIGINAL_MESSAGE_ID_PROPERTY}.
+ */
+public interface Redeliverer {
+
+    String RETRY_PROPERTY = "servicebus-hub-retry";
+    String ORIGINAL_MESSAGE_ID_PROPERTY = "servicebus-hub-original-message-id";
+
+    /**
+     * Settles the message and arranges its redelivery; throws when neither happened, so that the caller can abandon it.
+     */
+    void redeliver(ListenerBinding binding, ServiceBusReceivedMessageContext message, int retry, long delayMillis);
+
+    /**
+     * Stamps the retry number and the original message id on the application properties of a copy of {@code message}.
+     */
+    static void markCopy(Map<String, Object> properties, ServiceBusReceivedMessage message, int retry) {
+        properties.put(RETRY_PROPERTY, retry);
+        if (message.getMessageId() != null)
+            properties.putIfAbsent(ORIGINAL_MESSAGE_ID_PROPERTY, message.getMessageId());
+    }
+
+    /**
+     * The message id of the first delivery, also for copies made by a redeliverer.
+     */
+    static String originalMessageId(ServiceBusReceivedMessage message) {
+        Object original = message.getApplicationProperties().get(ORIGINAL_MESSAGE_ID_PROPERTY);
+        return original != null ? original.toString() : message.getMessageId();
+    }
+
+    /**
+     * Retries already made for the message, {@code 0} on its first delivery.
+     */
+    static int retries(ServiceBusReceivedMessageContext message) {
+        return retries(message.getMessage());
+    }
+
+    static int retries(ServiceBusReceivedMessage message) {
+        Object value = message.getApplicationProperties().get(RETRY_PROPERTY);
+        if (value instanceof Number)
+            return ((Number) value).intValue();
+        return value != null ? Integer.parseInt(value.toString()) : 0;
+    }
+}
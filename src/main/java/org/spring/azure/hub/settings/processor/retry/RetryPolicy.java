@@ -0,0 +1,34 @@
+package org.spring.azure.hub.settings.processor.retry;
+
+import lombok.Data;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter: retry {@code n} waits between half and all of {@code min(backoff * 2^(n-1),
+ * maxBackoff)} milliseconds, so that messages failing together do not come back together.
+ */
+public @Data class RetryPolicy {
+
+    private final int maxRetries;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+
+    public RetryPolicy(int maxRetries, long backoffMillis, long maxBackoffMillis) {
+        if (backoffMillis < 1 || maxBackoffMillis < backoffMillis)
+            throw new IllegalArgumentException(String.format(
+                    "retryBackoff must be at least 1 ms and at most retryMaxBackoff, were %d and %d", backoffMillis, maxBackoffMillis));
+        this.maxRetries = maxRetries;
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public long delayMillis(int retry) {
+        int shift = Math.min(Math.max(retry - 1, 0), 62);
+        long delay = backoffMillis << shift;
+        if (delay >> shift != backoffMillis || delay > maxBackoffMillis)
+            delay = maxBackoffMillis;
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+}
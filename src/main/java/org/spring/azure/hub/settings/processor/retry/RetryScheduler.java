@@ -0,0 +1,144 @@
+package org.spring.azure.hub.settings.processor.retry;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Timers of retries waiting inside the application, and the clients retries need. Timers fire on a pool of
+ * {@value #THREADS} threads and must not block; redelivered messages run through their processor's pipeline on a
+ * separate pool of {@value #DISPATCH_THREADS} threads, so a slow listener never holds up the timers of other
+ * entities. {@link #shutdown()} is called once processors stopped receiving and before their clients are closed, so
+ * that pending retries can still be settled.
+ */
+@Slf4j @Component
+public class RetryScheduler {
+
+    private static final int THREADS = 4;
+    private static final int DISPATCH_THREADS = 16;
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final List<AutoCloseable> resources = new CopyOnWriteArrayList<>();
+    private volatile ScheduledExecutorService timer;
+    private volatile ExecutorService dispatcher;
+
+    /**
+     * Runs {@code redeliver} after the delay, or {@code interrupt} instead if the application stops first.
+     */
+    public void schedule(String name, long sequenceNumber, long delayMillis, Runnable redeliver, Runnable interrupt) {
+        String key = name + '#' + sequenceNumber;
+        pending.put(key, new Pending(name, sequenceNumber, interrupt));
+        timer().schedule(() -> {
+            if (pending.remove(key) == null)
+                return;
+            try {
+                redeliver.run();
+            } catch (Throwable e) {
+                log.error("Unable to redeliver message {} of '{}'; it stays deferred until the next startup", sequenceNumber, name, e);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs a redelivered message through its processor's pipeline, off the timer threads.
+     */
+    public void dispatch(Runnable task) {
+        dispatcher().execute(task);
+    }
+
+    /**
+     * Closes the resource at shutdown.
+     */
+    public <T extends AutoCloseable> T track(T resource) {
+        resources.add(resource);
+        return resource;
+    }
+
+    public boolean isPending(String name, long sequenceNumber) {
+        return pending.containsKey(name + '#' + sequenceNumber);
+    }
+
+    public int getPending() {
+        return pending.size();
+    }
+
+    public void shutdown() {
+        if (timer != null)
+            timer.shutdownNow();
+        if (dispatcher != null)
+            dispatcher.shutdown();
+        if (!pending.isEmpty())
+            log.warn("Dead-lettering {} messages waiting for a retry", pending.size());
+        for (String key : pending.keySet()) {
+            Pending retry = pending.remove(key);
+            if (retry == null)
+                continue;
+            try {
+                retry.interrupt.run();
+            } catch (Throwable e) {
+                log.error("Unable to settle message {} of '{}' waiting for a retry; it stays deferred", retry.sequenceNumber, retry.name, e);
+            }
+        }
+        for (AutoCloseable resource : resources) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                log.warn("Unable to close retry resource {}", resource, e);
+            }
+        }
+        resources.clear();
+    }
+
+    private ScheduledExecutorService timer() {
+        if (timer != null)
+            return timer;
+        synchronized (this) {
+            if (timer == null) {
+                AtomicInteger threads = new AtomicInteger();
+                timer = Executors.newScheduledThreadPool(THREADS, runnable -> {
+                    Thread thread = new Thread(runnable, "servicebus-retry-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            return timer;
+        }
+    }
+
+    private ExecutorService dispatcher() {
+        if (dispatcher != null)
+            return dispatcher;
+        synchronized (this) {
+            if (dispatcher == null) {
+                AtomicInteger threads = new AtomicInteger();
+                dispatcher = Executors.newFixedThreadPool(DISPATCH_THREADS, runnable -> {
+                    Thread thread = new Thread(runnable, "servicebus-redelivery-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            return dispatcher;
+        }
+    }
+
+    static class Pending {
+        private final String name;
+        private final long sequenceNumber;
+        private final Runnable interrupt;
+
+        Pending(String name, long sequenceNumber, Runnable interrupt) {
+            this.name = name;
+            this.sequenceNumber = sequenceNumber;
+            this.interrupt = interrupt;
+        }
+    }
+}
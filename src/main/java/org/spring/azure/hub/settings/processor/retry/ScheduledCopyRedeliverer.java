@@ -0,0 +1,56 @@
+package org.spring.azure.hub.settings.processor.retry;
+
+import com.azure.messaging.servicebus.ServiceBusMessage;
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import com.azure.messaging.servicebus.ServiceBusSenderClient;
+import org.spring.azure.hub.model.dto.ListenerBinding;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Redelivers queue messages by scheduling a copy on the queue and completing the original. The copy is stored by
+ * Service Bus, so a pending retry survives a restart. It has a fresh message id, as a queue with duplicate detection
+ * would otherwise drop it. If completing fails after the copy was scheduled, the message is processed twice;
+ * {@code deduplication}, which keys copies by their original id, filters that out.
+ */
+public class ScheduledCopyRedeliverer implements Redeliverer, AutoCloseable {
+
+    private final Supplier<ServiceBusSenderClient> senderFactory;
+    private volatile ServiceBusSenderClient sender;
+
+    /**
+     * @param senderFactory builds the queue's sender on the first retry
+     */
+    public ScheduledCopyRedeliverer(Supplier<ServiceBusSenderClient> senderFactory) {
+        this.senderFactory = senderFactory;
+    }
+
+    @Override
+    public void redeliver(ListenerBinding binding, ServiceBusReceivedMessageContext message, int retry, long delayMillis) {
+        ServiceBusMessage copy = new ServiceBusMessage(message.getMessage());
+        copy.setMessageId(UUID.randomUUID().toString());
+        Redeliverer.markCopy(copy.getApplicationProperties(), message.getMessage(), retry);
+        sender().scheduleMessage(copy, OffsetDateTime.now().plus(delayMillis, ChronoUnit.MILLIS));
+        binding.getSettler().complete(message);
+    }
+
+    private ServiceBusSenderClient sender() {
+        if (sender == null) {
+            synchronized (this) {
+                if (sender == null)
+                    sender = senderFactory.get();
+            }
+        }
+        return sender;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (sender != null)
+            sender.close();
+        sender = null;
+    }
+}
@@ -0,0 +1,13 @@
+package org.spring.azure.hub.settings.processor.serialization;
+
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+
+/**
+ * Deserializer bound to a single listener payload type. Resolved once per processor by {@link Serializer#reader}.
+ */
+@FunctionalInterface
+public interface PayloadReader {
+
+    Object read(ServiceBusReceivedMessageContext message);
+
+}
@@ -1,34 +1,34 @@
-
 package org.spring.azure.hub.settings.processor.serialization;
 
-import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
 import org.spring.azure.hub.model.context.ServiceBusSharedResources;
+import org.spring.azure.hub.settings.processor.serialization.codec.PayloadCodecRegistry;
+
+import java.lang.reflect.Type;
 
 @Slf4j @UtilityClass
 public class Serializer {
 
-    public static Object serialize(Class<?> targetType,
-                                   ServiceBusReceivedMessageContext message,
-                                   ObjectMapper objectMapper,
-                                   ServiceBusSharedResources sharedResources) {
+    /**
+     * Resolves the custom serializer or codec readers for a listener payload once, so the per-message path skips
+     * the serializer map lookup and Jackson's root deserializer resolution. Generic payloads such as
+     * {@code List<Order>} keep their full type through {@code genericType}.
+     */
+    public static PayloadReader reader(Class<?> targetType,
+                                       Type genericType,
+                                       ObjectMapper objectMapper,
+                                       PayloadCodecRegistry codecRegistry,
+                                       ServiceBusSharedResources sharedResources) {
         ServiceBusSerializer<?> serializer = sharedResources.getSerializerMap().get(targetType);
         if (serializer != null) {
-            log.debug("Deserializing message using custom serializer for type '{}'", targetType.getName());
-            return serializer.serialize(message);
-        } else {
-            try {
-                log.debug("Deserializing message to type '{}'", targetType.getName());
-                byte[] messageBytes = message.getMessage().getBody().toBytes();
-                return objectMapper.readValue(messageBytes, targetType);
-            } catch (Exception e) {
-                throw new IllegalStateException(
-                        String.format("Failed to deserialize message to type: '%s'. Ensure the message body is correctly formatted.", targetType.getName()),
-                        e
-                );
-            }
+            log.debug("Binding custom serializer {} for type '{}'", serializer.getClass(), targetType.getName());
+            return serializer::serialize;
         }
+        JavaType javaType = objectMapper.getTypeFactory().constructType(genericType);
+        log.debug("Binding codec readers for type '{}'", javaType);
+        return codecRegistry.reader(javaType);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,32 @@
+package org.spring.azure.hub.settings.processor.serialization.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroSchema;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collection;
+
+/**
+ * Avro binary codec. The reader schema is generated from the listener payload type, so producers must write
+ * with a compatible schema.
+ */
+@RequiredArgsConstructor
+public class AvroPayloadCodec implements PayloadCodec {
+
+    private final AvroMapper avroMapper;
+    @Getter private final Collection<String> contentTypes;
+
+    @Override
+    public PayloadDecoder decoder(JavaType type) {
+        try {
+            AvroSchema schema = avroMapper.schemaFor(type);
+            ObjectReader objectReader = avroMapper.readerFor(type).with(schema);
+            return objectReader::readValue;
+        } catch (Exception e) {
+            throw new IllegalStateException(String.format("Unable to generate an Avro schema for type: '%s'.", type.toCanonical()), e);
+        }
+    }
+}
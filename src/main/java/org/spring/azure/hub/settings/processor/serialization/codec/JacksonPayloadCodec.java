@@ -0,0 +1,25 @@
+package org.spring.azure.hub.settings.processor.serialization.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collection;
+
+/**
+ * Codec for any Jackson backed format; JSON, Smile and CBOR only differ by the mapper's factory.
+ */
+@RequiredArgsConstructor
+public class JacksonPayloadCodec implements PayloadCodec {
+
+    private final ObjectMapper objectMapper;
+    @Getter private final Collection<String> contentTypes;
+
+    @Override
+    public PayloadDecoder decoder(JavaType type) {
+        ObjectReader objectReader = objectMapper.readerFor(type);
+        return objectReader::readValue;
+    }
+}
@@ -0,0 +1,20 @@
+package org.spring.azure.hub.settings.processor.serialization.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+
+import java.util.Collection;
+
+/**
+ * Decodes message bodies for the content types it declares. Register implementations as beans to add formats
+ * next to the built-in JSON, Smile, CBOR, Avro and Protobuf codecs.
+ */
+public interface PayloadCodec {
+
+    /**
+     * Lower-case MIME types without parameters, e.g. {@code application/cbor}.
+     */
+    Collection<String> getContentTypes();
+
+    PayloadDecoder decoder(JavaType type);
+
+}
@@ -0,0 +1,107 @@
+package org.spring.azure.hub.settings.processor.serialization.codec;
+
+import com.azure.messaging.servicebus.ServiceBusReceivedMessage;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.settings.processor.serialization.PayloadReader;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Picks the decoder for each message from its {@code contentType}, or from the application property named by
+ * {@code servicebus.contentTypeProperty} when the content type is not set. Messages without a known content type
+ * are read as JSON, so producers can switch formats one at a time without touching listener signatures.
+ */
+@Slf4j @Component
+public class PayloadCodecRegistry {
+
+    public static final String JSON = "application/json";
+    private static final String JSON_SUFFIX = "+json";
+    private static final int MAX_CONTENT_TYPES_PER_LISTENER = 32;
+
+    private final PayloadCodec jsonCodec;
+    private final Map<String, PayloadCodec> codecs = new HashMap<>();
+    private final String contentTypeProperty;
+
+    public PayloadCodecRegistry(ObjectMapper serviceBusClientObjectMapper,
+                                ObjectProvider<PayloadCodec> payloadCodecs,
+                                @Value("${servicebus.content-type-property:}") String contentTypeProperty) {
+        this.jsonCodec = new JacksonPayloadCodec(serviceBusClientObjectMapper, Arrays.asList(JSON, "text/json"));
+        this.contentTypeProperty = contentTypeProperty;
+        register(jsonCodec);
+        payloadCodecs.orderedStream().forEach(this::register);
+    }
+
+    public PayloadReader reader(JavaType type) {
+        PayloadDecoder jsonDecoder = jsonCodec.decoder(type);
+        ConcurrentMap<String, PayloadDecoder> decoders = new ConcurrentHashMap<>();
+        return message -> {
+            String contentType = resolveContentType(message.getMessage());
+            PayloadDecoder decoder = contentType == null ? jsonDecoder : decoders.get(contentType);
+            if (decoder == null) {
+                decoder = createDecoder(normalize(contentType), type, jsonDecoder);
+                if (decoders.size() < MAX_CONTENT_TYPES_PER_LISTENER)
+                    decoders.putIfAbsent(contentType, decoder);
+            }
+            return decode(decoder, contentType, type, message.getMessage());
+        };
+    }
+
+    protected void register(PayloadCodec codec) {
+        for (String contentType : codec.getContentTypes()) {
+            codecs.putIfAbsent(contentType.toLowerCase(Locale.ROOT), codec);
+            log.info("Registered {} codec for content type: '{}'", codec.getClass().getSimpleName(), contentType);
+        }
+    }
+
+    protected PayloadDecoder createDecoder(String contentType, JavaType type, PayloadDecoder jsonDecoder) {
+        PayloadCodec codec = codecs.get(contentType);
+        if (codec == null || codec == jsonCodec) {
+            if (!contentType.endsWith(JSON_SUFFIX) && codec == null)
+                log.warn("No codec registered for content type '{}'. Falling back to JSON for type '{}'.", contentType, type.toCanonical());
+            return jsonDecoder;
+        }
+        log.debug("Binding {} codec for content type '{}' and type '{}'", codec.getClass().getSimpleName(), contentType, type.toCanonical());
+        return codec.decoder(type);
+    }
+
+    /**
+     * Received bodies are backed by the AMQP data section, and {@code toBytes()} hands out that array as-is,
+     * so codecs parse the message buffer directly without an intermediate copy.
+     */
+    protected Object decode(PayloadDecoder decoder, String contentType, JavaType type, ServiceBusReceivedMessage message) {
+        try {
+            return decoder.decode(message.getBody().toBytes());
+        } catch (Exception e) {
+            throw new IllegalStateException(
+                    String.format("Failed to deserialize message to type: '%s' with content type '%s'. Ensure the message body is correctly formatted.",
+                            type.toCanonical(), contentType == null ? JSON : contentType),
+                    e
+            );
+        }
+    }
+
+    protected String resolveContentType(ServiceBusReceivedMessage message) {
+        String contentType = message.getContentType();
+        if (!StringUtils.hasText(contentType) && StringUtils.hasText(contentTypeProperty)) {
+            Object property = message.getApplicationProperties().get(contentTypeProperty);
+            contentType = property != null ? property.toString() : null;
+        }
+        return StringUtils.hasText(contentType) ? contentType : null;
+    }
+
+    protected String normalize(String contentType) {
+        int parameters = contentType.indexOf(';');
+        return (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim().toLowerCase(Locale.ROOT);
+    }
+}
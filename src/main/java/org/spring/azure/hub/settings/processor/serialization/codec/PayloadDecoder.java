@@ -0,0 +1,8 @@
+package org.spring.azure.hub.settings.processor.serialization.codec;
+
+@FunctionalInterface
+public interface PayloadDecoder {
+
+    Object decode(byte[] body) throws Exception;
+
+}
@@ -0,0 +1,46 @@
+package org.spring.azure.hub.settings.processor.serialization.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Collection;
+
+/**
+ * Protobuf codec for generated message classes. The generated static {@code parseFrom(byte[])} carries the schema,
+ * so no protobuf runtime dependency is needed by the framework itself.
+ */
+@RequiredArgsConstructor
+public class ProtobufPayloadCodec implements PayloadCodec {
+
+    @Getter private final Collection<String> contentTypes;
+
+    @Override
+    public PayloadDecoder decoder(JavaType type) {
+        Class<?> rawClass = type.getRawClass();
+        Method parseFrom = ClassUtils.getStaticMethod(rawClass, "parseFrom", byte[].class);
+        if (parseFrom == null)
+            throw new IllegalStateException(String.format(
+                    "Type '%s' is not a generated Protobuf message. A static parseFrom(byte[]) method is required.", rawClass.getName()));
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(parseFrom)
+                    .asType(MethodType.methodType(Object.class, byte[].class));
+            return body -> {
+                try {
+                    return (Object) handle.invokeExact(body);
+                } catch (Exception | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(String.format("Unable to access parseFrom(byte[]) on '%s'.", rawClass.getName()), e);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package org.spring.azure.hub.settings.processor.session;
+
+import com.azure.messaging.servicebus.ServiceBusException;
+import com.azure.messaging.servicebus.ServiceBusFailureReason;
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import com.azure.messaging.servicebus.ServiceBusReceiverAsyncClient;
+import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.model.properties.ServiceBusProperties;
+import org.spring.azure.hub.utilities.ServiceBusObjectUtil;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Session state for listeners of session-enabled entities. With {@code sessionState.cacheEnabled}, state is read from
+ * Service Bus once per session and kept in memory; writes are collected and sent every {@code sessionState.flushInterval}
+ * milliseconds, and before processors close at shutdown. Entries not used for {@code sessionState.expireAfter} seconds
+ * are dropped, since by then the session may have been released and changed by another consumer. Without the cache,
+ * every call goes to Service Bus.
+ * <p>
+ * Each session keeps one entry whose writes are serialized, so an older state never lands after a newer one. State
+ * stays pending until Service Bus confirmed the write of its latest version; failed writes are retried with the next
+ * flush. A session that went quiet for half of the shortest {@code sessionIdleTimeout} is written right away, while
+ * its processor still holds the lock. State whose lock was lost can no longer be stored and is dropped with an error.
+ */
+@Slf4j @Component
+public class SessionStateCache {
+
+    private static final Duration STATE_TIMEOUT = Duration.ofSeconds(30);
+    /** The SDK releases idle sessions after its try timeout when {@code sessionIdleTimeout} is not set. */
+    private static final long DEFAULT_SESSION_IDLE_TIMEOUT = 60;
+
+    private final ServiceBusProperties.SessionStateConfig config;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService flusher;
+    private volatile long quietNanos = Long.MAX_VALUE;
+
+    public SessionStateCache(ServiceBusProperties serviceBusProperties) {
+        this.config = serviceBusProperties.getSessionState();
+    }
+
+    /**
+     * Called for every session processor, so that pending state is written before an idle session is released.
+     *
+     * @param sessionIdleTimeout in seconds, {@code 0} for the SDK default
+     */
+    public synchronized void registerSessionIdleTimeout(long sessionIdleTimeout) {
+        long timeout = sessionIdleTimeout > 0 ? sessionIdleTimeout : DEFAULT_SESSION_IDLE_TIMEOUT;
+        quietNanos = Math.min(quietNanos, TimeUnit.SECONDS.toNanos(timeout) / 2);
+    }
+
+    public byte[] get(ServiceBusReceivedMessageContext message) {
+        String sessionId = sessionId(message);
+        if (!config.getCacheEnabled())
+            return read(ServiceBusObjectUtil.receiver(message), sessionId);
+        String key = key(message, sessionId);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            synchronized (entry) {
+                long now = System.nanoTime();
+                if (entry.isDirty() || now - entry.lastAccess < TimeUnit.SECONDS.toNanos(config.getExpireAfter())) {
+                    entry.lastAccess = now;
+                    return entry.state;
+                }
+            }
+        }
+        ServiceBusReceiverAsyncClient receiver = ServiceBusObjectUtil.receiver(message);
+        byte[] state = read(receiver, sessionId);
+        Entry loaded = entries.compute(key, (name, current) -> {
+            Entry updated = current != null ? current : new Entry(sessionId);
+            synchronized (updated) {
+                // state set while reading is newer than what was read
+                if (!updated.isDirty()) {
+                    updated.receiver = receiver;
+                    updated.state = state;
+                }
+                updated.lastAccess = System.nanoTime();
+            }
+            return updated;
+        });
+        startFlusher();
+        synchronized (loaded) {
+            return loaded.state;
+        }
+    }
+
+    public void set(ServiceBusReceivedMessageContext message, byte[] state) {
+        String sessionId = sessionId(message);
+        ServiceBusReceiverAsyncClient receiver = ServiceBusObjectUtil.receiver(message);
+        if (!config.getCacheEnabled()) {
+            ServiceBusObjectUtil.setSessionState(receiver, sessionId, state).block(STATE_TIMEOUT);
+            return;
+        }
+        // inside compute, so that eviction cannot drop the entry while it becomes dirty
+        entries.compute(key(message, sessionId), (name, current) -> {
+            Entry entry = current != null ? current : new Entry(sessionId);
+            synchronized (entry) {
+                long now = System.nanoTime();
+                if (!entry.isDirty())
+                    entry.dirtySince = now;
+                entry.receiver = receiver;
+                entry.state = state;
+                entry.version++;
+                entry.lastAccess = now;
+            }
+            return entry;
+        });
+        startFlusher();
+    }
+
+    /**
+     * Writes the pending state of the message's session now, for listeners that need it stored before settling.
+     */
+    public void flush(ServiceBusReceivedMessageContext message) {
+        String key = key(message, sessionId(message));
+        Entry entry = entries.get(key);
+        if (entry != null)
+            flush(key, entry);
+    }
+
+    /**
+     * Writes all pending state and waits for it; called before processors are closed.
+     */
+    public void flush() {
+        for (Map.Entry<String, Entry> cached : entries.entrySet()) {
+            try {
+                flush(cached.getKey(), cached.getValue());
+            } catch (RuntimeException e) {
+                log.warn("Unable to store the state of session '{}'", cached.getValue().sessionId, e);
+            }
+        }
+    }
+
+    /**
+     * Writes the state pending for {@code sessionState.flushInterval}, and that of sessions about to be released.
+     */
+    protected void flushAsync() {
+        int written = 0;
+        long now = System.nanoTime();
+        long interval = TimeUnit.MILLISECONDS.toNanos(config.getFlushInterval());
+        for (Map.Entry<String, Entry> cached : entries.entrySet()) {
+            Entry entry = cached.getValue();
+            synchronized (entry) {
+                if (now - entry.dirtySince < interval && now - entry.lastAccess < quietNanos)
+                    continue;
+            }
+            CompletableFuture<Void> write = write(cached.getKey(), entry);
+            if (write == null)
+                continue;
+            written++;
+            write.whenComplete((ignored, error) -> {
+                if (error != null && !isLockLost(error))
+                    log.warn("Unable to store the state of session '{}', retrying with the next flush", entry.sessionId, error);
+            });
+        }
+        if (written > 0)
+            log.debug("Flushed the state of {} sessions", written);
+        evict();
+    }
+
+    /**
+     * Drops expired entries, then the least recently used clean ones beyond {@code sessionState.maxSessions}.
+     */
+    protected void evict() {
+        long expiry = System.nanoTime() - TimeUnit.SECONDS.toNanos(config.getExpireAfter());
+        for (String key : entries.keySet())
+            entries.computeIfPresent(key, (name, entry) -> !isClean(entry) || entry.lastAccess - expiry >= 0 ? entry : null);
+        int excess = entries.size() - config.getMaxSessions();
+        if (excess <= 0)
+            return;
+        List<Map.Entry<String, Entry>> clean = new ArrayList<>();
+        for (Map.Entry<String, Entry> entry : entries.entrySet())
+            if (isClean(entry.getValue()))
+                clean.add(entry);
+        clean.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+        for (int i = 0; i < Math.min(excess, clean.size()); i++)
+            entries.computeIfPresent(clean.get(i).getKey(), (name, entry) -> isClean(entry) ? null : entry);
+    }
+
+    /**
+     * Waits for a write already in flight, then writes the state again while it is newer than what was stored.
+     */
+    private void flush(String key, Entry entry) {
+        long deadline = System.nanoTime() + STATE_TIMEOUT.toNanos();
+        while (true) {
+            CompletableFuture<Void> write = write(key, entry);
+            boolean own = write != null;
+            if (!own) {
+                synchronized (entry) {
+                    if (!entry.isDirty())
+                        return;
+                    write = entry.writing;
+                }
+                if (write == null)
+                    continue;
+            }
+            try {
+                write.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                if (own)
+                    throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                            : new IllegalStateException(String.format("Unable to store the state of session '%s'", entry.sessionId), e.getCause());
+            } catch (TimeoutException e) {
+                throw new IllegalStateException(String.format("Timed out storing the state of session '%s'", entry.sessionId), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(String.format("Interrupted while storing the state of session '%s'", entry.sessionId), e);
+            }
+        }
+    }
+
+    /**
+     * Starts writing the current version, unless nothing is pending or a write is already in flight: one write per
+     * session at a time, so an older state can never overwrite a newer one.
+     *
+     * @return the write, or {@code null} when none was started
+     */
+    private CompletableFuture<Void> write(String key, Entry entry) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        long version;
+        ServiceBusReceiverAsyncClient receiver;
+        byte[] state;
+        synchronized (entry) {
+            if (!entry.isDirty() || entry.writing != null)
+                return null;
+            entry.writing = done;
+            version = entry.version;
+            receiver = entry.receiver;
+            state = entry.state;
+        }
+        ServiceBusObjectUtil.setSessionState(receiver, entry.sessionId, state)
+                .subscribe(null, error -> written(key, entry, version, error, done), () -> written(key, entry, version, null, done));
+        return done;
+    }
+
+    private void written(String key, Entry entry, long version, Throwable error, CompletableFuture<Void> done) {
+        synchronized (entry) {
+            entry.writing = null;
+            if (error == null)
+                entry.writtenVersion = Math.max(entry.writtenVersion, version);
+        }
+        if (error != null && isLockLost(error)) {
+            // state set since then came with a newer lock and is kept
+            entries.computeIfPresent(key, (name, current) -> {
+                synchronized (current) {
+                    if (current != entry || current.version != version)
+                        return current;
+                }
+                log.error("State of session '{}' was lost: its lock was released before the state was stored", entry.sessionId, error);
+                return null;
+            });
+        }
+        if (error == null)
+            done.complete(null);
+        else
+            done.completeExceptionally(error);
+    }
+
+    private static boolean isLockLost(Throwable error) {
+        return error instanceof ServiceBusException && (((ServiceBusException) error).getReason() == ServiceBusFailureReason.SESSION_LOCK_LOST
+                || ((ServiceBusException) error).getReason() == ServiceBusFailureReason.SESSION_CANNOT_BE_LOCKED);
+    }
+
+    private static boolean isClean(Entry entry) {
+        synchronized (entry) {
+            return !entry.isDirty() && entry.writing == null;
+        }
+    }
+
+    private static byte[] read(ServiceBusReceiverAsyncClient receiver, String sessionId) {
+        return ServiceBusObjectUtil.getSessionState(receiver, sessionId).block(STATE_TIMEOUT);
+    }
+
+    private static String sessionId(ServiceBusReceivedMessageContext message) {
+        String sessionId = message.getMessage().getSessionId();
+        if (sessionId == null)
+            throw new IllegalStateException(String.format(
+                    "Message '%s' from '%s' has no session; session state requires a session-enabled entity",
+                    message.getMessage().getMessageId(), message.getEntityPath()));
+        return sessionId;
+    }
+
+    private static String key(ServiceBusReceivedMessageContext message, String sessionId) {
+        return message.getEntityPath() + '|' + sessionId;
+    }
+
+    private void startFlusher() {
+        if (flusher != null)
+            return;
+        synchronized (this) {
+            if (flusher != null)
+                return;
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "servicebus-session-state");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = Math.max(1, Math.min(config.getFlushInterval(), TimeUnit.NANOSECONDS.toMillis(quietNanos)));
+            scheduler.scheduleWithFixedDelay(this::flushAsync, interval, interval, TimeUnit.MILLISECONDS);
+            flusher = scheduler;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (flusher != null)
+            flusher.shutdownNow();
+        flush();
+        entries.clear();
+    }
+
+    /**
+     * One per session, guarded by its own lock. The state is pending while its {@code version} is newer than the
+     * last one Service Bus confirmed.
+     */
+    static class Entry {
+        private final String sessionId;
+        private ServiceBusReceiverAsyncClient receiver;
+        private byte[] state;
+        private long version;
+        private long writtenVersion;
+        private long dirtySince;
+        private CompletableFuture<Void> writing;
+        private volatile long lastAccess = System.nanoTime();
+
+        Entry(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        boolean isDirty() {
+            return version != writtenVersion;
+        }
+    }
+}
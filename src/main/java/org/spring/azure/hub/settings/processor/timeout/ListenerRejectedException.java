@@ -0,0 +1,8 @@
+package org.spring.azure.hub.settings.processor.timeout;
+
+public class ListenerRejectedException extends IllegalStateException {
+
+    public ListenerRejectedException(String name, String subject, int stuck) {
+        super(String.format("Listener for '%s' was not called for %s: %d listeners are stuck past their timeout", name, subject, stuck));
+    }
+}
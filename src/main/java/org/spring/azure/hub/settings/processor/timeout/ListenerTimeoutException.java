@@ -0,0 +1,8 @@
+package org.spring.azure.hub.settings.processor.timeout;
+
+public class ListenerTimeoutException extends IllegalStateException {
+
+    public ListenerTimeoutException(String name, String subject, long timeoutMillis) {
+        super(String.format("Listener for '%s' did not finish %s within %d ms", name, subject, timeoutMillis));
+    }
+}
@@ -0,0 +1,205 @@
+package org.spring.azure.hub.settings.processor.timeout;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.model.properties.ServiceBusProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs listeners that have a {@code listenerTimeout} on {@code servicebus-listener} threads and waits for them for at
+ * most that long. On timeout the listener thread is interrupted and the caller gets a
+ * {@link ListenerTimeoutException}, so the processor callback or dispatch slot is free again whether or not the
+ * listener reacts to the interrupt. Listeners still running past their timeout are stuck: their stack trace is logged
+ * when they time out and again every {@code watchdogInterval} seconds until they return.
+ * <p>
+ * Each stuck listener keeps its thread. Once {@code maxStuckListeners} are stuck, further calls fail at once with a
+ * {@link ListenerRejectedException} instead of taking another thread, until one of them returns.
+ */
+@Slf4j @RequiredArgsConstructor @Component
+public class ListenerWatchdog {
+
+    @FunctionalInterface
+    public interface Invocation {
+        Object call() throws Throwable;
+    }
+
+    private final ServiceBusProperties serviceBusProperties;
+    private final Map<Long, Watched> stuck = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicBoolean saturated = new AtomicBoolean();
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param subject what the listener processes, such as {@code message 'id'}, for logs and the timeout exception
+     * @return what the listener returned
+     */
+    public Object invoke(String name, String subject, long timeoutMillis, Invocation invocation) throws Throwable {
+        int maxStuck = serviceBusProperties.getMaxStuckListeners();
+        if (maxStuck > 0 && stuck.size() >= maxStuck) {
+            if (saturated.compareAndSet(false, true))
+                log.error("{} listeners are stuck past their timeout, rejecting listener calls until one returns", stuck.size());
+            throw new ListenerRejectedException(name, subject, stuck.size());
+        }
+        Watched watched = new Watched(ids.incrementAndGet(), name, subject, timeoutMillis);
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        executor().execute(() -> run(watched, invocation, result));
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            if (!abandon(watched))
+                return join(result);
+            report(watched, "timed out");
+            watched.interrupt();
+            throw new ListenerTimeoutException(name, subject, timeoutMillis);
+        } catch (InterruptedException e) {
+            if (abandon(watched))
+                watched.interrupt();
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * Listener calls still running past their timeout.
+     */
+    public Collection<Watched> getStuck() {
+        return stuck.values();
+    }
+
+    protected void reportAll() {
+        stuck.values().forEach(watched -> {
+            try {
+                report(watched, "is still running");
+            } catch (Exception e) {
+                log.warn("Failed to report the stuck listener of '{}'", watched.name, e);
+            }
+        });
+    }
+
+    protected void report(Watched watched, String state) {
+        Thread thread = watched.thread;
+        if (thread == null)
+            return;
+        IllegalStateException trace = new IllegalStateException(String.format("Stack of listener thread '%s'", thread.getName()));
+        trace.setStackTrace(thread.getStackTrace());
+        log.warn("Listener for '{}' {} on {} after {} ms, timeout {} ms", watched.name, state, watched.subject,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - watched.startedAt), watched.timeoutMillis, trace);
+    }
+
+    private void run(Watched watched, Invocation invocation, CompletableFuture<Object> result) {
+        synchronized (watched) {
+            watched.thread = Thread.currentThread();
+        }
+        try {
+            result.complete(watched.state.get() == Watched.RUNNING ? invocation.call() : null);
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        } finally {
+            synchronized (watched) {
+                watched.thread = null;
+            }
+            if (!watched.state.compareAndSet(Watched.RUNNING, Watched.DONE)) {
+                stuck.remove(watched.id);
+                log.info("Stuck listener for '{}' returned from {} after {} ms", watched.name, watched.subject,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - watched.startedAt));
+                if (stuck.size() < serviceBusProperties.getMaxStuckListeners() && saturated.compareAndSet(true, false))
+                    log.info("Accepting listener calls again, {} listeners still stuck", stuck.size());
+            }
+        }
+    }
+
+    /**
+     * Leaves the listener call running without a caller, unless it just finished.
+     */
+    private boolean abandon(Watched watched) {
+        if (!watched.state.compareAndSet(Watched.RUNNING, Watched.STUCK))
+            return false;
+        stuck.put(watched.id, watched);
+        return true;
+    }
+
+    private static Object join(CompletableFuture<Object> result) throws Throwable {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            AtomicInteger threads = new AtomicInteger();
+            executor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "servicebus-listener-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "servicebus-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = serviceBusProperties.getWatchdogInterval();
+            scheduler.scheduleWithFixedDelay(this::reportAll, interval, interval, TimeUnit.SECONDS);
+        }
+        return executor;
+    }
+
+    /**
+     * Stops reporting and interrupts listeners still running, once processors stopped and in-flight messages drained.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+        if (executor != null)
+            executor.shutdownNow();
+        if (!stuck.isEmpty())
+            log.warn("{} stuck listeners still running at shutdown", stuck.size());
+    }
+
+    public static class Watched {
+        static final int RUNNING = 0;
+        static final int DONE = 1;
+        static final int STUCK = 2;
+
+        private final long id;
+        @Getter private final String name;
+        @Getter private final String subject;
+        @Getter private final long timeoutMillis;
+        @Getter private final long startedAt = System.nanoTime();
+        private final AtomicInteger state = new AtomicInteger(RUNNING);
+        private volatile Thread thread;
+
+        synchronized void interrupt() {
+            if (thread != null)
+                thread.interrupt();
+        }
+
+        Watched(long id, String name, String subject, long timeoutMillis) {
+            this.id = id;
+            this.name = name;
+            this.subject = subject;
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+}
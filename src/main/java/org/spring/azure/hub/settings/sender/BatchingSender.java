@@ -0,0 +1,137 @@
+package org.spring.azure.hub.settings.sender;
+
+import com.azure.messaging.servicebus.ServiceBusMessage;
+import com.azure.messaging.servicebus.ServiceBusMessageBatch;
+import com.azure.messaging.servicebus.ServiceBusSenderClient;
+import com.azure.messaging.servicebus.models.CreateMessageBatchOptions;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalesces sends to one entity into {@link ServiceBusMessageBatch}es. Messages wait at most {@code lingerTime}
+ * before a flush packs them into as few batches as the size cap allows. The in-flight window bounds how many
+ * messages may be queued or sending at once; callers block when it is exhausted.
+ */
+@Slf4j
+public class BatchingSender implements AutoCloseable {
+
+    @Getter private final String entityName;
+    private final ServiceBusSenderClient senderClient;
+    private final ScheduledExecutorService scheduler;
+    private final long lingerTime;
+    private final CreateMessageBatchOptions batchOptions;
+    private final Semaphore window;
+    private final Queue<PendingMessage> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    public BatchingSender(String entityName, ServiceBusSenderClient senderClient, ScheduledExecutorService scheduler,
+                          long lingerTime, Integer maxBatchSizeInBytes, int maxInFlight) {
+        this.entityName = entityName;
+        this.senderClient = senderClient;
+        this.scheduler = scheduler;
+        this.lingerTime = lingerTime;
+        this.batchOptions = maxBatchSizeInBytes == null ? new CreateMessageBatchOptions()
+                : new CreateMessageBatchOptions().setMaximumSizeInBytes(maxBatchSizeInBytes);
+        this.window = new Semaphore(maxInFlight);
+    }
+
+    public CompletableFuture<Void> send(ServiceBusMessage message) {
+        try {
+            window.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            CompletableFuture<Void> interrupted = new CompletableFuture<>();
+            interrupted.completeExceptionally(e);
+            return interrupted;
+        }
+        PendingMessage pendingMessage = new PendingMessage(message);
+        pending.add(pendingMessage);
+        if (flushScheduled.compareAndSet(false, true))
+            scheduler.schedule(this::flush, lingerTime, TimeUnit.MILLISECONDS);
+        return pendingMessage.result;
+    }
+
+    /**
+     * A message that does not fit goes into a new batch once the full one was sent, so that every message is completed
+     * exactly once, even when creating that batch fails.
+     */
+    public void flush() {
+        flushScheduled.set(false);
+        List<PendingMessage> inBatch = new ArrayList<>();
+        ServiceBusMessageBatch batch = null;
+        PendingMessage next = null;
+        while (next != null || (next = pending.poll()) != null) {
+            PendingMessage current = next;
+            next = null;
+            try {
+                if (batch == null)
+                    batch = senderClient.createMessageBatch(batchOptions);
+                if (batch.tryAddMessage(current.message)) {
+                    inBatch.add(current);
+                    continue;
+                }
+                if (batch.getCount() == 0) {
+                    complete(current, new IllegalArgumentException(String.format(
+                            "Message exceeds the maximum batch size of %d bytes for '%s'.", batch.getMaxSizeInBytes(), entityName)));
+                    continue;
+                }
+                sendBatch(batch, inBatch);
+                batch = null;
+                inBatch = new ArrayList<>();
+                next = current;
+            } catch (Throwable e) {
+                complete(current, e);
+            }
+        }
+        if (batch != null && batch.getCount() > 0)
+            sendBatch(batch, inBatch);
+    }
+
+    protected void sendBatch(ServiceBusMessageBatch batch, List<PendingMessage> messages) {
+        Throwable error = null;
+        try {
+            senderClient.sendMessages(batch);
+            log.debug("Sent batch of {} messages ({} bytes) to '{}'", batch.getCount(), batch.getSizeInBytes(), entityName);
+        } catch (Throwable e) {
+            log.warn("Failed to send batch of {} messages to '{}'", batch.getCount(), entityName, e);
+            error = e;
+        }
+        for (PendingMessage message : messages)
+            complete(message, error);
+    }
+
+    protected void complete(PendingMessage message, Throwable error) {
+        window.release();
+        if (error == null)
+            message.result.complete(null);
+        else
+            message.result.completeExceptionally(error);
+    }
+
+    @Override
+    public void close() {
+        flush();
+        senderClient.close();
+        log.debug("Closed sender for '{}'", entityName);
+    }
+
+    protected static class PendingMessage {
+
+        private final ServiceBusMessage message;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        PendingMessage(ServiceBusMessage message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.spring.azure.hub.settings.sender;
+
+import com.azure.core.util.BinaryData;
+import com.azure.messaging.servicebus.ServiceBusClientBuilder;
+import com.azure.messaging.servicebus.ServiceBusMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.spring.azure.hub.emulator.EmulatedMessage;
+import org.spring.azure.hub.emulator.ServiceBusEmulator;
+import org.spring.azure.hub.model.properties.ServiceBusProperties;
+import org.spring.azure.hub.provider.ServiceBusConnectionProvider;
+import org.spring.azure.hub.settings.processor.serialization.codec.PayloadCodecRegistry;
+import org.spring.azure.hub.utilities.ConnectionStringUtil;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends payloads to queues and topics through one cached, batching sender per entity. Payloads are serialized with
+ * the Service Bus ObjectMapper unless they already are a {@link ServiceBusMessage}, {@link BinaryData} or byte array.
+ * Returned futures complete once the batch holding the message has been accepted by the broker. With the emulator
+ * enabled, messages are enqueued in memory and the futures are already complete.
+ */
+@Slf4j @Component
+public class MessageBusTemplate {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final ServiceBusProperties serviceBusProperties;
+    private final ServiceBusConnectionProvider clientProvider;
+    private final ObjectMapper serviceBusClientObjectMapper;
+    private final Map<String, BatchingSender> senders = new ConcurrentHashMap<>();
+    private final Map<String, ServiceBusClientBuilder> senderBuilders = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final ServiceBusEmulator emulator;
+
+    public MessageBusTemplate(ServiceBusProperties serviceBusProperties,
+                              ServiceBusConnectionProvider clientProvider,
+                              ObjectMapper serviceBusClientObjectMapper,
+                              ObjectProvider<ServiceBusEmulator> serviceBusEmulator) {
+        this.serviceBusProperties = serviceBusProperties;
+        this.clientProvider = clientProvider;
+        this.serviceBusClientObjectMapper = serviceBusClientObjectMapper;
+        this.emulator = serviceBusEmulator.getIfAvailable();
+        this.scheduler = Executors.newScheduledThreadPool(serviceBusProperties.getSender().getFlushThreads(), senderThreadFactory());
+    }
+
+    public CompletableFuture<Void> sendToQueue(String queueName, Object payload) {
+        if (emulator != null) {
+            emulator.sendToQueue(queueName, EmulatedMessage.of(toMessage(payload)));
+            return CompletableFuture.completedFuture(null);
+        }
+        return getSender(queueName, false).send(toMessage(payload));
+    }
+
+    public CompletableFuture<Void> sendToTopic(String topicName, Object payload) {
+        if (emulator != null) {
+            emulator.sendToTopic(topicName, EmulatedMessage.of(toMessage(payload)));
+            return CompletableFuture.completedFuture(null);
+        }
+        return getSender(topicName, true).send(toMessage(payload));
+    }
+
+    public ServiceBusMessage toMessage(Object payload) {
+        if (payload instanceof ServiceBusMessage)
+            return (ServiceBusMessage) payload;
+        if (payload instanceof BinaryData)
+            return new ServiceBusMessage((BinaryData) payload);
+        if (payload instanceof byte[])
+            return new ServiceBusMessage((byte[]) payload);
+        try {
+            return new ServiceBusMessage(serviceBusClientObjectMapper.writeValueAsBytes(payload))
+                    .setContentType(PayloadCodecRegistry.JSON);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(String.format("Failed to serialize payload of type: '%s'.", payload.getClass().getName()), e);
+        }
+    }
+
+    protected BatchingSender getSender(String entityName, boolean isTopic) {
+        BatchingSender sender = senders.get(entityName);
+        return sender != null ? sender : senders.computeIfAbsent(entityName, name -> createSender(name, isTopic));
+    }
+
+    protected BatchingSender createSender(String entityName, boolean isTopic) {
+        ServiceBusProperties.SenderConfig senderConfig = serviceBusProperties.getSender();
+        ServiceBusClientBuilder clientBuilder = clientProvider.getServiceBusClientBuilder(entityName, getConnectionString(entityName, isTopic));
+        senderBuilders.put(entityName, clientBuilder);
+        ServiceBusClientBuilder.ServiceBusSenderClientBuilder senderBuilder = clientBuilder.sender();
+        if (isTopic)
+            senderBuilder.topicName(entityName);
+        else
+            senderBuilder.queueName(entityName);
+        log.info("Creating batching sender for {} '{}'", isTopic ? "topic" : "queue", entityName);
+        return new BatchingSender(entityName, senderBuilder.buildClient(), scheduler,
+                senderConfig.getLingerTime(), senderConfig.getMaxBatchSizeInBytes(), senderConfig.getMaxInFlight());
+    }
+
+    protected String getConnectionString(String entityName, boolean isTopic) {
+        Optional<String> entityConnectionString = isTopic
+                ? serviceBusProperties.getTopics().stream()
+                        .filter(topic -> entityName.equals(topic.getName()))
+                        .map(ServiceBusProperties.TopicConfig::getConnectionString)
+                        .findFirst()
+                : serviceBusProperties.getQueues().stream()
+                        .filter(queue -> entityName.equals(queue.getName()))
+                        .map(ServiceBusProperties.QueueConfig::getConnectionString)
+                        .findFirst();
+        String connectionString = entityConnectionString.filter(str -> !str.isEmpty())
+                .orElseGet(() -> Optional.ofNullable(serviceBusProperties.getConnectionString())
+                        .orElseThrow(() -> new IllegalStateException("Connection string is not specified for " + entityName)));
+        return ConnectionStringUtil.ensureEntityPathInConnectionString(connectionString, entityName, serviceBusProperties.getConnectionString());
+    }
+
+    @PreDestroy
+    public void close() {
+        log.info("Flushing and closing '{}' Service Bus senders.", senders.size());
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                scheduler.shutdownNow();
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        senders.forEach((entityName, sender) -> {
+            sender.close();
+            clientProvider.release(entityName, senderBuilders.remove(entityName));
+        });
+        senders.clear();
+    }
+
+    protected ThreadFactory senderThreadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "servicebus-sender-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -9,6 +9,7 @@ public class ConnectionStringUtil {
 
     private static final String ENTITY_PATH = "EntityPath=";
     private static final String END_STRING = ";";
+    private static final String ENDPOINT = "Endpoint=";
 
     public static String ensureEntityPathInConnectionString(String entityConnectionString,
                                                             String name,
@@ -25,4 +26,20 @@ public class ConnectionStringUtil {
         }
         return entityConnectionString;
     }
+
+    public static String removeEntityPath(String connectionString) {
+        StringBuilder namespaceConnectionString = new StringBuilder();
+        for (String part : connectionString.split(END_STRING)) {
+            if (part.trim().isEmpty() || part.trim().startsWith(ENTITY_PATH)) continue;
+            namespaceConnectionString.append(part.trim()).append(END_STRING);
+        }
+        return namespaceConnectionString.toString();
+    }
+
+    public static String getEndpoint(String connectionString) {
+        for (String part : connectionString.split(END_STRING))
+            if (part.trim().startsWith(ENDPOINT))
+                return part.trim().substring(ENDPOINT.length());
+        return "unknown";
+    }
 }
\ No newline at end of file
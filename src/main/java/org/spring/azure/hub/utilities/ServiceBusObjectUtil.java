@@ -0,0 +1,151 @@
+package org.spring.azure.hub.utilities;
+
+import com.azure.core.util.BinaryData;
+import com.azure.messaging.servicebus.ServiceBusErrorContext;
+import com.azure.messaging.servicebus.ServiceBusReceivedMessage;
+import com.azure.messaging.servicebus.ServiceBusReceivedMessageContext;
+import com.azure.messaging.servicebus.ServiceBusReceiverAsyncClient;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.objenesis.ObjenesisStd;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates SDK message and context types outside of a receiver. They are final with package-private constructors, so
+ * this relies on reflection and works on the class path only. Receivers created here are never connected: contexts
+ * built on them cannot be settled through their own methods.
+ */
+public @Slf4j @UtilityClass class ServiceBusObjectUtil {
+
+    private static final Map<String, Method> MESSAGE_SETTERS = new ConcurrentHashMap<>();
+    private static volatile Constructor<ServiceBusErrorContext> errorContextConstructor;
+    private static volatile Constructor<ServiceBusReceivedMessage> messageConstructor;
+    private static volatile Constructor<?> messageContextConstructor;
+    private static volatile Constructor<ServiceBusReceivedMessageContext> receivedContextConstructor;
+    private static volatile Field contextReceiverField;
+    private static volatile Method getSessionStateMethod;
+    private static volatile Method setSessionStateMethod;
+
+    public static ServiceBusErrorContext errorContext(Throwable error, String fullyQualifiedNamespace, String entityPath) {
+        try {
+            if (errorContextConstructor == null)
+                errorContextConstructor = accessible(ServiceBusErrorContext.class.getDeclaredConstructor(Throwable.class, String.class, String.class));
+            return errorContextConstructor.newInstance(error, fullyQualifiedNamespace, entityPath);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalStateException("Unable to create a ServiceBusErrorContext with this azure-messaging-servicebus version", e);
+        }
+    }
+
+    public static ServiceBusReceivedMessage receivedMessage(byte[] body) {
+        try {
+            if (messageConstructor == null)
+                messageConstructor = accessible(ServiceBusReceivedMessage.class.getDeclaredConstructor(BinaryData.class));
+            return messageConstructor.newInstance(BinaryData.fromBytes(body));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalStateException("Unable to create a ServiceBusReceivedMessage with this azure-messaging-servicebus version", e);
+        }
+    }
+
+    /**
+     * Calls one of the package-private broker-side setters of the message, such as {@code setLockToken}.
+     */
+    public static void setMessageProperty(ServiceBusReceivedMessage message, String setter, Class<?> type, Object value) {
+        try {
+            MESSAGE_SETTERS.computeIfAbsent(setter + ':' + type.getName(), key -> {
+                try {
+                    return accessible(ServiceBusReceivedMessage.class.getDeclaredMethod(setter, type));
+                } catch (NoSuchMethodException e) {
+                    throw new IllegalStateException(e);
+                }
+            }).invoke(message, value);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalStateException(String.format("Unable to call ServiceBusReceivedMessage#%s", setter), e);
+        }
+    }
+
+    /**
+     * A receiver that is never connected, reporting the given namespace and entity path.
+     */
+    public static ServiceBusReceiverAsyncClient detachedReceiver(String fullyQualifiedNamespace, String entityPath) {
+        ServiceBusReceiverAsyncClient receiver = new ObjenesisStd().newInstance(ServiceBusReceiverAsyncClient.class);
+        setField(receiver, "fullyQualifiedNamespace", fullyQualifiedNamespace);
+        setField(receiver, "entityPath", entityPath);
+        return receiver;
+    }
+
+    public static ServiceBusReceivedMessageContext receivedMessageContext(ServiceBusReceiverAsyncClient receiver,
+                                                                         ServiceBusReceivedMessage message) {
+        try {
+            if (receivedContextConstructor == null) {
+                Class<?> messageContextType = Class.forName("com.azure.messaging.servicebus.ServiceBusMessageContext");
+                messageContextConstructor = accessible(messageContextType.getDeclaredConstructor(ServiceBusReceivedMessage.class));
+                receivedContextConstructor = accessible(ServiceBusReceivedMessageContext.class
+                        .getDeclaredConstructor(ServiceBusReceiverAsyncClient.class, messageContextType));
+            }
+            return receivedContextConstructor.newInstance(receiver, messageContextConstructor.newInstance(message));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalStateException("Unable to create a ServiceBusReceivedMessageContext with this azure-messaging-servicebus version", e);
+        }
+    }
+
+    /**
+     * The receiver a message was received with; for session processors it serves every session of the processor.
+     */
+    public static ServiceBusReceiverAsyncClient receiver(ServiceBusReceivedMessageContext message) {
+        try {
+            if (contextReceiverField == null)
+                contextReceiverField = accessible(ServiceBusReceivedMessageContext.class.getDeclaredField("receiverClient"));
+            return (ServiceBusReceiverAsyncClient) contextReceiverField.get(message);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalStateException("Unable to access the receiver of a ServiceBusReceivedMessageContext with this azure-messaging-servicebus version", e);
+        }
+    }
+
+    /**
+     * The state of one session of a session processor's receiver. The public {@code getSessionState()} only works
+     * for receivers bound to a single session.
+     */
+    @SuppressWarnings("unchecked")
+    public static Mono<byte[]> getSessionState(ServiceBusReceiverAsyncClient receiver, String sessionId) {
+        try {
+            if (getSessionStateMethod == null)
+                getSessionStateMethod = accessible(ServiceBusReceiverAsyncClient.class.getDeclaredMethod("getSessionState", String.class));
+            return (Mono<byte[]>) getSessionStateMethod.invoke(receiver, sessionId);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Mono.error(new IllegalStateException(String.format("Unable to read the state of session '%s'", sessionId), e));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Mono<Void> setSessionState(ServiceBusReceiverAsyncClient receiver, String sessionId, byte[] state) {
+        try {
+            if (setSessionStateMethod == null)
+                setSessionStateMethod = accessible(ServiceBusReceiverAsyncClient.class.getDeclaredMethod("setSessionState", String.class, byte[].class));
+            return (Mono<Void>) setSessionStateMethod.invoke(receiver, sessionId, state);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Mono.error(new IllegalStateException(String.format("Unable to write the state of session '%s'", sessionId), e));
+        }
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Unable to set {} on {}", name, target.getClass().getName(), e);
+        }
+    }
+
+    private static <T extends AccessibleObject> T accessible(T member) {
+        member.setAccessible(true);
+        return member;
+    }
+}
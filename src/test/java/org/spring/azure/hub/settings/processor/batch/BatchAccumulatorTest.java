@@ -0,0 +1,112 @@
+package org.spring.azure.hub.settings.processor.batch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchAccumulatorTest {
+
+    private static final long ONE_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    void claimsABatchOnceItIsFull() {
+        BatchAccumulator accumulator = new BatchAccumulator(3, ONE_MINUTE);
+        BatchAccumulator.Batch batch = accumulator.join(null, "a");
+        assertFalse(accumulator.claimIfReady(batch));
+        assertSame(batch, accumulator.join(null, "b"));
+        assertFalse(accumulator.claimIfReady(batch));
+        assertSame(batch, accumulator.join(null, "c"));
+
+        assertTrue(accumulator.claimIfReady(batch));
+        assertFalse(accumulator.claimIfReady(batch));
+        assertEquals(Arrays.asList("a", "b", "c"), batch.getPayloads());
+        assertEquals(3, batch.getMessages().size());
+        assertNotSame(batch, accumulator.join(null, "d"));
+    }
+
+    @Test
+    void neverGrowsABatchPastItsMaximumSize() {
+        BatchAccumulator accumulator = new BatchAccumulator(2, ONE_MINUTE);
+        BatchAccumulator.Batch full = accumulator.join(null, "a");
+        accumulator.join(null, "b");
+        // arrives before the filling callback claimed the batch
+        BatchAccumulator.Batch next = accumulator.join(null, "c");
+
+        assertNotSame(full, next);
+        assertEquals(Arrays.asList("a", "b"), full.getPayloads());
+        assertTrue(accumulator.claimIfReady(full));
+        assertSame(next, accumulator.join(null, "d"));
+        assertTrue(accumulator.claimIfReady(next));
+        assertEquals(Arrays.asList("c", "d"), next.getPayloads());
+    }
+
+    @Test
+    void claimsAPartialBatchOnceItsDeadlinePassed() {
+        BatchAccumulator accumulator = new BatchAccumulator(10, 0);
+        BatchAccumulator.Batch batch = accumulator.join(null, "a");
+
+        assertTrue(accumulator.claimIfReady(batch));
+        assertFalse(accumulator.claimIfReady(batch));
+        assertEquals(1, batch.getPayloads().size());
+    }
+
+    @Test
+    void startsANewBatchWhenAPartialOneIsClaimed() {
+        BatchAccumulator accumulator = new BatchAccumulator(10, 0);
+        BatchAccumulator.Batch first = accumulator.join(null, "a");
+        assertTrue(accumulator.claimIfReady(first));
+        BatchAccumulator.Batch second = accumulator.join(null, "b");
+
+        assertNotSame(first, second);
+        assertEquals(Arrays.asList("a"), first.getPayloads());
+        assertEquals(Arrays.asList("b"), second.getPayloads());
+    }
+
+    @Test
+    void wakesWaitingCallbacksOnceTheBatchIsDispatched() throws Throwable {
+        BatchAccumulator accumulator = new BatchAccumulator(2, ONE_MINUTE);
+        BatchAccumulator.Batch batch = accumulator.join(null, "a");
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return batch.await();
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        accumulator.join(null, "b");
+        assertTrue(accumulator.claimIfReady(batch));
+        batch.complete();
+
+        assertTrue(waiter.get(5, TimeUnit.SECONDS));
+        batch.join();
+    }
+
+    @Test
+    void stopsWaitingAtTheDeadline() throws Throwable {
+        BatchAccumulator accumulator = new BatchAccumulator(2, TimeUnit.MILLISECONDS.toNanos(20));
+        BatchAccumulator.Batch batch = accumulator.join(null, "a");
+
+        assertFalse(batch.await());
+        assertTrue(accumulator.claimIfReady(batch));
+    }
+
+    @Test
+    void rethrowsTheDispatchFailure() {
+        BatchAccumulator accumulator = new BatchAccumulator(1, ONE_MINUTE);
+        BatchAccumulator.Batch batch = accumulator.join(null, "a");
+        assertTrue(accumulator.claimIfReady(batch));
+        batch.fail(new IllegalStateException("listener failed"));
+
+        assertEquals("listener failed", assertThrows(IllegalStateException.class, batch::await).getMessage());
+        assertEquals("listener failed", assertThrows(IllegalStateException.class, batch::join).getMessage());
+    }
+}
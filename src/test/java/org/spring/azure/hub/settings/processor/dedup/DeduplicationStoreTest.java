@@ -0,0 +1,74 @@
+package org.spring.azure.hub.settings.processor.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeduplicationStoreTest {
+
+    @Test
+    void roundsTheCapacityUpToWholeBuckets() {
+        assertEquals(8, new InMemoryDeduplicationStore(1).getCapacity());
+        assertEquals(8, new InMemoryDeduplicationStore(8).getCapacity());
+        assertEquals(16, new InMemoryDeduplicationStore(9).getCapacity());
+        assertEquals(1024, new InMemoryDeduplicationStore(1000).getCapacity());
+        assertThrows(IllegalArgumentException.class, () -> new InMemoryDeduplicationStore(0));
+    }
+
+    @Test
+    void forgetsKeysOnceTheyExpire() {
+        DeduplicationStore store = new InMemoryDeduplicationStore(64);
+        store.add(42L, 1_000L);
+
+        assertTrue(store.contains(42L, 999L));
+        assertFalse(store.contains(42L, 1_000L));
+        assertFalse(store.contains(43L, 0L));
+    }
+
+    @Test
+    void evictsTheEntryClosestToExpiryFromAFullBucket() {
+        // a capacity of one bucket puts every key in the same bucket
+        DeduplicationStore store = new InMemoryDeduplicationStore(DeduplicationStore.WAYS);
+        for (long key = 1; key <= DeduplicationStore.WAYS; key++)
+            store.add(key, key * 100);
+
+        store.add(100L, 5_000L);
+
+        assertFalse(store.contains(1L, 0L));
+        for (long key = 2; key <= DeduplicationStore.WAYS; key++)
+            assertTrue(store.contains(key, 0L));
+        assertTrue(store.contains(100L, 0L));
+    }
+
+    @Test
+    void refreshesAKnownKeyInPlace() {
+        DeduplicationStore store = new InMemoryDeduplicationStore(DeduplicationStore.WAYS);
+        for (long key = 1; key <= DeduplicationStore.WAYS; key++)
+            store.add(key, key * 100);
+
+        store.add(3L, 5_000L);
+
+        for (long key = 1; key <= DeduplicationStore.WAYS; key++)
+            assertTrue(store.contains(key, 0L));
+        assertTrue(store.contains(3L, 4_999L));
+        assertFalse(store.contains(1L, 100L));
+    }
+
+    @Test
+    void neverGrowsPastItsCapacity() {
+        DeduplicationStore store = new InMemoryDeduplicationStore(128);
+        long memory = store.getMemoryBytes();
+        for (long key = 1; key <= 100_000; key++)
+            store.add(key * 0x9E3779B97F4A7C15L, key);
+
+        assertEquals(memory, store.getMemoryBytes());
+        int remembered = 0;
+        for (long key = 1; key <= 100_000; key++)
+            if (store.contains(key * 0x9E3779B97F4A7C15L, 0L))
+                remembered++;
+        assertEquals(store.getCapacity(), remembered);
+    }
+}
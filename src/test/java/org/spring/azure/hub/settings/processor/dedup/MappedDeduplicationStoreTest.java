@@ -0,0 +1,64 @@
+package org.spring.azure.hub.settings.processor.dedup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedDeduplicationStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void remembersKeysAfterReopening() {
+        Path file = directory.resolve("dedup/orders.bin");
+        try (MappedDeduplicationStore store = new MappedDeduplicationStore(file, 64)) {
+            store.add(7L, 1_000L);
+            store.add(8L, 2_000L);
+        }
+
+        try (MappedDeduplicationStore store = new MappedDeduplicationStore(file, 64)) {
+            assertTrue(store.contains(7L, 999L));
+            assertFalse(store.contains(7L, 1_000L));
+            assertTrue(store.contains(8L, 1_999L));
+            assertFalse(store.contains(9L, 0L));
+        }
+    }
+
+    @Test
+    void clearsAFileWrittenWithAnotherCapacity() {
+        Path file = directory.resolve("orders.bin");
+        try (MappedDeduplicationStore store = new MappedDeduplicationStore(file, 64)) {
+            store.add(7L, 1_000L);
+        }
+
+        try (MappedDeduplicationStore store = new MappedDeduplicationStore(file, 256)) {
+            assertEquals(256, store.getCapacity());
+            assertFalse(store.contains(7L, 0L));
+        }
+    }
+
+    @Test
+    void clearsAFileWithoutAValidHeader() throws Exception {
+        Path file = directory.resolve("orders.bin");
+        long size;
+        try (MappedDeduplicationStore store = new MappedDeduplicationStore(file, 64)) {
+            store.add(7L, 1_000L);
+            size = store.getMemoryBytes();
+        }
+        byte[] garbage = new byte[(int) size];
+        garbage[16] = 7;
+        garbage[24] = 1;
+        Files.write(file, garbage);
+
+        try (MappedDeduplicationStore store = new MappedDeduplicationStore(file, 64)) {
+            assertFalse(store.contains(7L, 0L));
+        }
+    }
+}
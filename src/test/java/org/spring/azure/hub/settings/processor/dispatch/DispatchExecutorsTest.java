@@ -0,0 +1,56 @@
+package org.spring.azure.hub.settings.processor.dispatch;
+
+import org.junit.jupiter.api.Test;
+import org.spring.azure.hub.model.properties.DispatchMode;
+import org.spring.azure.hub.model.properties.ServiceBusProperties;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DispatchExecutorsTest {
+
+    @Test
+    void decidesTheVirtualThreadFallbackOnce() {
+        AtomicInteger lookups = new AtomicInteger();
+        DispatchExecutors executors = new DispatchExecutors(new ServiceBusProperties()) {
+            @Override
+            protected ExecutorService createVirtualThreadExecutor() {
+                lookups.incrementAndGet();
+                return null;
+            }
+        };
+        try {
+            assertSame(executors.get(DispatchMode.POOL), executors.get(DispatchMode.VIRTUAL));
+            assertSame(executors.get(DispatchMode.POOL), executors.get(DispatchMode.VIRTUAL));
+            assertEquals(1, lookups.get());
+            assertNull(executors.get(DispatchMode.CALLER));
+        } finally {
+            executors.shutdown();
+        }
+    }
+
+    @Test
+    void refusesEntitiesThatDoNotFitInTheSharedPool() {
+        ServiceBusProperties properties = new ServiceBusProperties();
+        properties.setDispatchPoolSize(32);
+        DispatchExecutors executors = new DispatchExecutors(properties);
+        try {
+            executors.get("orders", DispatchMode.POOL, 16);
+            executors.get("payments", DispatchMode.POOL, 16);
+            // a rebuilt processor replaces its own reservation
+            executors.get("orders", DispatchMode.POOL, 8);
+            executors.get("audit", DispatchMode.CALLER, 64);
+
+            assertThrows(IllegalStateException.class, () -> executors.get("invoices", DispatchMode.POOL, 9));
+            executors.get("invoices", DispatchMode.POOL, 8);
+            assertThrows(IllegalStateException.class, () -> executors.get("orders", DispatchMode.POOL, 9));
+        } finally {
+            executors.shutdown();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.spring.azure.hub.settings.processor.dispatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyedSerialExecutorTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        pool.shutdownNow();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void runsTasksOfOneKeyInOrderAndOneAtATime() throws Exception {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(pool);
+        int keys = 4, tasks = 1000;
+        List<List<Integer>> seen = new ArrayList<>();
+        List<AtomicInteger> running = new ArrayList<>();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(keys * tasks);
+        for (int k = 0; k < keys; k++) {
+            seen.add(Collections.synchronizedList(new ArrayList<>()));
+            running.add(new AtomicInteger());
+        }
+        for (int i = 0; i < tasks; i++) {
+            for (int k = 0; k < keys; k++) {
+                int key = k, value = i;
+                executor.execute("key-" + k, () -> {
+                    if (running.get(key).incrementAndGet() != 1)
+                        overlapped.set(true);
+                    seen.get(key).add(value);
+                    running.get(key).decrementAndGet();
+                    done.countDown();
+                });
+            }
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertFalse(overlapped.get());
+        for (List<Integer> values : seen) {
+            assertEquals(tasks, values.size());
+            for (int i = 0; i < tasks; i++)
+                assertEquals(i, values.get(i));
+        }
+        awaitNoActiveKeys(executor);
+    }
+
+    @Test
+    void waitsForAFreeKeyWhenTheKeyLimitIsReached() throws Exception {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(pool, 2);
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch thirdRan = new CountDownLatch(1);
+        executor.execute("a", () -> await(gate));
+        executor.execute("b", () -> await(gate));
+        // a key that already has tasks takes no extra permit
+        executor.execute("a", () -> { });
+
+        Thread submitter = new Thread(() -> {
+            try {
+                executor.execute("c", thirdRan::countDown);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        submitter.start();
+        submitter.join(200);
+        assertTrue(submitter.isAlive());
+        assertEquals(2, executor.getActiveKeys());
+
+        gate.countDown();
+        assertTrue(thirdRan.await(5, TimeUnit.SECONDS));
+        submitter.join(5000);
+        assertFalse(submitter.isAlive());
+        awaitNoActiveKeys(executor);
+    }
+
+    @Test
+    void keepsRunningTheKeyAfterATaskThrows() throws Exception {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(command -> pool.execute(() -> {
+            try {
+                command.run();
+            } catch (RuntimeException e) {
+                // the worker of a real executor would report it
+            }
+        }), 1);
+        CountDownLatch gate = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute("a", () -> await(gate));
+        executor.execute("a", () -> {
+            order.add("failing");
+            throw new IllegalStateException("listener failed");
+        });
+        executor.execute("a", () -> {
+            order.add("next");
+            done.countDown();
+        });
+        gate.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("failing", "next"), order);
+        awaitNoActiveKeys(executor);
+        // the key permit was handed back
+        CountDownLatch other = new CountDownLatch(1);
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> executor.execute("b", other::countDown));
+        assertTrue(other.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void releasesTheKeyWhenTheDelegateRejects() {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(command -> {
+            throw new RejectedExecutionException("shut down");
+        }, 1);
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute("a", () -> { }));
+        assertEquals(0, executor.getActiveKeys());
+        // a leaked permit would block here instead of rejecting again
+        assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(RejectedExecutionException.class, () -> executor.execute("b", () -> { })));
+        assertEquals(0, executor.getActiveKeys());
+    }
+
+    @Test
+    void runsTasksWithoutAKeyDirectly() throws Exception {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(pool, 1);
+        CountDownLatch done = new CountDownLatch(2);
+        executor.execute(null, done::countDown);
+        executor.execute(null, done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, executor.getActiveKeys());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitNoActiveKeys(KeyedSerialExecutor executor) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getActiveKeys() > 0 && System.nanoTime() < deadline)
+            Thread.sleep(5);
+        assertEquals(0, executor.getActiveKeys());
+    }
+}
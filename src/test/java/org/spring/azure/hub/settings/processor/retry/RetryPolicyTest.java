@@ -0,0 +1,72 @@
+package org.spring.azure.hub.settings.processor.retry;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+
+    private static final int SAMPLES = 2_000;
+
+    @Test
+    void waitsBetweenHalfAndAllOfTheExponentialDelay() {
+        RetryPolicy policy = new RetryPolicy(10, 100, 10_000);
+        for (int retry = 1; retry <= 10; retry++) {
+            long nominal = Math.min(100L << (retry - 1), 10_000L);
+            assertDelays(policy, retry, nominal / 2, nominal);
+        }
+    }
+
+    @Test
+    void spreadsDelaysOverTheWholeJitterRange() {
+        RetryPolicy policy = new RetryPolicy(1, 1_000, 1_000);
+        long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long delay = policy.delayMillis(1);
+            min = Math.min(min, delay);
+            max = Math.max(max, delay);
+        }
+        assertTrue(min < 600, "shortest delay " + min);
+        assertTrue(max > 900, "longest delay " + max);
+    }
+
+    @Test
+    void treatsRetriesBelowOneAsTheFirst() {
+        RetryPolicy policy = new RetryPolicy(3, 100, 10_000);
+        assertDelays(policy, 0, 50, 100);
+        assertDelays(policy, -5, 50, 100);
+    }
+
+    @Test
+    void capsDelaysThatWouldOverflow() {
+        RetryPolicy policy = new RetryPolicy(Integer.MAX_VALUE, 3, Long.MAX_VALUE);
+        // 3 << 61 still fits in a long, 3 << 62 does not
+        assertDelays(policy, 62, (3L << 61) / 2, 3L << 61);
+        for (int retry : new int[]{63, 64, 100, Integer.MAX_VALUE})
+            assertDelays(policy, retry, Long.MAX_VALUE / 2, Long.MAX_VALUE);
+    }
+
+    @Test
+    void capsDelaysAtTheMaximumBackoff() {
+        RetryPolicy policy = new RetryPolicy(100, 1_000, 60_000);
+        assertDelays(policy, 40, 30_000, 60_000);
+        assertDelays(policy, Integer.MAX_VALUE, 30_000, 60_000);
+    }
+
+    @Test
+    void rejectsInvalidBackoffs() {
+        assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(1, 0, 1_000));
+        assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(1, 2_000, 1_000));
+        assertEquals(1_000, new RetryPolicy(1, 1_000, 1_000).getMaxBackoffMillis());
+    }
+
+    private static void assertDelays(RetryPolicy policy, int retry, long min, long max) {
+        for (int i = 0; i < SAMPLES; i++) {
+            long delay = policy.delayMillis(retry);
+            assertTrue(delay >= min && delay <= max,
+                    String.format("retry %d waited %d ms, expected between %d and %d", retry, delay, min, max));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.spring.azure.hub.settings.processor.timeout;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.spring.azure.hub.model.properties.ServiceBusProperties;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ListenerWatchdogTest {
+
+    private final ServiceBusProperties properties = new ServiceBusProperties();
+    private final ListenerWatchdog watchdog = new ListenerWatchdog(properties);
+
+    @AfterEach
+    void shutdown() {
+        watchdog.shutdown();
+    }
+
+    @Test
+    void returnsWhatTheListenerReturned() throws Throwable {
+        assertEquals("done", watchdog.invoke("orders", "message '1'", 1_000, () -> "done"));
+        assertThrows(IllegalArgumentException.class, () -> watchdog.invoke("orders", "message '2'", 1_000, () -> {
+            throw new IllegalArgumentException("invalid");
+        }));
+    }
+
+    @Test
+    void rejectsCallsWhileTooManyListenersAreStuck() throws Throwable {
+        properties.setMaxStuckListeners(1);
+        CountDownLatch downstream = new CountDownLatch(1);
+
+        assertThrows(ListenerTimeoutException.class, () -> watchdog.invoke("orders", "message '1'", 50, () -> {
+            awaitIgnoringInterrupts(downstream);
+            return null;
+        }));
+        assertEquals(1, watchdog.getStuck().size());
+        assertThrows(ListenerRejectedException.class, () -> watchdog.invoke("orders", "message '2'", 50, () -> "never called"));
+
+        downstream.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!watchdog.getStuck().isEmpty() && System.nanoTime() < deadline)
+            Thread.sleep(5);
+        assertTrue(watchdog.getStuck().isEmpty());
+        assertEquals("done", watchdog.invoke("orders", "message '3'", 1_000, () -> "done"));
+    }
+
+    private static void awaitIgnoringInterrupts(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException e) {
+                // a listener blocked on a hung downstream call
+            }
+        }
+    }
+}